@@ -21,6 +21,8 @@ import android.widget.TextView;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
 import androidx.core.app.ActivityCompat;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.NavController;
 import androidx.navigation.NavDestination;
@@ -39,9 +41,21 @@ import com.google.android.material.bottomnavigation.BottomNavigationView;
 
 import org.json.JSONException;
 
+import java.util.List;
 import java.util.Set;
 
 import edu.uw.tcss450.groupchat.databinding.ActivityMainBinding;
+import edu.uw.tcss450.groupchat.io.BadgeCounterStore;
+import edu.uw.tcss450.groupchat.io.ChatMessageIndex;
+import edu.uw.tcss450.groupchat.io.ChatMessageStore;
+import edu.uw.tcss450.groupchat.io.ContactStore;
+import edu.uw.tcss450.groupchat.io.RealtimeChannel;
+import edu.uw.tcss450.groupchat.io.RequestQueueSingleton;
+import edu.uw.tcss450.groupchat.io.RequestScheduler;
+import edu.uw.tcss450.groupchat.io.ResponseCache;
+import edu.uw.tcss450.groupchat.io.SessionManager;
+import edu.uw.tcss450.groupchat.io.SessionSnapshot;
+import edu.uw.tcss450.groupchat.io.TrafficMeter;
 import edu.uw.tcss450.groupchat.model.PushyTokenViewModel;
 import edu.uw.tcss450.groupchat.model.UserInfoViewModel;
 import edu.uw.tcss450.groupchat.model.chats.ChatMessageViewModel;
@@ -51,12 +65,14 @@ import edu.uw.tcss450.groupchat.model.contacts.ContactNotificationsViewModel;
 import edu.uw.tcss450.groupchat.model.contacts.ContactsIncomingViewModel;
 import edu.uw.tcss450.groupchat.model.contacts.ContactsMainViewModel;
 import edu.uw.tcss450.groupchat.model.contacts.ContactsOutgoingViewModel;
-import edu.uw.tcss450.groupchat.model.contacts.ContactsSearchViewModel;
 import edu.uw.tcss450.groupchat.model.weather.CurrentLocationViewModel;
+import edu.uw.tcss450.groupchat.services.ChatNotificationAggregator;
 import edu.uw.tcss450.groupchat.services.PushReceiver;
 import edu.uw.tcss450.groupchat.ui.chats.ChatMessage;
 import edu.uw.tcss450.groupchat.ui.chats.ChatRoom;
+import edu.uw.tcss450.groupchat.ui.chats.ChatRoomFragmentArgs;
 import edu.uw.tcss450.groupchat.ui.contacts.Contact;
+import edu.uw.tcss450.groupchat.utils.StartupScheduler;
 
 /**
  * Activity after the user is authenticated, for all the features of the application.
@@ -92,23 +108,25 @@ public class MainActivity extends AppCompatActivity {
 
     private ActivityMainBinding binding;
 
+    private StartupScheduler mStartup;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        mStartup = new StartupScheduler("MainActivity");
+        mStartup.beginSection("critical");
 
         MainActivityArgs args = MainActivityArgs.fromBundle(getIntent().getExtras());
         String email = args.getEmail();
         String username = args.getUsername();
-        String jwt = args.getJwt();
+        SessionManager.getInstance(this).resume(args.getJwt());
 
         new ViewModelProvider(this,
-                new UserInfoViewModel.UserInfoViewModelFactory(email, username, jwt))
+                new UserInfoViewModel.UserInfoViewModelFactory(email, username))
                 .get(UserInfoViewModel.class);
 
-        mNewChatModel = new ViewModelProvider(this).get(ChatNotificationsViewModel.class);
-        mNewContactModel = new ViewModelProvider(this).get(ContactNotificationsViewModel.class);
         mUserViewModel = new ViewModelProvider(this).get(UserInfoViewModel.class);
-        ChatRoomViewModel chatRoomModel = new ViewModelProvider(this).get(ChatRoomViewModel.class);
+        SessionSnapshot.getInstance(this).restore();
 
         SharedPreferences prefs =
                 this.getSharedPreferences(
@@ -156,10 +174,16 @@ public class MainActivity extends AppCompatActivity {
         NavigationUI.setupActionBarWithNavController(this, navController, mAppBarConfiguration);
         NavigationUI.setupWithNavController(navView, navController);
 
+        // cheap to create, and needed as soon as the user switches tabs
+        mNewChatModel = new ViewModelProvider(this).get(ChatNotificationsViewModel.class);
+        mNewContactModel = new ViewModelProvider(this).get(ContactNotificationsViewModel.class);
+
         navController.addOnDestinationChangedListener((controller, destination, arguments) -> {
             InputMethodManager manager =
                     (InputMethodManager) getSystemService(Context.INPUT_METHOD_SERVICE);
             manager.hideSoftInputFromWindow(findViewById(android.R.id.content).getWindowToken(), 0);
+            TrafficMeter.getInstance()
+                    .setScreen(getResources().getResourceEntryName(destination.getId()));
             if (destination.getId() == R.id.navigation_contacts) {
                 mNewContactModel.reset("contacts");
             } else if (destination.getId() == R.id.navigation_chats) {
@@ -167,6 +191,81 @@ public class MainActivity extends AppCompatActivity {
             }
         });
 
+        // the token could not be refreshed, the user has to sign in again
+        SessionManager.getInstance(this).addExpiredObserver(this, expired -> {
+            if (expired) signOut();
+        });
+
+        // opened from a chat notification, show the room at its first unread message
+        if (savedInstanceState == null && args.getChatId() > 0) {
+            openRoom(args.getChatId(), args.getMessageId());
+        }
+
+        mStartup.endSection();
+        mStartup.traceFirstFrame();
+
+        // everything below waits until the first frame is drawn and the main thread is idle
+        mStartup.defer("badges", this::initBadges);
+        mStartup.defer("push", this::initPushReceiver);
+        mStartup.defer("location", this::initLocation);
+    }
+
+    /**
+     * Opens a chat room once the list of rooms is loaded, anchored on one of its messages.
+     */
+    private void openRoom(final int chatId, final int messageId) {
+        ChatRoomViewModel model = new ViewModelProvider(this).get(ChatRoomViewModel.class);
+        model.addRoomsObserver(this, new Observer<List<ChatRoom>>() {
+            private boolean mOpened;
+
+            @Override
+            public void onChanged(final List<ChatRoom> rooms) {
+                ChatRoom room = model.getRoomFromId(chatId);
+                if (mOpened || room == null) return;
+                mOpened = true;
+                NavController navController =
+                        Navigation.findNavController(MainActivity.this, R.id.nav_host_fragment);
+                navController.getGraph().findNode(R.id.chatDisplayFragment).setLabel(room.getName());
+                navController.navigate(R.id.chatDisplayFragment,
+                        new ChatRoomFragmentArgs.Builder(room)
+                                .setMessageId(messageId)
+                                .build()
+                                .toBundle());
+            }
+        });
+        model.connect();
+    }
+
+    /**
+     * Connects the badge counters to the bottom navigation.
+     */
+    private void initBadges() {
+        ChatRoomViewModel chatRoomModel = new ViewModelProvider(this).get(ChatRoomViewModel.class);
+
+        chatRoomModel.addCurrentObserver(this, chatId -> mNewChatModel.reset(chatId));
+
+        BadgeCounterStore.getInstance(this).addBadgesObserver(this, badges -> {
+            setBadge(R.id.navigation_chats, badges.getChatCount());
+            setBadge(R.id.navigation_contacts, badges.getContactCount());
+        });
+    }
+
+    /**
+     * Creates the receiver for pushes that arrive while the app is open, and registers it if
+     * the activity was resumed before it was created.
+     */
+    private void initPushReceiver() {
+        mPushMessageReceiver = new MainPushMessageReceiver();
+        if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
+            registerReceiver(mPushMessageReceiver,
+                    new IntentFilter(PushReceiver.RECEIVED_NEW_MESSAGE));
+        }
+    }
+
+    /**
+     * Sets up location services, asking for permission if the user has not given it yet.
+     */
+    private void initLocation() {
         mFusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
 
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
@@ -200,90 +299,9 @@ public class MainActivity extends AppCompatActivity {
             }
         };
         createLocationRequest();
-
-        binding.navView.removeBadge(R.id.navigation_chats);
-        binding.navView.removeBadge(R.id.navigation_contacts);
-
-        chatRoomModel.addCurrentObserver(this, chatId -> mNewChatModel.reset(chatId));
-
-        mNewChatModel.addMessageCountObserver(this, notifications -> {
-            BadgeDrawable badge = binding.navView.getOrCreateBadge(R.id.navigation_chats);
-            badge.setMaxCharacterCount(2);
-
-            int count = 0;
-            for (int chatId : notifications.keySet()) {
-                count += notifications.get(chatId);
-            }
-
-            if(count > 0) {
-                //new messages
-                badge.setNumber(mNewChatModel.getNewChatCount() + count);
-                badge.setVisible(true);
-            } else {
-                //remove badge
-                if (mNewChatModel.getNewChatCount() == 0) {
-                    binding.navView.removeBadge(R.id.navigation_chats);
-                } else {
-                    badge.setNumber(mNewChatModel.getNewChatCount());
-                    badge.setVisible(true);
-                }
-            }
-        });
-
-        mNewChatModel.addChatCountObserver(this, count -> {
-            BadgeDrawable badge = binding.navView.getOrCreateBadge(R.id.navigation_chats);
-            badge.setMaxCharacterCount(2);
-
-            if(count > 0) {
-                //new contacts
-                badge.setNumber(mNewChatModel.getNewMessageCount() + count);
-                badge.setVisible(true);
-            } else {
-                //remove badge
-                if (mNewChatModel.getNewMessageCount() == 0) {
-                    binding.navView.removeBadge(R.id.navigation_chats);
-                } else {
-                    badge.setNumber(mNewChatModel.getNewMessageCount());
-                    badge.setVisible(true);
-                }
-            }
-        });
-
-        mNewContactModel.addContactCountObserver("contacts", this, count -> {
-            BadgeDrawable badge = binding.navView.getOrCreateBadge(R.id.navigation_contacts);
-            badge.setMaxCharacterCount(2);
-
-            if (count > 0 || mNewContactModel.getNotificationCount() > 0) {
-                badge.setNumber(mNewContactModel.getNotificationCount());
-                badge.setVisible(true);
-            } else {
-                binding.navView.removeBadge(R.id.navigation_contacts);
-            }
-        });
-
-        mNewContactModel.addContactCountObserver("incoming", this, count -> {
-            BadgeDrawable badge = binding.navView.getOrCreateBadge(R.id.navigation_contacts);
-            badge.setMaxCharacterCount(2);
-
-            if (count > 0 || mNewContactModel.getNotificationCount() > 0) {
-                badge.setNumber(mNewContactModel.getNotificationCount());
-                badge.setVisible(true);
-            } else {
-                binding.navView.removeBadge(R.id.navigation_contacts);
-            }
-        });
-
-        mNewContactModel.addContactCountObserver("outgoing", this, count -> {
-            BadgeDrawable badge = binding.navView.getOrCreateBadge(R.id.navigation_contacts);
-            badge.setMaxCharacterCount(2);
-
-            if (count > 0 || mNewContactModel.getNotificationCount() > 0) {
-                badge.setNumber(mNewContactModel.getNotificationCount());
-                badge.setVisible(true);
-            } else {
-                binding.navView.removeBadge(R.id.navigation_contacts);
-            }
-        });
+        if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
+            startLocationUpdates();
+        }
     }
 
     @Override
@@ -296,11 +314,14 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
-        if(mPushMessageReceiver == null) {
-            mPushMessageReceiver = new MainPushMessageReceiver();
+        if (mPushMessageReceiver != null) {
+            // created by the startup scheduler the first time round
+            IntentFilter iFilter = new IntentFilter(PushReceiver.RECEIVED_NEW_MESSAGE);
+            registerReceiver(mPushMessageReceiver, iFilter);
         }
-        IntentFilter iFilter = new IntentFilter(PushReceiver.RECEIVED_NEW_MESSAGE);
-        registerReceiver(mPushMessageReceiver, iFilter);
+        // messages received while away are now shown in the app
+        ChatNotificationAggregator.getInstance(this).clearAll();
+        RealtimeChannel.getInstance(this).start();
         startLocationUpdates();
     }
 
@@ -310,6 +331,8 @@ public class MainActivity extends AppCompatActivity {
         if(mPushMessageReceiver != null){
             unregisterReceiver(mPushMessageReceiver);
         }
+        // Pushy delivers the events until the app is back
+        RealtimeChannel.getInstance(this).stop();
         stopLocationUpdates();
     }
 
@@ -410,6 +433,7 @@ public class MainActivity extends AppCompatActivity {
      * Requests location updates from the FusedLocationApi.
      */
     private void startLocationUpdates() {
+        if (mLocationRequest == null) return;
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
                 == PackageManager.PERMISSION_GRANTED
                 && ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_COARSE_LOCATION)
@@ -423,35 +447,68 @@ public class MainActivity extends AppCompatActivity {
      * Removes location updates from the FusedLocationApi.
      */
     private void stopLocationUpdates() {
+        if (mFusedLocationClient == null) return;
         // It is good practice to remove location requests when the activity is in a paused or
         // stopped state. Doing so helps battery performance and is especially recommended in
         // applications that request frequent location updates.
         mFusedLocationClient.removeLocationUpdates(mLocationCallback);
     }
 
+    /**
+     * Shows a count on a bottom navigation item, or removes its badge when there is none.
+     *
+     * @param itemId the navigation item
+     * @param count the count to show
+     */
+    private void setBadge(final int itemId, final int count) {
+        if (count > 0) {
+            BadgeDrawable badge = binding.navView.getOrCreateBadge(itemId);
+            badge.setMaxCharacterCount(2);
+            badge.setNumber(count);
+            badge.setVisible(true);
+        } else {
+            binding.navView.removeBadge(itemId);
+        }
+    }
+
     private void signOut() {
         SharedPreferences prefs =
                 getSharedPreferences(
                         getString(R.string.keys_shared_prefs),
                         Context.MODE_PRIVATE);
 
-        prefs.edit().remove(getString(R.string.keys_prefs_jwt)).apply();
         prefs.edit().remove(getString(R.string.keys_prefs_theme)).apply();
         prefs.edit().remove(getString(R.string.keys_prefs_mode)).apply();
 
-        PushyTokenViewModel model = new ViewModelProvider(this).get(PushyTokenViewModel.class);
-
-        //when we hear back from the web service, quit
-        model.addResponseObserver(this, result -> {
-            Navigation.findNavController(this, R.id.nav_host_fragment)
-                    .navigate(R.id.navigation_auth);
-            finish();
-        });
+        // the next user to sign in should not be able to search this user's messages
+        ChatMessageIndex index = ChatMessageIndex.getInstance(this);
+        ChatMessageStore store = ChatMessageStore.getInstance(this);
+        ResponseCache responses = RequestQueueSingleton.getInstance(this).getResponseCache();
+        new Thread(() -> {
+            index.clear();
+            store.clear();
+            responses.clear();
+        }).start();
+        ContactStore.getInstance(this).clear();
+        BadgeCounterStore.getInstance(this).clear();
+        SessionSnapshot.getInstance(this).clear();
+        RequestScheduler.getInstance(this).clear();
+        RealtimeChannel.getInstance(this).clear();
+
+        // the user is signed out here even if the web service cannot be reached
+        SessionManager session = SessionManager.getInstance(this);
+        String jwt = session.getToken();
+        session.end();
+
+        // nothing waits on the answer, the request outlives this activity in the queue
+        if (jwt != null) {
+            new ViewModelProvider(this).get(PushyTokenViewModel.class)
+                    .deleteTokenFromWebservice(jwt);
+        }
 
-        model.deleteTokenFromWebservice(
-                new ViewModelProvider(this)
-                        .get(UserInfoViewModel.class)
-                        .getJwt());
+        Navigation.findNavController(this, R.id.nav_host_fragment)
+                .navigate(R.id.navigation_auth);
+        finish();
     }
 
     /**
@@ -531,9 +588,6 @@ public class MainActivity extends AppCompatActivity {
         private ContactsOutgoingViewModel mOutgoingModel =
                 new ViewModelProvider(MainActivity.this).get(ContactsOutgoingViewModel.class);
 
-        private ContactsSearchViewModel mSearchModel =
-                new ViewModelProvider(MainActivity.this).get(ContactsSearchViewModel.class);
-
         private UserInfoViewModel mUserModel =
                 new ViewModelProvider(MainActivity.this).get(UserInfoViewModel.class);
 
@@ -548,42 +602,51 @@ public class MainActivity extends AppCompatActivity {
                 ChatMessage cm = (ChatMessage) intent.getSerializableExtra("chatMessage");
                 int chatId = intent.getIntExtra("chatid", -1);
 
+                //inform view model holding chatroom messages of the new ones,
+                //a push delivered twice is only counted once
+                if (!mChatModel.addMessage(chatId, cm, intent.getIntExtra("seq", -1))) return;
+
                 //if user is not on chat screen, update NewMessageCountView Model
                 if(nd.getId() != R.id.chatDisplayFragment || mRoomModel.getCurrentRoom() != chatId){
                     mNewChatModel.increment(chatId);
                 }
-
-                //inform view model holding chatroom messages of the new ones
-                mChatModel.addMessage(intent.getIntExtra("chatid", -1), cm);
-                mRoomModel.connectRecent(mUserViewModel.getJwt());
+                mRoomModel.connectRecent();
             } else if (intent.hasExtra("con")) {
                 String request = intent.getStringExtra("request");
+                ContactStore store = ContactStore.getInstance(MainActivity.this);
                 Contact contact = null;
+                Contact notice = null;
                 if (intent.hasExtra("contact")) {
                     try {
                         contact = Contact.createFromJsonString(intent.getStringExtra("contact"));
-                        contact.setName(contact.getUsername());
+                        notice = contact.withName(contact.getUsername());
                     } catch (JSONException e) {
                         Log.e("JSON Error", e.getMessage());
                     }
                 }
 
+                //the push carries the contact, so only the lists it does not describe
+                //have to be fetched again
                 switch (request) {
                     case "contacts":
-                        contact.setUsername("Contact removed");
-                        mContactsModel.removeContact(contact);
-                        mContactsModel.addContact(contact);
+                        notice = notice.withUsername("Contact removed");
+                        mContactsModel.removeContact(notice);
+                        mContactsModel.addContact(notice);
+                        store.invalidate(ContactStore.DIRECTORY);
                         if (nd.getId() != R.id.navigation_contacts
                                 || !mNewContactModel.getSelectedTab().equals("contacts")) {
                             mNewContactModel.increment("contacts");
                         }
                         break;
                     case "incoming":
-                        if (contact != null) {
-                            contact.setUsername("Request canceled");
-                            mIncomingModel.removeContact(contact);
-                            mIncomingModel.addContact(contact);
+                        if (notice != null) {
+                            notice = notice.withUsername("Request canceled");
+                            mIncomingModel.removeContact(notice);
+                            mIncomingModel.addContact(notice);
+                        } else {
+                            mIncomingModel.refresh();
                         }
+                        store.invalidate(ContactStore.DIRECTORY);
                         if (nd.getId() != R.id.navigation_contacts
                                 || !mNewContactModel.getSelectedTab().equals("incoming")) {
                             mNewContactModel.increment("incoming");
@@ -591,19 +654,19 @@ public class MainActivity extends AppCompatActivity {
                         break;
                     case "accepted":
                     case "rejected":
-                        contact.setUsername("Request " + request);
-                        mOutgoingModel.removeContact(contact);
-                        mOutgoingModel.addContact(contact);
+                        notice = notice.withUsername("Request " + request);
+                        mOutgoingModel.removeContact(notice);
+                        mOutgoingModel.addContact(notice);
+                        if (request.equals("accepted")) {
+                            store.put(ContactStore.CONTACTS, contact);
+                        }
+                        store.invalidate(ContactStore.DIRECTORY);
                         if (nd.getId() != R.id.navigation_contacts
                                 || !mNewContactModel.getSelectedTab().equals("outgoing")) {
                             mNewContactModel.increment("outgoing");
                         }
                         break;
                 }
-                mContactsModel.connect(mUserViewModel.getJwt());
-                mIncomingModel.connect(mUserViewModel.getJwt());
-                mOutgoingModel.connect(mUserViewModel.getJwt());
-                mSearchModel.connect(mUserViewModel.getJwt());
             } else if (intent.hasExtra("chat")) {
                 ChatRoom room = mRoomModel.getRoomFromId(intent.getIntExtra("chatId", -1));
 
@@ -636,7 +699,7 @@ public class MainActivity extends AppCompatActivity {
                         mRoomModel.addRoom(room);
                         break;
                 }
-                mRoomModel.connect(mUserViewModel.getJwt());
+                mRoomModel.connect();
             } else if (intent.hasExtra("typeStatus")) {
                 int chatId = intent.getIntExtra("chatid", 0);
                 String email = intent.getStringExtra("email");
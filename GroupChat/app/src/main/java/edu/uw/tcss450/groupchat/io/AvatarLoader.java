@@ -0,0 +1,133 @@
+package edu.uw.tcss450.groupchat.io;
+
+import android.graphics.drawable.Drawable;
+import android.widget.ImageView;
+
+import androidx.annotation.DrawableRes;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Loads profile and chat room pictures into circular views.
+ *
+ * Every avatar is decoded at one of a few fixed sizes, the smallest that covers the view, so
+ * rows showing the same person share one circle-cropped bitmap in memory and on disk. Imgur
+ * links are swapped for the smallest thumbnail Imgur serves at that size, so a contact list
+ * never downloads the full upload.
+ *
+ * @version January, 2021
+ */
+public final class AvatarLoader {
+
+    /** The sizes avatars are decoded at, in dp. */
+    private static final int[] BUCKETS = {48, 96, 192};
+
+    /** Imgur thumbnail suffixes, smallest first. */
+    private static final String[] THUMBNAILS = {"s", "b", "m", "l", "h"};
+
+    /** The smaller side in pixels of each Imgur thumbnail. */
+    private static final int[] THUMBNAIL_SIZES = {90, 160, 320, 640, 1024};
+
+    /** Imgur image links, ids are 5 or 7 characters long so suffixed ids are not matched. */
+    private static final Pattern IMGUR = Pattern.compile(
+            "^(https?://i\\.imgur\\.com/)([A-Za-z0-9]{5}|[A-Za-z0-9]{7})(\\.[A-Za-z]+)$");
+
+    private AvatarLoader() {
+    }
+
+    /**
+     * Loads an avatar into the view, or shows the placeholder if there is no avatar.
+     *
+     * @param view the view to show the avatar in
+     * @param url the url of the avatar, may be empty or "null"
+     * @param placeholder the image shown while loading and when there is no avatar
+     */
+    public static void load(final ImageView view, final String url,
+                            @DrawableRes final int placeholder) {
+        if (!hasAvatar(url)) {
+            Glide.with(view).clear(view);
+            view.setImageResource(placeholder);
+            return;
+        }
+        request(Glide.with(view), url, getBucketSize(view))
+                .placeholder(placeholder)
+                .into(view);
+    }
+
+    /**
+     * Loads an avatar into memory ahead of it being shown.
+     *
+     * @param requests the request manager of the list the avatar will be shown in
+     * @param url the url of the avatar, may be empty or "null"
+     * @param size the bucket size returned for the view the avatar will be shown in
+     */
+    public static void preload(final RequestManager requests, final String url,
+                               final int size) {
+        if (hasAvatar(url)) request(requests, url, size).preload(size, size);
+    }
+
+    /**
+     * Returns the pixel size of the smallest bucket at least as large as the view, or the
+     * largest bucket if the view is not a fixed size.
+     *
+     * @param view the view an avatar is shown in
+     * @return the size avatars are decoded at for the view
+     */
+    public static int getBucketSize(final ImageView view) {
+        float density = view.getResources().getDisplayMetrics().density;
+        int width = view.getLayoutParams() != null ? view.getLayoutParams().width : 0;
+        for (int bucket : BUCKETS) {
+            int size = Math.round(bucket * density);
+            if (width > 0 && width <= size) return size;
+        }
+        return Math.round(BUCKETS[BUCKETS.length - 1] * density);
+    }
+
+    private static boolean hasAvatar(final String url) {
+        return url != null && !url.isEmpty() && !url.equals("null");
+    }
+
+    /**
+     * Builds the request for an avatar at a bucket size, the same way for loading and
+     * preloading so both hit the same cache entries.
+     */
+    private static RequestBuilder<Drawable> request(final RequestManager requests,
+                                                    final String url, final int size) {
+        RequestBuilder<Drawable> original = requests
+                .load(url)
+                .override(size)
+                .circleCrop()
+                .diskCacheStrategy(DiskCacheStrategy.ALL);
+
+        String thumbnail = getThumbnailUrl(url, size);
+        if (thumbnail.equals(url)) return original;
+        // fall back to the full image if the thumbnail cannot be served
+        return requests
+                .load(thumbnail)
+                .override(size)
+                .circleCrop()
+                .diskCacheStrategy(DiskCacheStrategy.ALL)
+                .error(original);
+    }
+
+    /**
+     * Returns the smallest Imgur thumbnail covering the size, or the url itself if it is not
+     * an Imgur link or no thumbnail is large enough.
+     */
+    private static String getThumbnailUrl(final String url, final int size) {
+        Matcher matcher = IMGUR.matcher(url);
+        if (!matcher.matches()) return url;
+        for (int i = 0; i < THUMBNAILS.length; i++) {
+            if (THUMBNAIL_SIZES[i] >= size) {
+                return matcher.group(1) + matcher.group(2) + THUMBNAILS[i] + matcher.group(3);
+            }
+        }
+        return url;
+    }
+}
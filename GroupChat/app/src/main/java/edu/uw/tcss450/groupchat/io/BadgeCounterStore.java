@@ -0,0 +1,316 @@
+package edu.uw.tcss450.groupchat.io;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The single set of unread counters behind every badge in the app: new messages per chat
+ * room, new chat rooms, and new notices per contacts tab.
+ *
+ * Totals are kept running as counters change, so reading a badge never has to add anything
+ * up. Counters are written through to shared preferences and survive restarts. Changes only
+ * mark the counters dirty; observers are told once on the next frame, however many changes
+ * came in before it.
+ *
+ * Counters can be changed from any thread. Observers are always called on the main thread.
+ *
+ * @version January, 2021
+ */
+public class BadgeCounterStore {
+
+    private static final String PREFS_NAME = "badge_counters";
+
+    private static final String ROOM_PREFIX = "room_";
+
+    private static final String TAB_PREFIX = "tab_";
+
+    private static final String NEW_CHATS = "new_chats";
+
+    private static BadgeCounterStore instance;
+
+    private final SharedPreferences mPrefs;
+
+    private final Map<Integer, Integer> mRooms;
+
+    private final Map<String, Integer> mTabs;
+
+    private int mNewChats;
+
+    private int mMessageTotal;
+
+    private int mContactTotal;
+
+    private final MutableLiveData<Map<Integer, Integer>> mRoomCounts;
+
+    private final Map<String, MutableLiveData<Integer>> mTabCounts;
+
+    private final MutableLiveData<Badges> mBadges;
+
+    private final Handler mHandler;
+
+    private final Choreographer.FrameCallback mPublisher;
+
+    /** Whether a frame callback is already waiting to publish the counters. */
+    private boolean mScheduled;
+
+    private BadgeCounterStore(final Context context) {
+        mPrefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        mRooms = new HashMap<>();
+        mTabs = new HashMap<>();
+        mRoomCounts = new MutableLiveData<>(new HashMap<>());
+        mTabCounts = new HashMap<>();
+        mBadges = new MutableLiveData<>(new Badges(0, 0));
+        mHandler = new Handler(Looper.getMainLooper());
+        mPublisher = frameTime -> publish();
+        load();
+    }
+
+    /**
+     * Return the instance of the badge counter store.
+     *
+     * @param context the current context of application
+     * @return instance
+     */
+    public static synchronized BadgeCounterStore getInstance(final Context context) {
+        if (instance == null) {
+            instance = new BadgeCounterStore(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Add observer for the totals shown on the bottom navigation badges.
+     *
+     * @param owner The Lifecycle owner that will control the observer
+     * @param observer The observer that will receive the totals
+     */
+    public void addBadgesObserver(@NonNull final LifecycleOwner owner,
+                                  @NonNull final Observer<? super Badges> observer) {
+        mBadges.observe(owner, observer);
+    }
+
+    /**
+     * Returns the new message count of every chat room that has one, by chat ID.
+     *
+     * @return the live message counts
+     */
+    public LiveData<Map<Integer, Integer>> getRoomCounts() {
+        return mRoomCounts;
+    }
+
+    /**
+     * Returns the new notice count of a contacts tab. Must be called on the main thread.
+     *
+     * @param tab the contacts tab
+     * @return the live notice count
+     */
+    public LiveData<Integer> getTabCount(final String tab) {
+        synchronized (this) {
+            MutableLiveData<Integer> count = mTabCounts.get(tab);
+            if (count == null) {
+                count = new MutableLiveData<>(get(mTabs, tab));
+                mTabCounts.put(tab, count);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Increment new message count of the specified chat room.
+     *
+     * @param chatId The chat ID of the chat room
+     */
+    public synchronized void incrementRoom(final int chatId) {
+        mRooms.put(chatId, get(mRooms, chatId) + 1);
+        mMessageTotal++;
+        mPrefs.edit().putInt(ROOM_PREFIX + chatId, mRooms.get(chatId)).apply();
+        schedule();
+    }
+
+    /**
+     * Reset new message count of the specified chat room.
+     *
+     * @param chatId The chat ID of the chat room
+     */
+    public synchronized void resetRoom(final int chatId) {
+        Integer count = mRooms.remove(chatId);
+        if (count == null) return;
+        mMessageTotal -= count;
+        mPrefs.edit().remove(ROOM_PREFIX + chatId).apply();
+        schedule();
+    }
+
+    /**
+     * Increment new chat room count.
+     */
+    public synchronized void incrementChats() {
+        mNewChats++;
+        mPrefs.edit().putInt(NEW_CHATS, mNewChats).apply();
+        schedule();
+    }
+
+    /**
+     * Reset new chat room count.
+     */
+    public synchronized void resetChats() {
+        if (mNewChats == 0) return;
+        mNewChats = 0;
+        mPrefs.edit().remove(NEW_CHATS).apply();
+        schedule();
+    }
+
+    /**
+     * Increment new notice count of a contacts tab.
+     *
+     * @param tab the contacts tab
+     */
+    public synchronized void incrementTab(final String tab) {
+        mTabs.put(tab, get(mTabs, tab) + 1);
+        mContactTotal++;
+        mPrefs.edit().putInt(TAB_PREFIX + tab, mTabs.get(tab)).apply();
+        schedule();
+    }
+
+    /**
+     * Reset new notice count of a contacts tab.
+     *
+     * @param tab the contacts tab
+     */
+    public synchronized void resetTab(final String tab) {
+        Integer count = mTabs.remove(tab);
+        if (count == null) return;
+        mContactTotal -= count;
+        mPrefs.edit().remove(TAB_PREFIX + tab).apply();
+        schedule();
+    }
+
+    /**
+     * Resets every counter, for when the user signs out.
+     */
+    public synchronized void clear() {
+        mRooms.clear();
+        mTabs.clear();
+        mNewChats = 0;
+        mMessageTotal = 0;
+        mContactTotal = 0;
+        mPrefs.edit().clear().apply();
+        schedule();
+    }
+
+    private void load() {
+        for (Map.Entry<String, ?> entry : mPrefs.getAll().entrySet()) {
+            if (!(entry.getValue() instanceof Integer)) continue;
+            String key = entry.getKey();
+            int count = (Integer) entry.getValue();
+            if (key.startsWith(ROOM_PREFIX)) {
+                mRooms.put(Integer.parseInt(key.substring(ROOM_PREFIX.length())), count);
+                mMessageTotal += count;
+            } else if (key.startsWith(TAB_PREFIX)) {
+                mTabs.put(key.substring(TAB_PREFIX.length()), count);
+                mContactTotal += count;
+            } else if (key.equals(NEW_CHATS)) {
+                mNewChats = count;
+            }
+        }
+        schedule();
+    }
+
+    /**
+     * Publishes the counters on the next frame, unless that is already going to happen.
+     * Must be called holding the lock.
+     */
+    private void schedule() {
+        if (mScheduled) return;
+        mScheduled = true;
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            Choreographer.getInstance().postFrameCallback(mPublisher);
+        } else {
+            mHandler.post(() -> Choreographer.getInstance().postFrameCallback(mPublisher));
+        }
+    }
+
+    /**
+     * Tells the observers about every change since the last frame, on the main thread.
+     */
+    private void publish() {
+        Map<Integer, Integer> rooms;
+        Map<String, Integer> tabs = new HashMap<>();
+        Badges badges;
+        synchronized (this) {
+            mScheduled = false;
+            rooms = new HashMap<>(mRooms);
+            for (String tab : mTabCounts.keySet()) tabs.put(tab, get(mTabs, tab));
+            badges = new Badges(mMessageTotal + mNewChats, mContactTotal);
+        }
+
+        if (!rooms.equals(mRoomCounts.getValue())) mRoomCounts.setValue(rooms);
+        for (Map.Entry<String, Integer> entry : tabs.entrySet()) {
+            MutableLiveData<Integer> count = mTabCounts.get(entry.getKey());
+            if (!entry.getValue().equals(count.getValue())) count.setValue(entry.getValue());
+        }
+        if (!badges.equals(mBadges.getValue())) mBadges.setValue(badges);
+    }
+
+    private static <K> int get(final Map<K, Integer> counts, final K key) {
+        Integer count = counts.get(key);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * The totals shown on the bottom navigation badges.
+     */
+    public static final class Badges {
+
+        private final int mChatCount;
+
+        private final int mContactCount;
+
+        private Badges(final int chatCount, final int contactCount) {
+            mChatCount = chatCount;
+            mContactCount = contactCount;
+        }
+
+        /**
+         * Returns the new messages and new chat rooms combined.
+         *
+         * @return the count for the chats badge
+         */
+        public int getChatCount() {
+            return mChatCount;
+        }
+
+        /**
+         * Returns the new notices of every contacts tab combined.
+         *
+         * @return the count for the contacts badge
+         */
+        public int getContactCount() {
+            return mContactCount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Badges)) return false;
+            Badges other = (Badges) o;
+            return mChatCount == other.mChatCount && mContactCount == other.mContactCount;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mChatCount + mContactCount;
+        }
+    }
+}
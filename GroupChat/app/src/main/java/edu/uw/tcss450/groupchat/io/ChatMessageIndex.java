@@ -0,0 +1,251 @@
+package edu.uw.tcss450.groupchat.io;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.text.TextUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.uw.tcss450.groupchat.ui.chats.ChatMessage;
+
+/**
+ * On-device full-text index of every chat message the app has received.
+ *
+ * Messages are kept in an FTS4 table so searching does not need the web service. Prefixes
+ * of two and three characters are indexed of their own, so short search-as-you-type
+ * queries do not scan every term. All methods hit the database and should be called off
+ * the main thread.
+ *
+ * @version January, 2021
+ */
+public class ChatMessageIndex extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "chat_message_index.db";
+
+    private static final int DATABASE_VERSION = 2;
+
+    /** How many of the newest matches are ranked for each result returned. */
+    private static final int CANDIDATES_PER_RESULT = 4;
+
+    private static final String TABLE = "messages";
+
+    private static ChatMessageIndex instance;
+
+    private ChatMessageIndex(final Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    /**
+     * Return the instance of the message index.
+     *
+     * @param context the current context of application
+     * @return instance
+     */
+    public static synchronized ChatMessageIndex getInstance(final Context context) {
+        if (instance == null) {
+            instance = new ChatMessageIndex(context);
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        // only the message and sender are searchable, the rest rides along for display
+        db.execSQL("CREATE VIRTUAL TABLE " + TABLE + " USING fts4("
+                + "chatid, sender, message, timestamp, "
+                + "notindexed=chatid, notindexed=timestamp, prefix=\"2,3\", "
+                + "tokenize=unicode61)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+        onCreate(db);
+    }
+
+    /**
+     * Adds messages of a chat room to the index, replacing any already indexed.
+     *
+     * @param chatId the chat room the messages belong to
+     * @param messages the messages to index
+     */
+    public void addMessages(final int chatId, final Collection<ChatMessage> messages) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (ChatMessage message : messages) {
+                String docId = String.valueOf(message.getMessageId());
+                db.delete(TABLE, "docid = ?", new String[]{docId});
+
+                ContentValues values = new ContentValues();
+                values.put("docid", message.getMessageId());
+                values.put("chatid", String.valueOf(chatId));
+                values.put("sender", message.getSender());
+                values.put("message", message.getMessage());
+                values.put("timestamp", message.getTimeStamp());
+                db.insert(TABLE, null, values);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Removes every indexed message.
+     */
+    public void clear() {
+        getWritableDatabase().delete(TABLE, null, null);
+    }
+
+    /**
+     * Searches the indexed messages. Every word of the query matches as a prefix. The newest
+     * matches are ranked by how often and how rarely the words appear, newest first on ties.
+     *
+     * Only the ids and match statistics of a bounded number of the newest matches are read,
+     * and only the messages returned are loaded, so a short prefix matching much of the
+     * history costs no more than a specific one.
+     *
+     * @param query the words to search for
+     * @param chatId the chat room to search, or -1 to search every room
+     * @param limit the maximum number of results
+     * @return the matching messages, best match first
+     */
+    public List<Result> search(final String query, final int chatId, final int limit) {
+        List<Result> results = new ArrayList<>();
+        String match = toMatchExpression(query);
+        if (match.isEmpty() || limit <= 0) return results;
+
+        String sql = "SELECT docid, matchinfo(" + TABLE + ", 'pcnx') FROM " + TABLE
+                + " WHERE " + TABLE + " MATCH ?";
+        String candidates = String.valueOf(limit * CANDIDATES_PER_RESULT);
+        String[] args;
+        if (chatId < 0) {
+            args = new String[]{match, candidates};
+        } else {
+            sql += " AND chatid = ?";
+            args = new String[]{match, String.valueOf(chatId), candidates};
+        }
+        // message ids grow over time, so the full-text index hands back the newest first
+        sql += " ORDER BY docid DESC LIMIT ?";
+
+        SQLiteDatabase db = getReadableDatabase();
+        Map<Integer, Double> scores = new HashMap<>();
+        try (Cursor cursor = db.rawQuery(sql, args)) {
+            while (cursor.moveToNext()) {
+                scores.put(cursor.getInt(0), score(cursor.getBlob(1)));
+            }
+        }
+        if (scores.isEmpty()) return results;
+        List<Integer> best = new ArrayList<>(scores.keySet());
+        Collections.sort(best, (a, b) -> {
+            int order = Double.compare(scores.get(b), scores.get(a));
+            return order != 0 ? order : Integer.compare(b, a);
+        });
+        if (best.size() > limit) best = best.subList(0, limit);
+
+        // only the messages returned are read in full
+        try (Cursor cursor = db.rawQuery("SELECT docid, chatid, sender, message, timestamp FROM "
+                + TABLE + " WHERE docid IN (" + TextUtils.join(",", best) + ")", null)) {
+            while (cursor.moveToNext()) {
+                ChatMessage message = new ChatMessage(cursor.getInt(0),
+                        cursor.getString(3),
+                        cursor.getString(2),
+                        cursor.getString(4));
+                results.add(new Result(cursor.getInt(1), message,
+                        scores.get(message.getMessageId())));
+            }
+        }
+        Collections.sort(results);
+        return results;
+    }
+
+    /**
+     * Turns user input into an FTS query where every word is a quoted prefix term.
+     */
+    private static String toMatchExpression(final String query) {
+        StringBuilder builder = new StringBuilder();
+        for (String word : query.trim().split("\\s+")) {
+            String term = word.replace("\"", "");
+            if (term.isEmpty()) continue;
+            if (builder.length() > 0) builder.append(' ');
+            builder.append('"').append(term).append("\"*");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Scores a row from its 'pcnx' matchinfo, summing tf-idf over every phrase and column.
+     */
+    private static double score(final byte[] blob) {
+        ByteBuffer info = ByteBuffer.wrap(blob).order(ByteOrder.nativeOrder());
+        int phrases = info.getInt(0);
+        int columns = info.getInt(4);
+        int rows = info.getInt(8);
+
+        double score = 0;
+        for (int p = 0; p < phrases; p++) {
+            for (int c = 0; c < columns; c++) {
+                int offset = 12 + 12 * (p * columns + c);
+                int hitsThisRow = info.getInt(offset);
+                int rowsWithHits = info.getInt(offset + 8);
+                if (hitsThisRow > 0) {
+                    score += hitsThisRow * Math.log(1.0 + rows / (double) rowsWithHits);
+                }
+            }
+        }
+        return score;
+    }
+
+    /**
+     * A single message found by a search.
+     */
+    public static class Result implements Comparable<Result> {
+
+        private final int mChatId;
+
+        private final ChatMessage mMessage;
+
+        private final double mScore;
+
+        private Result(final int chatId, final ChatMessage message, final double score) {
+            mChatId = chatId;
+            mMessage = message;
+            mScore = score;
+        }
+
+        /**
+         * Returns the id of the chat room the message was sent in.
+         *
+         * @return chat id of the message
+         */
+        public int getChatId() {
+            return mChatId;
+        }
+
+        /**
+         * Returns the matching message.
+         *
+         * @return the message
+         */
+        public ChatMessage getMessage() {
+            return mMessage;
+        }
+
+        @Override
+        public int compareTo(Result other) {
+            if (mScore != other.mScore) return Double.compare(other.mScore, mScore);
+            return Integer.compare(other.mMessage.getMessageId(), mMessage.getMessageId());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package edu.uw.tcss450.groupchat.io;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import edu.uw.tcss450.groupchat.ui.chats.ChatMessage;
+
+/**
+ * Local copy of the latest messages of each chat room, so a room can be shown before its
+ * first page arrives from the web service.
+ *
+ * Messages are written when they are pushed to the device and when the latest page of a
+ * room is fetched, and only the newest {@link #MAX_MESSAGES} of each room are kept. All
+ * methods hit the database and should be called off the main thread.
+ *
+ * @version January, 2021
+ */
+public class ChatMessageStore extends SQLiteOpenHelper {
+
+    /** How many of the newest messages are kept per chat room. */
+    public static final int MAX_MESSAGES = 50;
+
+    private static final String DATABASE_NAME = "chat_messages.db";
+
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE = "messages";
+
+    private static ChatMessageStore instance;
+
+    private ChatMessageStore(final Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    /**
+     * Return the instance of the message store.
+     *
+     * @param context the current context of application
+     * @return instance
+     */
+    public static synchronized ChatMessageStore getInstance(final Context context) {
+        if (instance == null) {
+            instance = new ChatMessageStore(context);
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + "chatid INTEGER NOT NULL, messageid INTEGER NOT NULL, "
+                + "sender TEXT, message TEXT, timestamp TEXT, "
+                + "PRIMARY KEY (chatid, messageid))");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+        onCreate(db);
+    }
+
+    /**
+     * Stores messages of a chat room, replacing any already stored, and drops the room's
+     * oldest messages past {@link #MAX_MESSAGES}.
+     *
+     * @param chatId the chat room the messages belong to
+     * @param messages the messages to store
+     */
+    public void addMessages(final int chatId, final Collection<ChatMessage> messages) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (ChatMessage message : messages) {
+                ContentValues values = new ContentValues();
+                values.put("chatid", chatId);
+                values.put("messageid", message.getMessageId());
+                values.put("sender", message.getSender());
+                values.put("message", message.getMessage());
+                values.put("timestamp", message.getTimeStamp());
+                db.insertWithOnConflict(TABLE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            String id = String.valueOf(chatId);
+            db.delete(TABLE, "chatid = ? AND messageid NOT IN (SELECT messageid FROM "
+                            + TABLE + " WHERE chatid = ? ORDER BY messageid DESC LIMIT "
+                            + MAX_MESSAGES + ")",
+                    new String[]{id, id});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Returns the stored messages of a chat room, newest first like the web service sends
+     * them.
+     *
+     * @param chatId the chat room to read
+     * @return the stored messages, empty if there are none
+     */
+    public List<ChatMessage> getMessages(final int chatId) {
+        List<ChatMessage> messages = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE,
+                new String[]{"messageid", "message", "sender", "timestamp"},
+                "chatid = ?", new String[]{String.valueOf(chatId)},
+                null, null, "messageid DESC")) {
+            while (cursor.moveToNext()) {
+                messages.add(new ChatMessage(cursor.getInt(0),
+                        cursor.getString(1),
+                        cursor.getString(2),
+                        cursor.getString(3)));
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Removes every stored message.
+     */
+    public void clear() {
+        getWritableDatabase().delete(TABLE, null, null);
+    }
+}
@@ -0,0 +1,138 @@
+package edu.uw.tcss450.groupchat.io;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.Header;
+import com.android.volley.Request;
+import com.android.volley.toolbox.BaseHttpStack;
+import com.android.volley.toolbox.HttpResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Network stack that asks for compressed responses and decodes them before Volley parses
+ * them, counting the bytes of each exchange on the {@link TrafficMeter}.
+ *
+ * HttpURLConnection only unzips gzip on its own, and hides how many bytes actually came over
+ * the wire when it does, so the encoding is negotiated and decoded here instead.
+ *
+ * @version January, 2021
+ */
+public class CompressedHttpStack extends BaseHttpStack {
+
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    private final BaseHttpStack mStack;
+
+    private final TrafficMeter mMeter;
+
+    /**
+     * Constructor for the network stack.
+     *
+     * @param stack the stack that sends the requests
+     * @param meter the meter the traffic is counted on
+     */
+    public CompressedHttpStack(final BaseHttpStack stack, final TrafficMeter meter) {
+        mStack = stack;
+        mMeter = meter;
+    }
+
+    @Override
+    public HttpResponse executeRequest(Request<?> request, Map<String, String> additionalHeaders)
+            throws IOException, AuthFailureError {
+        Map<String, String> headers = new HashMap<>(additionalHeaders);
+        headers.put(ACCEPT_ENCODING, "gzip, deflate");
+        byte[] body = request.getBody();
+        long sent = body == null ? 0 : body.length;
+        String screen = mMeter.getScreen();
+
+        HttpResponse response = mStack.executeRequest(request, headers);
+        InputStream content = response.getContent();
+        if (content == null) {
+            mMeter.record(screen, sent, 0, 0);
+            return response;
+        }
+
+        String encoding = null;
+        List<Header> decodedHeaders = new ArrayList<>();
+        for (Header header : response.getHeaders()) {
+            if (CONTENT_ENCODING.equalsIgnoreCase(header.getName())) {
+                encoding = header.getValue().trim().toLowerCase(Locale.US);
+            } else if (!CONTENT_LENGTH.equalsIgnoreCase(header.getName())) {
+                decodedHeaders.add(header);
+            }
+        }
+
+        CountingInputStream wire = new CountingInputStream(content);
+        InputStream decoder;
+        if ("gzip".equals(encoding)) {
+            decoder = new GZIPInputStream(wire);
+        } else if ("deflate".equals(encoding)) {
+            decoder = new InflaterInputStream(wire);
+        } else {
+            decoder = wire;
+        }
+        InputStream decoded = new CountingInputStream(decoder) {
+            private boolean mClosed;
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (mClosed) return;
+                mClosed = true;
+                mMeter.record(screen, sent, wire.mCount, mCount);
+            }
+        };
+
+        if (decoder == wire) {
+            return new HttpResponse(response.getStatusCode(), response.getHeaders(),
+                    response.getContentLength(), decoded);
+        }
+        return new HttpResponse(response.getStatusCode(), decodedHeaders, -1, decoded);
+    }
+
+    /**
+     * Counts the bytes read through it.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        long mCount;
+
+        CountingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) mCount++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) mCount += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            mCount += skipped;
+            return skipped;
+        }
+    }
+}
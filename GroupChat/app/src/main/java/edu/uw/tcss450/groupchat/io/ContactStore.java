@@ -0,0 +1,427 @@
+package edu.uw.tcss450.groupchat.io;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.uw.tcss450.groupchat.ui.contacts.Contact;
+
+/**
+ * The single copy of the user's contacts, incoming and outgoing requests, and the user
+ * directory that every contacts screen reads from.
+ *
+ * Lists are kept in memory and written through to a local database, so they can be shown as
+ * soon as the app starts. Full lists from the web service are merged in as a delta against
+ * what is already stored, and push notifications update single entries, so a list only has
+ * to be fetched again when it is older than {@link #MAX_AGE} or was invalidated by a change
+ * the push did not describe. Each list has a version that only moves when its contents do.
+ *
+ * Methods other than {@link #getInstance} must be called on the main thread.
+ *
+ * @version January, 2021
+ */
+public class ContactStore extends SQLiteOpenHelper {
+
+    /** List of the user's contacts. */
+    public static final int CONTACTS = 1;
+
+    /** List of requests sent to the user. */
+    public static final int INCOMING = 2;
+
+    /** List of requests sent by the user. */
+    public static final int OUTGOING = 3;
+
+    /** List of every user the user can send a request to. */
+    public static final int DIRECTORY = 4;
+
+    /** The most users kept of the directory, which is only ever stored a page at a time. */
+    private static final int MAX_DIRECTORY = 300;
+
+    /** How long in milliseconds a synced list is trusted without fetching it again. */
+    private static final long MAX_AGE = 5 * 60 * 1000;
+
+    private static final String DATABASE_NAME = "contacts.db";
+
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE = "contacts";
+
+    private static ContactStore instance;
+
+    private final Map<Integer, Map<Integer, Contact>> mLists;
+
+    private final Map<Integer, MutableLiveData<List<Contact>>> mLiveLists;
+
+    private final Map<Integer, Integer> mVersions;
+
+    /** The sorted contents of each list, absent until asked for after a change. */
+    private final Map<Integer, List<Contact>> mSorted;
+
+    /** When each list was last synced with the web service, lists never synced are absent. */
+    private final Map<Integer, Long> mSynced;
+
+    /** Whether users were dropped from the directory, so it is missing some of them. */
+    private boolean mEvicted;
+
+    private final ExecutorService mExecutor;
+
+    private final Handler mHandler;
+
+    private ContactStore(final Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+        mLists = new HashMap<>();
+        mLiveLists = new HashMap<>();
+        mVersions = new HashMap<>();
+        mSorted = new HashMap<>();
+        mSynced = new HashMap<>();
+        for (int type = CONTACTS; type <= DIRECTORY; type++) {
+            // the directory keeps the order users were stored in, oldest first, for eviction
+            mLists.put(type, type == DIRECTORY ? new LinkedHashMap<>() : new HashMap<>());
+            mLiveLists.put(type, new MutableLiveData<>());
+            mVersions.put(type, 0);
+        }
+        mExecutor = Executors.newSingleThreadExecutor();
+        mHandler = new Handler(Looper.getMainLooper());
+        mExecutor.execute(this::load);
+    }
+
+    /**
+     * Return the instance of the contact store.
+     *
+     * @param context the current context of application
+     * @return instance
+     */
+    public static synchronized ContactStore getInstance(final Context context) {
+        if (instance == null) {
+            instance = new ContactStore(context);
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + "type INTEGER NOT NULL, id INTEGER NOT NULL, "
+                + "username TEXT, name TEXT, email TEXT, image TEXT, "
+                + "PRIMARY KEY (type, id))");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+        onCreate(db);
+    }
+
+    /**
+     * Observes a list until the observer is removed. Observers are called with the list
+     * sorted, whenever it changes.
+     *
+     * @param type the list to observe
+     * @param observer the observer to add
+     */
+    public void observeForever(final int type, @NonNull final Observer<List<Contact>> observer) {
+        mLiveLists.get(type).observeForever(observer);
+    }
+
+    /**
+     * Stops an observer added with {@link #observeForever}.
+     *
+     * @param type the list that was observed
+     * @param observer the observer to remove
+     */
+    public void removeObserver(final int type, @NonNull final Observer<List<Contact>> observer) {
+        mLiveLists.get(type).removeObserver(observer);
+    }
+
+    /**
+     * Returns a sorted copy of a list. The list is only sorted again after it changes.
+     *
+     * @param type the list to return
+     * @return the contacts in the list
+     */
+    public List<Contact> get(final int type) {
+        List<Contact> sorted = mSorted.get(type);
+        if (sorted == null) {
+            sorted = Contact.sorted(mLists.get(type).values());
+            mSorted.put(type, sorted);
+        }
+        return new ArrayList<>(sorted);
+    }
+
+    /**
+     * Returns the version of a list, which changes every time the list does.
+     *
+     * @param type the list to check
+     * @return the version of the list
+     */
+    public int getVersion(final int type) {
+        return mVersions.get(type);
+    }
+
+    /**
+     * Returns whether a list has to be fetched from the web service before it can be trusted.
+     *
+     * @param type the list to check
+     * @return true if the list was never synced, was invalidated or is too old
+     */
+    public boolean isStale(final int type) {
+        Long synced = mSynced.get(type);
+        return synced == null || SystemClock.elapsedRealtime() - synced > MAX_AGE;
+    }
+
+    /**
+     * Returns whether users were dropped from the directory to keep it under
+     * {@link #MAX_DIRECTORY}, so it may be missing some that were fetched.
+     *
+     * @return true if the directory is missing users it once held
+     */
+    public boolean hasEvicted() {
+        return mEvicted;
+    }
+
+    /**
+     * Marks a list as changed on the web service in a way the app was not told about.
+     *
+     * @param type the list to invalidate
+     */
+    public void invalidate(final int type) {
+        mSynced.remove(type);
+    }
+
+    /**
+     * Replaces a list with the full list from the web service. Only the contacts that were
+     * added, changed or removed are written and observers are only told if there were any.
+     *
+     * @param type the list that was fetched
+     * @param contacts every contact in the list
+     * @return true if the list changed, false otherwise
+     */
+    public boolean sync(final int type, final Collection<Contact> contacts) {
+        mSynced.put(type, SystemClock.elapsedRealtime());
+        Map<Integer, Contact> list = mLists.get(type);
+
+        Map<Integer, Contact> fetched = new HashMap<>();
+        for (Contact contact : contacts) fetched.put(contact.getId(), copy(contact, type));
+
+        List<Contact> changed = new ArrayList<>();
+        for (Contact contact : fetched.values()) {
+            if (!isSame(list.get(contact.getId()), contact)) changed.add(contact);
+        }
+        List<Integer> removed = new ArrayList<>();
+        for (Integer id : list.keySet()) {
+            if (!fetched.containsKey(id)) removed.add(id);
+        }
+
+        if (changed.isEmpty() && removed.isEmpty()) return false;
+        for (Contact contact : changed) list.put(contact.getId(), contact);
+        for (Integer id : removed) list.remove(id);
+        changed(type);
+        mExecutor.execute(() -> write(type, changed, removed));
+        return true;
+    }
+
+    /**
+     * Adds or updates part of a list fetched from the web service, leaving the rest of the
+     * list as it is. The list counts as synced, since the part just fetched is current. The
+     * directory only keeps the {@link #MAX_DIRECTORY} users fetched most recently.
+     *
+     * @param type the list that was fetched
+     * @param contacts the contacts fetched
+     * @return true if the list changed, false otherwise
+     */
+    public boolean merge(final int type, final Collection<Contact> contacts) {
+        mSynced.put(type, SystemClock.elapsedRealtime());
+        Map<Integer, Contact> list = mLists.get(type);
+
+        List<Contact> changed = new ArrayList<>();
+        for (Contact contact : contacts) {
+            Contact stored = copy(contact, type);
+            // taken out and put back, so the contacts fetched last are the last evicted
+            Contact previous = list.remove(stored.getId());
+            if (isSame(previous, stored)) {
+                list.put(previous.getId(), previous);
+            } else {
+                list.put(stored.getId(), stored);
+                changed.add(stored);
+            }
+        }
+        List<Integer> evicted = evict(type);
+        if (changed.isEmpty() && evicted.isEmpty()) return false;
+        changed(type);
+        mExecutor.execute(() -> write(type, changed, evicted));
+        return true;
+    }
+
+    /**
+     * Adds a contact to a list or updates it if it is already there. Contacts, incoming and
+     * outgoing requests are exclusive, so the contact is taken out of the other two.
+     *
+     * @param type the list to add to
+     * @param contact the contact to add
+     */
+    public void put(final int type, final Contact contact) {
+        if (type != DIRECTORY) {
+            for (int other = CONTACTS; other <= OUTGOING; other++) {
+                if (other != type) remove(other, contact.getId());
+            }
+        }
+        Contact stored = copy(contact, type);
+        if (isSame(mLists.get(type).get(stored.getId()), stored)) return;
+        mLists.get(type).put(stored.getId(), stored);
+        List<Integer> evicted = evict(type);
+        changed(type);
+        mExecutor.execute(() -> write(type, Collections.singletonList(stored), evicted));
+    }
+
+    /**
+     * Removes a contact from a list.
+     *
+     * @param type the list to remove from
+     * @param id the id of the contact to remove
+     */
+    public void remove(final int type, final int id) {
+        if (mLists.get(type).remove(id) == null) return;
+        changed(type);
+        mExecutor.execute(() -> write(type, Collections.emptyList(),
+                Collections.singletonList(id)));
+    }
+
+    /**
+     * Removes every list, for when the user signs out.
+     */
+    public void clear() {
+        for (int type = CONTACTS; type <= DIRECTORY; type++) {
+            mLists.get(type).clear();
+            mSynced.remove(type);
+            changed(type);
+        }
+        mEvicted = false;
+        mExecutor.execute(() -> getWritableDatabase().delete(TABLE, null, null));
+    }
+
+    /**
+     * Drops the oldest users from the directory while it holds more than it may keep.
+     *
+     * @return the ids of the users dropped
+     */
+    private List<Integer> evict(final int type) {
+        List<Integer> evicted = new ArrayList<>();
+        if (type != DIRECTORY) return evicted;
+        Map<Integer, Contact> list = mLists.get(type);
+        Iterator<Integer> ids = list.keySet().iterator();
+        while (list.size() > MAX_DIRECTORY) {
+            evicted.add(ids.next());
+            ids.remove();
+        }
+        if (!evicted.isEmpty()) mEvicted = true;
+        return evicted;
+    }
+
+    private void changed(final int type) {
+        mVersions.put(type, mVersions.get(type) + 1);
+        mSorted.remove(type);
+        publish(type);
+    }
+
+    private void publish(final int type) {
+        mLiveLists.get(type).setValue(get(type));
+    }
+
+    /**
+     * Reads every stored list, on the executor. Lists already synced by the time the read
+     * finishes are newer than what was stored and are left alone.
+     */
+    private void load() {
+        Map<Integer, List<Contact>> stored = new HashMap<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE,
+                new String[]{"type", "id", "username", "name", "email", "image"},
+                null, null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                int type = cursor.getInt(0);
+                if (!stored.containsKey(type)) stored.put(type, new ArrayList<>());
+                stored.get(type).add(new Contact(cursor.getInt(1),
+                        cursor.getString(2),
+                        cursor.getString(3),
+                        cursor.getString(4),
+                        cursor.getString(5),
+                        type));
+            }
+        }
+        mHandler.post(() -> {
+            for (Map.Entry<Integer, List<Contact>> entry : stored.entrySet()) {
+                int type = entry.getKey();
+                if (!mLists.containsKey(type) || mVersions.get(type) != 0) {
+                    continue;
+                }
+                for (Contact contact : entry.getValue()) {
+                    mLists.get(type).put(contact.getId(), contact);
+                }
+                // a full directory had users dropped before it was stored
+                if (type == DIRECTORY && entry.getValue().size() >= MAX_DIRECTORY) {
+                    mEvicted = true;
+                }
+                changed(type);
+            }
+        });
+    }
+
+    private void write(final int type, final List<Contact> changed, final List<Integer> removed) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Integer id : removed) {
+                db.delete(TABLE, "type = ? AND id = ?",
+                        new String[]{String.valueOf(type), String.valueOf(id)});
+            }
+            for (Contact contact : changed) {
+                ContentValues values = new ContentValues();
+                values.put("type", type);
+                values.put("id", contact.getId());
+                values.put("username", contact.getUsername());
+                values.put("name", contact.getName());
+                values.put("email", contact.getEmail());
+                values.put("image", contact.getImage());
+                db.insertWithOnConflict(TABLE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Returns a contact as the type of the list it is stored in.
+     */
+    private static Contact copy(final Contact contact, final int type) {
+        return contact.withType(type);
+    }
+
+    private static boolean isSame(final Contact stored, final Contact contact) {
+        return stored != null
+                && Objects.equals(stored.getUsername(), contact.getUsername())
+                && Objects.equals(stored.getName(), contact.getName())
+                && Objects.equals(stored.getEmail(), contact.getEmail())
+                && Objects.equals(stored.getImage(), contact.getImage());
+    }
+}
@@ -0,0 +1,63 @@
+package edu.uw.tcss450.groupchat.io;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+
+/**
+ * Configures Glide's caches from the app-wide image cache budget.
+ *
+ * @version January, 2021
+ */
+@GlideModule
+public final class GroupChatGlideModule extends AppGlideModule {
+
+    private static final String DISK_CACHE_NAME = "image_cache";
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        ImageCacheConfig config = ImageCacheConfig.getInstance(context);
+
+        builder.setMemoryCache(new LruResourceCache(config.getMemoryCacheBytes()));
+        builder.setBitmapPool(new LruBitmapPool(config.getBitmapPoolBytes()));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context,
+                DISK_CACHE_NAME, config.getDiskCacheBytes()));
+        // counted per load, the memory cache alone never sees the images already on screen
+        builder.addGlobalRequestListener(new RequestListener<Object>() {
+            @Override
+            public boolean onLoadFailed(@Nullable GlideException e, Object model,
+                                        Target<Object> target, boolean isFirstResource) {
+                config.recordMiss();
+                return false;
+            }
+
+            @Override
+            public boolean onResourceReady(Object resource, Object model, Target<Object> target,
+                                           DataSource dataSource, boolean isFirstResource) {
+                if (dataSource == DataSource.MEMORY_CACHE) {
+                    config.recordHit();
+                } else {
+                    config.recordMiss();
+                }
+                return false;
+            }
+        });
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
@@ -0,0 +1,131 @@
+package edu.uw.tcss450.groupchat.io;
+
+import android.app.ActivityManager;
+import android.content.Context;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.uw.tcss450.groupchat.R;
+
+/**
+ * The app-wide image cache budget, all of it Glide's.
+ *
+ * Memory tiers are sized in bytes from the device's memory class instead of by entry
+ * count, the disk tier is sized from resources. Image loads served from memory, the
+ * images on screen as well as the memory cache, are counted here as hits and every other
+ * load as a miss.
+ *
+ * @version January, 2021
+ */
+public final class ImageCacheConfig {
+
+    private static final long MEGABYTE = 1024 * 1024;
+
+    private static ImageCacheConfig instance;
+
+    private final long mMemoryCacheBytes;
+
+    private final long mBitmapPoolBytes;
+
+    private final long mDiskCacheBytes;
+
+    private final AtomicLong mHits;
+
+    private final AtomicLong mMisses;
+
+    private ImageCacheConfig(final Context context) {
+        ActivityManager manager =
+                (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        long heap = manager.getMemoryClass() * MEGABYTE;
+
+        mMemoryCacheBytes = heap / 8;
+        mBitmapPoolBytes = heap / 16;
+        mDiskCacheBytes = context.getResources().getInteger(R.integer.image_disk_cache_mb)
+                * MEGABYTE;
+        mHits = new AtomicLong();
+        mMisses = new AtomicLong();
+    }
+
+    /**
+     * Return the instance of the image cache configuration.
+     *
+     * @param context the current context of application
+     * @return instance
+     */
+    public static synchronized ImageCacheConfig getInstance(final Context context) {
+        if (instance == null) {
+            instance = new ImageCacheConfig(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the size of Glide's decoded image cache.
+     *
+     * @return size in bytes
+     */
+    public long getMemoryCacheBytes() {
+        return mMemoryCacheBytes;
+    }
+
+    /**
+     * Returns the size of the pool of bitmaps Glide reuses when decoding.
+     *
+     * @return size in bytes
+     */
+    public long getBitmapPoolBytes() {
+        return mBitmapPoolBytes;
+    }
+
+    /**
+     * Returns the size of the on-disk image cache.
+     *
+     * @return size in bytes
+     */
+    public long getDiskCacheBytes() {
+        return mDiskCacheBytes;
+    }
+
+    /**
+     * Counts an image load served from memory.
+     */
+    public void recordHit() {
+        mHits.incrementAndGet();
+    }
+
+    /**
+     * Counts an image load that had to go to disk or the network.
+     */
+    public void recordMiss() {
+        mMisses.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of memory cache hits since the app started.
+     *
+     * @return number of hits
+     */
+    public long getHitCount() {
+        return mHits.get();
+    }
+
+    /**
+     * Returns the number of memory cache misses since the app started.
+     *
+     * @return number of misses
+     */
+    public long getMissCount() {
+        return mMisses.get();
+    }
+
+    /**
+     * Returns the fraction of image loads that were served from memory.
+     *
+     * @return hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long hits = mHits.get();
+        long total = hits + mMisses.get();
+        return total == 0 ? 0 : hits / (double) total;
+    }
+}
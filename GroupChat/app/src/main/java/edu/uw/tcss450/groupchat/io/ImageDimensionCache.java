@@ -0,0 +1,156 @@
+package edu.uw.tcss450.groupchat.io;
+
+import android.content.Context;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.transition.Transition;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the pixel dimensions of images by url, so they can be laid out and decoded at
+ * the right size the first time they are shown.
+ *
+ * Dimensions are recorded when an image is uploaded, and otherwise probed once by decoding
+ * only the bounds of the downloaded file. All methods must be called on the main thread.
+ *
+ * @version January, 2021
+ */
+public final class ImageDimensionCache {
+
+    private static final int MAX_ENTRIES = 500;
+
+    private static ImageDimensionCache instance;
+
+    private final LruCache<String, int[]> mSizes;
+
+    private final Map<String, List<Callback>> mProbing;
+
+    private ImageDimensionCache() {
+        mSizes = new LruCache<>(MAX_ENTRIES);
+        mProbing = new HashMap<>();
+    }
+
+    /**
+     * Return the instance of the dimension cache.
+     *
+     * @return instance
+     */
+    public static synchronized ImageDimensionCache getInstance() {
+        if (instance == null) {
+            instance = new ImageDimensionCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the dimensions of an image.
+     *
+     * @param url the url of the image
+     * @return the width and height of the image, or null if they are not known yet
+     */
+    @Nullable
+    public int[] get(final String url) {
+        return mSizes.get(url);
+    }
+
+    /**
+     * Records the dimensions of an image from its encoded bytes, without decoding the pixels.
+     *
+     * @param url the url the image is available at
+     * @param data the encoded image
+     */
+    public void put(final String url, final byte[] data) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        if (options.outWidth > 0 && options.outHeight > 0) {
+            mSizes.put(url, new int[]{options.outWidth, options.outHeight});
+        }
+    }
+
+    /**
+     * Finds the dimensions of an image that are not known yet. The image is downloaded into
+     * Glide's disk cache, where it is needed for display anyway, and only its bounds are
+     * decoded. Calls for a url already being probed wait on the same download.
+     *
+     * @param context the current context of application
+     * @param url the url of the image
+     * @param onReady called once the dimensions are known, or found not to be
+     */
+    public void probe(final Context context, final String url, final Callback onReady) {
+        int[] size = mSizes.get(url);
+        if (size != null) {
+            onReady.onProbed(size);
+            return;
+        }
+        List<Callback> waiting = mProbing.get(url);
+        if (waiting != null) {
+            waiting.add(onReady);
+            return;
+        }
+        waiting = new ArrayList<>();
+        waiting.add(onReady);
+        mProbing.put(url, waiting);
+
+        Glide.with(context.getApplicationContext())
+                .download(url)
+                .into(new CustomTarget<File>() {
+                    @Override
+                    public void onResourceReady(@NonNull File file,
+                                                @Nullable Transition<? super File> transition) {
+                        BitmapFactory.Options options = new BitmapFactory.Options();
+                        options.inJustDecodeBounds = true;
+                        BitmapFactory.decodeFile(file.getPath(), options);
+
+                        int[] size = null;
+                        if (options.outWidth > 0 && options.outHeight > 0) {
+                            size = new int[]{options.outWidth, options.outHeight};
+                            mSizes.put(url, size);
+                        }
+                        done(url, size);
+                    }
+
+                    @Override
+                    public void onLoadFailed(@Nullable Drawable errorDrawable) {
+                        done(url, null);
+                    }
+
+                    @Override
+                    public void onLoadCleared(@Nullable Drawable placeholder) {
+                        // nothing is displayed by this target
+                    }
+                });
+    }
+
+    private void done(final String url, @Nullable final int[] size) {
+        List<Callback> callbacks = mProbing.remove(url);
+        if (callbacks == null) return;
+        for (Callback callback : callbacks) callback.onProbed(size);
+    }
+
+    /**
+     * Told the outcome of a probe.
+     */
+    public interface Callback {
+
+        /**
+         * Called once the probe is over.
+         *
+         * @param size the width and height of the image, or null if the image could not be
+         *             downloaded or its bounds could not be read
+         */
+        void onProbed(@Nullable int[] size);
+    }
+}
@@ -0,0 +1,123 @@
+package edu.uw.tcss450.groupchat.io;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
+
+/**
+ * Scroll listener that keeps image loading in step with how a list is being scrolled.
+ *
+ * While the list moves slowly, the images of the rows just past the edge it is scrolling
+ * towards are loaded ahead of time so they are in memory when bound. While it is flung
+ * faster than rows can usefully be shown, image requests of the screen are paused, and they
+ * resume once it slows down or stops.
+ *
+ * @version January, 2021
+ */
+public class ImagePreloader extends RecyclerView.OnScrollListener {
+
+    /** Scroll distance in dp per frame above which image requests are paused. */
+    private static final int PAUSE_DISTANCE = 80;
+
+    private final RequestManager mRequests;
+
+    private final Provider mProvider;
+
+    private final int mCount;
+
+    private final int mPauseDistance;
+
+    private boolean mPaused;
+
+    /** The positions already preloaded, so scrolling a few pixels does not repeat them. */
+    private int mFrom;
+
+    private int mTo;
+
+    /**
+     * Constructor to initialize the preloader for a list.
+     *
+     * @param recyclerView the list to preload images for
+     * @param count how many rows ahead of the scroll direction to preload
+     * @param provider starts the image requests of a single row
+     */
+    public ImagePreloader(final RecyclerView recyclerView, final int count,
+                          final Provider provider) {
+        mRequests = Glide.with(recyclerView);
+        mProvider = provider;
+        mCount = count;
+        mPauseDistance = Math.round(PAUSE_DISTANCE
+                * recyclerView.getResources().getDisplayMetrics().density);
+        mPaused = false;
+        mFrom = -1;
+        mTo = -1;
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            resume();
+            // rows may have been added or moved while the list was still
+            mFrom = -1;
+            mTo = -1;
+        }
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (dy == 0) return;
+        if (Math.abs(dy) > mPauseDistance) {
+            if (!mPaused) {
+                mRequests.pauseRequests();
+                mPaused = true;
+            }
+            return;
+        }
+        resume();
+
+        LinearLayoutManager manager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int items = recyclerView.getAdapter() == null ? 0 : recyclerView.getAdapter().getItemCount();
+        int from;
+        int to;
+        if (dy > 0) {
+            from = Math.max(manager.findLastVisibleItemPosition() + 1, mTo);
+            to = Math.min(manager.findLastVisibleItemPosition() + 1 + mCount, items);
+        } else {
+            from = Math.max(manager.findFirstVisibleItemPosition() - mCount, 0);
+            to = mFrom >= 0 ? Math.min(manager.findFirstVisibleItemPosition(), mFrom)
+                    : manager.findFirstVisibleItemPosition();
+        }
+        for (int position = from; position < to; position++) {
+            mProvider.preload(mRequests, position);
+        }
+        if (from < to) {
+            mFrom = from;
+            mTo = to;
+        }
+    }
+
+    private void resume() {
+        if (mPaused) {
+            mRequests.resumeRequests();
+            mPaused = false;
+        }
+    }
+
+    /**
+     * Starts the image requests a single row will make when it is bound.
+     */
+    public interface Provider {
+
+        /**
+         * Preloads the images of a row. The requests must match the ones made when binding
+         * the row, or the preloaded images will not be found in the cache.
+         *
+         * @param requests the request manager of the list
+         * @param position the adapter position of the row
+         */
+        void preload(RequestManager requests, int position);
+    }
+}
@@ -0,0 +1,210 @@
+package edu.uw.tcss450.groupchat.io;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.android.volley.Response;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import edu.uw.tcss450.groupchat.R;
+import edu.uw.tcss450.groupchat.services.PushReceiver;
+import edu.uw.tcss450.groupchat.ui.chats.ChatMessage;
+import okhttp3.OkHttpClient;
+
+/**
+ * A WebSocket to the web service kept open while the app is in the foreground, carrying new
+ * messages, typing status and room changes as they happen, and the user's own messages and
+ * typing status the other way.
+ *
+ * Events come as JSON objects with an increasing "id" and the "type" and payload of the
+ * matching Pushy push: "msg" with "chatid", "seq" and "message", "chat" and "typeStatus"
+ * with the payload in "message". They are broadcast like {@link PushReceiver} broadcasts
+ * pushes, so the screens handle both the same way, and Pushy stays in charge while the app
+ * is in the background. Sent messages are answered with an "ack" carrying the "ref" they
+ * were sent with, and their "msg" event carries it too. A message whose ack is lost is
+ * matched against the events replayed when the socket opens again, and only one that is
+ * not among them is handed back to be sent over HTTP, with the same ref.
+ *
+ * A dropped socket is opened again after a growing, randomized delay, asking for the events
+ * after the last one seen so none are missed, see {@link RealtimeSocket}. The channel is off
+ * unless the web service supports it, see R.bool.realtime_enabled.
+ *
+ * @version January, 2021
+ */
+public class RealtimeChannel {
+
+    private static final String TAG = "REALTIME";
+
+    private static RealtimeChannel instance;
+
+    private final Context mContext;
+
+    private final boolean mEnabled;
+
+    private final RealtimeSocket mSocket;
+
+    private RealtimeChannel(final Context context) {
+        mContext = context.getApplicationContext();
+        mEnabled = mContext.getResources().getBoolean(R.bool.realtime_enabled);
+        OkHttpClient client = new OkHttpClient.Builder()
+                .pingInterval(30, TimeUnit.SECONDS)
+                .build();
+        SessionManager session = SessionManager.getInstance(mContext);
+        Handler handler = new Handler(Looper.getMainLooper());
+        mSocket = new RealtimeSocket(client,
+                mContext.getString(R.string.base_url) + "realtime",
+                new RealtimeSocket.Session() {
+                    @Override
+                    public String getToken() {
+                        return session.getToken();
+                    }
+
+                    @Override
+                    public void refresh(final String rejected) {
+                        session.refresh(rejected);
+                    }
+                },
+                new RealtimeSocket.Scheduler() {
+                    @Override
+                    public void post(final Runnable task) {
+                        handler.post(task);
+                    }
+
+                    @Override
+                    public void postDelayed(final Runnable task, final long delay) {
+                        handler.postDelayed(task, delay);
+                    }
+
+                    @Override
+                    public void removeCallbacks(final Runnable task) {
+                        handler.removeCallbacks(task);
+                    }
+                },
+                new Random(),
+                new RealtimeSocket.Events() {
+                    @Override
+                    public void onEvent(final JSONObject event) throws JSONException {
+                        handle(event);
+                    }
+
+                    @Override
+                    public void onError(final String message) {
+                        Log.e(TAG, message);
+                    }
+                });
+    }
+
+    /**
+     * Return the instance of the realtime channel.
+     *
+     * @param context the current context of application
+     * @return instance
+     */
+    public static synchronized RealtimeChannel getInstance(final Context context) {
+        if (instance == null) {
+            instance = new RealtimeChannel(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Opens the socket, for when the app comes to the foreground.
+     */
+    public void start() {
+        if (mEnabled) mSocket.start();
+    }
+
+    /**
+     * Closes the socket, for when the app goes to the background and Pushy takes over.
+     */
+    public void stop() {
+        mSocket.stop();
+    }
+
+    /**
+     * Closes the socket and forgets the last event, for when the user signs out.
+     */
+    public void clear() {
+        mSocket.clear();
+    }
+
+    /**
+     * Get whether the socket is open, so events arrive over it rather than through Pushy.
+     *
+     * @return true if the socket is open
+     */
+    public boolean isConnected() {
+        return mSocket.isConnected();
+    }
+
+    /**
+     * Sends a message over the socket. Once sent, the message is either acked or handed to
+     * the fallback, never both.
+     *
+     * @param chatId the id of the chat room
+     * @param message the message content
+     * @param ref identifies the message, sent with the fallback too so it is not posted twice
+     * @param listener told of the ack, or of the event of the message in the replay
+     * @param fallback sends the message some other way if it is not acked
+     * @return false if the socket is not open and nothing was sent
+     */
+    public boolean send(final int chatId, final String message, final String ref,
+                        final Response.Listener<JSONObject> listener,
+                        final Runnable fallback) {
+        return mSocket.send(chatId, message, ref, listener, fallback);
+    }
+
+    /**
+     * Sends the user's typing status in a chat room over the socket.
+     *
+     * @param chatId the id of the chat room
+     * @param status the typing status
+     * @return false if the socket is not open and nothing was sent
+     */
+    public boolean sendTypingStatus(final int chatId, final String status) {
+        return mSocket.sendTypingStatus(chatId, status);
+    }
+
+    /**
+     * Broadcasts an event received over the socket like the matching push.
+     */
+    private void handle(final JSONObject event) throws JSONException {
+        Intent i = new Intent(PushReceiver.RECEIVED_NEW_MESSAGE);
+        switch (event.getString("type")) {
+            case "msg": {
+                i.putExtra("chatMessage", ChatMessage.createFromJsonString(
+                        event.getJSONObject("message").toString()));
+                i.putExtra("chatid", event.getInt("chatid"));
+                i.putExtra("seq", event.optInt("seq", -1));
+                break;
+            }
+            case "chat": {
+                JSONObject message = event.getJSONObject("message");
+                i.putExtra("chat", message.getString("text"));
+                i.putExtra("type", message.getString("type"));
+                i.putExtra("chatId", message.getInt("chatid"));
+                if (message.has("name")) i.putExtra("name", message.getString("name"));
+                break;
+            }
+            case "typeStatus": {
+                JSONObject message = event.getJSONObject("message");
+                i.putExtra("chatid", message.getInt("chatid"));
+                i.putExtra("email", message.getString("email"));
+                i.putExtra("username", message.getString("user"));
+                i.putExtra("typeStatus", message.getString("status"));
+                break;
+            }
+            default:
+                return;
+        }
+        mContext.sendBroadcast(i);
+    }
+}
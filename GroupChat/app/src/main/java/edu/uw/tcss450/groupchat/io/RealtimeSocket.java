@@ -0,0 +1,426 @@
+package edu.uw.tcss450.groupchat.io;
+
+import androidx.annotation.NonNull;
+
+import com.android.volley.Response;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+
+/**
+ * The WebSocket behind the {@link RealtimeChannel}: opening it, opening it again after it
+ * drops, resuming after the last event seen and matching acks to sent messages. It knows
+ * nothing of the app it runs in, which is reached through {@link Session},
+ * {@link Scheduler} and {@link Events}, so it can be tested against a local web server.
+ *
+ * A dropped socket is opened again after a delay that doubles with every failed attempt,
+ * from {@link #MIN_BACKOFF} up to {@link #MAX_BACKOFF}, asking for the events after the last
+ * one seen. A message not acked within {@link #ACK_TIMEOUT} drops the socket, which is likely
+ * dead. Messages still waiting when the socket drops are kept: the server may have received
+ * them and only the ack was lost, so they are settled by the "msg" events carrying their ref
+ * in the replay once the socket is open again. A message not seen within
+ * {@link #ACK_TIMEOUT} of that is handed to its fallback, along with the ref so the server
+ * can drop it if it did arrive after all.
+ *
+ * @version January, 2021
+ */
+class RealtimeSocket {
+
+    /** Delay in milliseconds before the first attempt to open a dropped socket again. */
+    static final long MIN_BACKOFF = 1_000;
+
+    /** Longest delay in milliseconds between attempts to open the socket. */
+    static final long MAX_BACKOFF = 60_000;
+
+    /** How long in milliseconds a sent message may wait for its ack, or for its replay. */
+    static final long ACK_TIMEOUT = 10_000;
+
+    private static final int NORMAL_CLOSURE = 1000;
+
+    private final OkHttpClient mClient;
+
+    private final String mUrl;
+
+    private final Session mSession;
+
+    private final Scheduler mScheduler;
+
+    private final Events mEvents;
+
+    private final Random mRandom;
+
+    private final Runnable mReconnect;
+
+    /** Messages sent over the socket and not acked yet, by their ref, kept while it is down. */
+    private final Map<String, Send> mSends;
+
+    /** The socket open or being opened, null while there is none. */
+    private WebSocket mSocket;
+
+    /** Whether the socket is open. */
+    private boolean mConnected;
+
+    /** Whether the app wants the socket. */
+    private boolean mStarted;
+
+    /** Failed attempts to open the socket since it was last open. */
+    private int mAttempts;
+
+    /** The id of the last event received. */
+    private long mLastEventId;
+
+    /**
+     * Constructor for a socket that is not opened until it is started.
+     *
+     * @param client makes the connections
+     * @param url the url of the realtime endpoint
+     * @param session signs the socket and refreshes a rejected token
+     * @param scheduler runs callbacks and delayed work
+     * @param random spreads out the delays between attempts
+     * @param events receives the events that are not acks
+     */
+    RealtimeSocket(final OkHttpClient client, final String url, final Session session,
+                   final Scheduler scheduler, final Random random, final Events events) {
+        mClient = client;
+        mUrl = url;
+        mSession = session;
+        mScheduler = scheduler;
+        mRandom = random;
+        mEvents = events;
+        mReconnect = () -> {
+            synchronized (this) {
+                if (mStarted && mSocket == null) connect();
+            }
+        };
+        mSends = new HashMap<>();
+    }
+
+    /**
+     * Opens the socket, unless it is already started.
+     */
+    synchronized void start() {
+        if (mStarted) return;
+        mStarted = true;
+        mAttempts = 0;
+        connect();
+    }
+
+    /**
+     * Closes the socket and stops opening it again.
+     */
+    synchronized void stop() {
+        mStarted = false;
+        mScheduler.removeCallbacks(mReconnect);
+        if (mSocket != null) mSocket.close(NORMAL_CLOSURE, null);
+        dropped();
+    }
+
+    /**
+     * Closes the socket and forgets the last event and the messages waiting for an ack.
+     */
+    synchronized void clear() {
+        stop();
+        mLastEventId = 0;
+        mSends.clear();
+    }
+
+    /**
+     * Get whether the socket is open.
+     *
+     * @return true if the socket is open
+     */
+    synchronized boolean isConnected() {
+        return mConnected;
+    }
+
+    /**
+     * Sends a message over the socket. Once sent, the message is either acked or handed to
+     * the fallback, never both.
+     *
+     * @param chatId the id of the chat room
+     * @param message the message content
+     * @param ref identifies the message, sent with the fallback too so it is not posted twice
+     * @param listener told of the ack, or of the event of the message in the replay
+     * @param fallback sends the message some other way if it is not acked
+     * @return false if the socket is not open and nothing was sent
+     */
+    synchronized boolean send(final int chatId, final String message, final String ref,
+                              final Response.Listener<JSONObject> listener,
+                              final Runnable fallback) {
+        if (!mConnected) return false;
+        JSONObject frame = new JSONObject();
+        try {
+            frame.put("type", "send");
+            frame.put("ref", ref);
+            frame.put("chatid", chatId);
+            frame.put("message", message);
+        } catch (JSONException e) {
+            return false;
+        }
+        if (!mSocket.send(frame.toString())) return false;
+
+        Send send = new Send(listener, fallback, () -> timedOut(ref));
+        mSends.put(ref, send);
+        mScheduler.postDelayed(send.mTimeout, ACK_TIMEOUT);
+        return true;
+    }
+
+    /**
+     * Sends the user's typing status in a chat room over the socket.
+     *
+     * @param chatId the id of the chat room
+     * @param status the typing status
+     * @return false if the socket is not open and nothing was sent
+     */
+    synchronized boolean sendTypingStatus(final int chatId, final String status) {
+        if (!mConnected) return false;
+        JSONObject frame = new JSONObject();
+        try {
+            frame.put("type", "typing");
+            frame.put("chatid", chatId);
+            frame.put("status", status);
+        } catch (JSONException e) {
+            return false;
+        }
+        return mSocket.send(frame.toString());
+    }
+
+    /**
+     * Opens a socket asking for the events after the last one seen.
+     */
+    private void connect() {
+        String token = mSession.getToken();
+        if (token == null) return;
+        Request request = new Request.Builder()
+                .url(mUrl + "?after=" + mLastEventId)
+                .header("Authorization", token)
+                .build();
+        mSocket = mClient.newWebSocket(request, new Listener());
+    }
+
+    /**
+     * Forgets the socket. The messages waiting for an ack wait for the replay instead.
+     */
+    private void dropped() {
+        mSocket = null;
+        mConnected = false;
+        for (Send send : mSends.values()) {
+            mScheduler.removeCallbacks(send.mTimeout);
+        }
+    }
+
+    /**
+     * Drops a socket that did not ack a message in time, or hands a message that did not
+     * turn up in the replay to its fallback.
+     */
+    private synchronized void timedOut(final String ref) {
+        Send send = mSends.get(ref);
+        if (send == null) return;
+        if (send.mReplayed) {
+            mSends.remove(ref);
+            mScheduler.post(send.mFallback);
+        } else if (mSocket != null) {
+            mSocket.cancel();
+        }
+    }
+
+    /**
+     * Tries to open the socket again after a delay that doubles with every failed attempt.
+     */
+    private void scheduleReconnect() {
+        if (!mStarted) return;
+        long delay = Math.min(MAX_BACKOFF, MIN_BACKOFF << Math.min(mAttempts, 6));
+        // spread out so clients dropped together do not come back together
+        delay = delay / 2 + (long) (mRandom.nextDouble() * delay / 2);
+        mAttempts++;
+        mScheduler.postDelayed(mReconnect, delay);
+    }
+
+    /**
+     * Acts on an event received over the socket, passing on everything but acks. An ack, or
+     * the event of a message sent from here, settles the message.
+     */
+    private void handle(final JSONObject event) throws JSONException {
+        String type = event.getString("type");
+        if ("ack".equals(type) || "msg".equals(type)) {
+            Send send = mSends.remove(event.optString("ref"));
+            if (send != null) {
+                mScheduler.removeCallbacks(send.mTimeout);
+                mScheduler.post(() -> send.mListener.onResponse(event));
+            }
+        }
+        if (!"ack".equals(type)) mEvents.onEvent(event);
+    }
+
+    /**
+     * Listens to one socket, ignoring it once it was replaced.
+     */
+    private class Listener extends WebSocketListener {
+
+        @Override
+        public void onOpen(@NonNull WebSocket webSocket, @NonNull okhttp3.Response response) {
+            synchronized (RealtimeSocket.this) {
+                if (webSocket != mSocket) return;
+                mConnected = true;
+                mAttempts = 0;
+                // settled by the replay, or sent some other way once it is over
+                for (Send send : mSends.values()) {
+                    send.mReplayed = true;
+                    mScheduler.postDelayed(send.mTimeout, ACK_TIMEOUT);
+                }
+            }
+        }
+
+        @Override
+        public void onMessage(@NonNull WebSocket webSocket, @NonNull String text) {
+            synchronized (RealtimeSocket.this) {
+                if (webSocket != mSocket) return;
+                try {
+                    JSONObject event = new JSONObject(text);
+                    long id = event.optLong("id", 0);
+                    if (id > 0) {
+                        // seen before the socket dropped
+                        if (id <= mLastEventId) return;
+                        mLastEventId = id;
+                    }
+                    handle(event);
+                } catch (JSONException e) {
+                    mEvents.onError("Unexpected event: " + e.getMessage());
+                }
+            }
+        }
+
+        @Override
+        public void onClosing(@NonNull WebSocket webSocket, int code, @NonNull String reason) {
+            webSocket.close(NORMAL_CLOSURE, null);
+        }
+
+        @Override
+        public void onClosed(@NonNull WebSocket webSocket, int code, @NonNull String reason) {
+            synchronized (RealtimeSocket.this) {
+                if (webSocket != mSocket) return;
+                dropped();
+                scheduleReconnect();
+            }
+        }
+
+        @Override
+        public void onFailure(@NonNull WebSocket webSocket, @NonNull Throwable t,
+                              okhttp3.Response response) {
+            String token;
+            synchronized (RealtimeSocket.this) {
+                if (webSocket != mSocket) return;
+                mEvents.onError("Socket dropped: " + t.getMessage());
+                dropped();
+                token = mSession.getToken();
+            }
+            // turned away, the token may have expired while the app was away
+            if (response != null && response.code() == 401 && token != null) {
+                mSession.refresh(token);
+            }
+            synchronized (RealtimeSocket.this) {
+                if (mSocket == null) scheduleReconnect();
+            }
+        }
+    }
+
+    /**
+     * The signed in user's token.
+     */
+    interface Session {
+
+        /**
+         * Get the current token.
+         *
+         * @return the user's signed JWT, null while signed out
+         */
+        String getToken();
+
+        /**
+         * Replaces a token the web service turned away. Blocks until it is done.
+         *
+         * @param rejected the token to replace
+         */
+        void refresh(String rejected);
+    }
+
+    /**
+     * Runs the socket's callbacks and delayed work, like a {@link android.os.Handler}.
+     */
+    interface Scheduler {
+
+        /**
+         * Runs a task soon.
+         *
+         * @param task the task to run
+         */
+        void post(Runnable task);
+
+        /**
+         * Runs a task after a delay.
+         *
+         * @param task the task to run
+         * @param delay the delay in milliseconds
+         */
+        void postDelayed(Runnable task, long delay);
+
+        /**
+         * Drops a task that has not run yet.
+         *
+         * @param task the task to drop
+         */
+        void removeCallbacks(Runnable task);
+    }
+
+    /**
+     * Receives what comes over the socket.
+     */
+    interface Events {
+
+        /**
+         * Called with each new event other than an ack, while the socket is locked.
+         *
+         * @param event the event
+         * @throws JSONException if the event is not what its type says
+         */
+        void onEvent(JSONObject event) throws JSONException;
+
+        /**
+         * Called when the socket drops or an event cannot be read.
+         *
+         * @param message what went wrong
+         */
+        void onError(String message);
+    }
+
+    /**
+     * A message sent over the socket and waiting for its ack.
+     */
+    private static final class Send {
+
+        private final Response.Listener<JSONObject> mListener;
+
+        private final Runnable mFallback;
+
+        private final Runnable mTimeout;
+
+        /** Whether the socket was opened again since the message was sent. */
+        private boolean mReplayed;
+
+        private Send(final Response.Listener<JSONObject> listener, final Runnable fallback,
+                     final Runnable timeout) {
+            mListener = listener;
+            mFallback = fallback;
+            mTimeout = timeout;
+        }
+    }
+}
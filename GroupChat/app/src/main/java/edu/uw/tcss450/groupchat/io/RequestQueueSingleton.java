@@ -1,14 +1,15 @@
 package edu.uw.tcss450.groupchat.io;
 
 import android.content.Context;
-import android.graphics.Bitmap;
-
-import androidx.collection.LruCache;
 
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
-import com.android.volley.toolbox.ImageLoader;
-import com.android.volley.toolbox.Volley;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.DiskBasedCache;
+
+import java.io.File;
+
+import edu.uw.tcss450.groupchat.R;
 
 /**
  * The Request Queue for the application's network requests.
@@ -21,27 +22,11 @@ public class RequestQueueSingleton {
     private static Context context;
 
     private RequestQueue mRequestQueue;
-    private ImageLoader mImageLoader;
+    private ResponseCache mResponseCache;
 
     private RequestQueueSingleton(Context context) {
         RequestQueueSingleton.context = context;
         mRequestQueue = getmRequestQueue();
-
-        mImageLoader = new ImageLoader(mRequestQueue,
-                new ImageLoader.ImageCache() {
-                    private final LruCache<String, Bitmap>
-                            cache = new LruCache<String, Bitmap>(20);
-
-                    @Override
-                    public Bitmap getBitmap(String url) {
-                        return cache.get(url);
-                    }
-
-                    @Override
-                    public void putBitmap(String url, Bitmap bitmap) {
-                        cache.put(url, bitmap);
-                    }
-                });
     }
 
     /**
@@ -66,27 +51,42 @@ public class RequestQueueSingleton {
         if (mRequestQueue == null) {
             // getApplicationContext() is key, it keeps you from leaking the
             // Activity or BroadcastReceiver if someone passes one in.
-            mRequestQueue = Volley.newRequestQueue(context.getApplicationContext());
+            Context appContext = context.getApplicationContext();
+            mResponseCache = new ResponseCache(
+                    new DiskBasedCache(new File(appContext.getCacheDir(), "volley")),
+                    appContext.getString(R.string.base_url));
+            // lists that change rarely, so refreshing them is mostly a 304
+            mResponseCache.setPolicy("chatrooms", ResponseCache.Policy.VALIDATE);
+            mResponseCache.setPolicy("chatrooms/recent", ResponseCache.Policy.VALIDATE);
+            mResponseCache.setPolicy("contacts", ResponseCache.Policy.VALIDATE);
+            mResponseCache.setPolicy("locations", ResponseCache.Policy.VALIDATE);
+            mResponseCache.setPolicy("profile", ResponseCache.Policy.VALIDATE);
+
+            mRequestQueue = new RequestQueue(mResponseCache,
+                    new BasicNetwork(new SessionHttpStack(appContext)));
+            mRequestQueue.start();
         }
         return mRequestQueue;
     }
 
     /**
-     * Append to the Request queue.
+     * Get the cache of the Request Queue, to set how the responses of an endpoint are cached.
      *
-     * @param req request
-     * @param <T>
+     * @return the response cache
      */
-    public <T> void addToRequestQueue(Request<T> req) {
-        getmRequestQueue().add(req);
+    public ResponseCache getResponseCache() {
+        getmRequestQueue();
+        return mResponseCache;
     }
 
     /**
-     * Return the image loader.
+     * Append to the Request queue, through the {@link RequestScheduler} so requests made
+     * while offline fail fast or wait for the network.
      *
-     * @return image loader
+     * @param req request
+     * @param <T>
      */
-    public ImageLoader getmImageLoader() {
-        return mImageLoader;
+    public <T> void addToRequestQueue(Request<T> req) {
+        RequestScheduler.getInstance(context).add(req);
     }
 }
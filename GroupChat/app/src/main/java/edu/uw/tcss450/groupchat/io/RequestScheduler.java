@@ -0,0 +1,459 @@
+package edu.uw.tcss450.groupchat.io;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.NoConnectionError;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+import com.android.volley.toolbox.JsonObjectRequest;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Sends requests to the shared request queue according to the state of the network.
+ *
+ * While offline, reads are kept until the network returns and other requests fail straight
+ * away with a {@link NoConnectionError}, instead of after every timeout and retry. Writes
+ * added with {@link #addWrite} are kept as well, and are also stored so they are still sent
+ * if the app is closed first; they are sent at least once. Kept requests are sent again in
+ * order of priority, then in the order they were added. A write that cannot reach the web
+ * service while the device is online is resent after a growing delay, and its failure is
+ * reported once it has been tried {@link #MAX_WRITE_ATTEMPTS} times.
+ *
+ * Only as many requests are in the queue at once as it has network threads, the rest wait
+ * their turn ranked by priority, so the screen in front of the user goes first without
+ * anything being held behind it: {@link Request.Priority#IMMEDIATE} for what it shows,
+ * {@link Request.Priority#LOW} for background refreshes and prefetching. Volley only ranks
+ * requests by their own {@link Request#getPriority}, which cannot be changed once a request
+ * is made, so the priority given by {@link #runFor} is ranked here instead. Requests made in
+ * {@link #runFor} belong to a lifecycle owner and are cancelled when it is destroyed, so the
+ * responses of a screen the user left never reach its view models.
+ *
+ * @version January, 2021
+ */
+public class RequestScheduler {
+
+    private static final String PREFS = "request_scheduler";
+
+    private static final String WRITES = "writes";
+
+    /** How many times a write is sent while online before its failure is reported. */
+    private static final int MAX_WRITE_ATTEMPTS = 5;
+
+    /** Delay in milliseconds before a write that could not reach the web service is resent. */
+    private static final long WRITE_RETRY_DELAY = 1_000;
+
+    /** How many requests are in the queue at once, one for each of its network threads. */
+    private static final int MAX_IN_FLIGHT = 4;
+
+    private static RequestScheduler instance;
+
+    private final SharedPreferences mPrefs;
+
+    private final RequestQueue mQueue;
+
+    private final Handler mHandler;
+
+    /** Requests kept while offline, in the order they were added. */
+    private final List<Pending> mPending;
+
+    /** Requests waiting for a place in the queue, highest priority first. */
+    private final PriorityQueue<Pending> mWaiting;
+
+    /** The requests in the queue. */
+    private final Set<Request<?>> mInFlight;
+
+    /** The tag of the requests of each lifecycle owner. */
+    private final Map<LifecycleOwner, Object> mTags;
+
+    /** Writes that were not answered yet, stored in case the app is closed. */
+    private final List<Write> mWrites;
+
+    private boolean mOnline;
+
+    private long mSequence;
+
+    /** The owner tag and priority given to requests added while {@link #runFor} runs. */
+    private Object mScopeTag;
+
+    private Request.Priority mScopePriority;
+
+    private RequestScheduler(final Context context) {
+        Context app = context.getApplicationContext();
+        mPrefs = app.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        mQueue = RequestQueueSingleton.getInstance(app).getmRequestQueue();
+        mHandler = new Handler(Looper.getMainLooper());
+        mPending = new ArrayList<>();
+        mWaiting = new PriorityQueue<>();
+        mInFlight = new HashSet<>();
+        mTags = new HashMap<>();
+        mWrites = new ArrayList<>();
+
+        mQueue.addRequestFinishedListener(this::onFinished);
+
+        ConnectivityManager manager = app.getSystemService(ConnectivityManager.class);
+        NetworkCapabilities capabilities =
+                manager.getNetworkCapabilities(manager.getActiveNetwork());
+        mOnline = capabilities != null
+                && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+        manager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                setOnline(true);
+            }
+
+            @Override
+            public void onLost(Network network) {
+                setOnline(false);
+            }
+        });
+
+        restoreWrites();
+    }
+
+    /**
+     * Return the instance of the request scheduler.
+     *
+     * @param context the current context of application
+     * @return instance
+     */
+    public static synchronized RequestScheduler getInstance(final Context context) {
+        if (instance == null) {
+            instance = new RequestScheduler(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Get whether the device is connected to the internet.
+     *
+     * @return true if online
+     */
+    public synchronized boolean isOnline() {
+        return mOnline;
+    }
+
+    /**
+     * Sends a request now, or while offline keeps it until the network returns if it is a
+     * read and fails it otherwise. Requests added on the main thread while {@link #runFor}
+     * runs belong to its owner and take its priority, others keep their own.
+     *
+     * @param request the request to send
+     */
+    public synchronized void add(final Request<?> request) {
+        Request.Priority priority = request.getPriority();
+        if (mScopeTag != null && Looper.myLooper() == Looper.getMainLooper()) {
+            request.setTag(mScopeTag);
+            priority = mScopePriority;
+        }
+        if (mOnline) {
+            dispatch(new Pending(request, priority, mSequence++));
+        } else if (request.getMethod() == Request.Method.GET) {
+            mPending.add(new Pending(request, priority, mSequence++));
+        } else {
+            mHandler.post(() -> request.deliverError(
+                    new NoConnectionError(new IOException("No network connection"))));
+        }
+    }
+
+    /**
+     * Sends a write to the web service that must not be lost, now or once the network
+     * returns. It is stored until the web service answers it.
+     *
+     * @param method the HTTP method of the request
+     * @param url the url to send it to
+     * @param body the body of the request
+     * @param listener receives the response
+     * @param errorListener receives an error the web service answered with, or the failure
+     *                      to reach it while online
+     */
+    public synchronized void addWrite(final int method, final String url, final JSONObject body,
+                                      final Response.Listener<JSONObject> listener,
+                                      final Response.ErrorListener errorListener) {
+        Write write = new Write(method, url, body, listener, errorListener);
+        mWrites.add(write);
+        saveWrites();
+        send(write);
+    }
+
+    /**
+     * Runs code that makes requests for a screen. The requests it adds to the shared queue
+     * are given the priority, and are cancelled when the owner is destroyed. Writes added
+     * with {@link #addWrite} are never cancelled. Must be called on the main thread.
+     *
+     * @param owner the lifecycle owner of the screen, the view lifecycle owner for fragments
+     * @param priority the priority of the requests
+     * @param requests the code making the requests
+     */
+    public void runFor(@NonNull final LifecycleOwner owner,
+                       @NonNull final Request.Priority priority,
+                       @NonNull final Runnable requests) {
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) return;
+        Object tag;
+        synchronized (this) {
+            tag = mTags.get(owner);
+            if (tag == null) {
+                tag = new Object();
+                mTags.put(owner, tag);
+                owner.getLifecycle().addObserver((LifecycleEventObserver) (source, event) -> {
+                    if (event == Lifecycle.Event.ON_DESTROY) cancel(source);
+                });
+            }
+        }
+
+        Object outerTag;
+        Request.Priority outerPriority;
+        synchronized (this) {
+            outerTag = mScopeTag;
+            outerPriority = mScopePriority;
+            mScopeTag = tag;
+            mScopePriority = priority;
+        }
+        try {
+            requests.run();
+        } finally {
+            synchronized (this) {
+                mScopeTag = outerTag;
+                mScopePriority = outerPriority;
+            }
+        }
+    }
+
+    /**
+     * Cancels every request of a lifecycle owner, whether in flight or waiting.
+     */
+    private synchronized void cancel(final LifecycleOwner owner) {
+        Object tag = mTags.remove(owner);
+        if (tag == null) return;
+        mQueue.cancelAll(tag);
+        removeTagged(mPending, tag);
+        removeTagged(mWaiting, tag);
+    }
+
+    private static void removeTagged(final Collection<Pending> requests, final Object tag) {
+        Iterator<Pending> iterator = requests.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().mRequest.getTag() == tag) iterator.remove();
+        }
+    }
+
+    /**
+     * Drops every request kept for later, for when the user signs out.
+     */
+    public synchronized void clear() {
+        mPending.clear();
+        mWrites.clear();
+        mPrefs.edit().remove(WRITES).apply();
+    }
+
+    private synchronized void setOnline(final boolean online) {
+        mOnline = online;
+        if (!online || mPending.isEmpty()) return;
+        List<Pending> pending = new ArrayList<>(mPending);
+        mPending.clear();
+        Collections.sort(pending);
+        for (Pending request : pending) dispatch(request);
+    }
+
+    /**
+     * Ranks a request among the ones waiting and fills the places free in the queue.
+     */
+    private void dispatch(final Pending request) {
+        mWaiting.add(request);
+        fill();
+    }
+
+    /**
+     * Adds the best ranked waiting requests to the queue while it has a place for them.
+     */
+    private void fill() {
+        while (mInFlight.size() < MAX_IN_FLIGHT && !mWaiting.isEmpty()) {
+            Pending next = mWaiting.poll();
+            mInFlight.add(next.mRequest);
+            mQueue.add(next.mRequest);
+        }
+    }
+
+    private synchronized void onFinished(final Request<?> request) {
+        if (mInFlight.remove(request)) fill();
+    }
+
+    private void send(final Write write) {
+        Pending request = new Pending(build(write), Request.Priority.NORMAL, mSequence++);
+        if (mOnline) {
+            dispatch(request);
+        } else {
+            mPending.add(request);
+        }
+    }
+
+    private Request<JSONObject> build(final Write write) {
+        Request<JSONObject> request = new JsonObjectRequest(
+                write.mMethod,
+                write.mUrl,
+                write.mBody,
+                response -> {
+                    finish(write);
+                    if (write.mListener != null) write.mListener.onResponse(response);
+                },
+                error -> {
+                    if (error instanceof NoConnectionError && retry(write)) return;
+                    finish(write);
+                    if (write.mErrorListener != null) write.mErrorListener.onErrorResponse(error);
+                });
+
+        request.setRetryPolicy(new DefaultRetryPolicy(
+                10_000,
+                DefaultRetryPolicy.DEFAULT_MAX_RETRIES,
+                DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
+        return request;
+    }
+
+    /**
+     * Sends a write that never reached the web service again, once the network returns or,
+     * while online, after a delay that doubles with every attempt.
+     *
+     * @return false if the write was tried too often and has to be reported as failed
+     */
+    private synchronized boolean retry(final Write write) {
+        if (!mWrites.contains(write)) return true;
+        if (!mOnline) {
+            mPending.add(new Pending(build(write), Request.Priority.NORMAL, mSequence++));
+            return true;
+        }
+        // the network is up but the web service could not be reached
+        write.mAttempts++;
+        if (write.mAttempts >= MAX_WRITE_ATTEMPTS) return false;
+        mHandler.postDelayed(() -> {
+            synchronized (this) {
+                if (mWrites.contains(write)) send(write);
+            }
+        }, WRITE_RETRY_DELAY << (write.mAttempts - 1));
+        return true;
+    }
+
+    private synchronized void finish(final Write write) {
+        if (mWrites.remove(write)) saveWrites();
+    }
+
+    private void saveWrites() {
+        JSONArray writes = new JSONArray();
+        try {
+            for (Write write : mWrites) {
+                writes.put(new JSONObject()
+                        .put("method", write.mMethod)
+                        .put("url", write.mUrl)
+                        .put("body", write.mBody));
+            }
+        } catch (JSONException e) {
+            Log.e("JSON PARSE ERROR", "Found in RequestScheduler saveWrites");
+        }
+        mPrefs.edit().putString(WRITES, writes.toString()).apply();
+    }
+
+    /**
+     * Sends the writes left over from the last time the app was open. Nobody is waiting on
+     * their responses any more.
+     */
+    private void restoreWrites() {
+        String stored = mPrefs.getString(WRITES, null);
+        if (stored == null) return;
+        try {
+            JSONArray writes = new JSONArray(stored);
+            for (int i = 0; i < writes.length(); i++) {
+                JSONObject write = writes.getJSONObject(i);
+                mWrites.add(new Write(write.getInt("method"),
+                        write.getString("url"),
+                        write.optJSONObject("body"),
+                        null,
+                        null));
+            }
+        } catch (JSONException e) {
+            Log.e("JSON PARSE ERROR", "Found in RequestScheduler restoreWrites");
+        }
+        for (Write write : mWrites) send(write);
+    }
+
+    /**
+     * A request on its way to the queue and its priority.
+     */
+    private static final class Pending implements Comparable<Pending> {
+
+        private final Request<?> mRequest;
+
+        private final Request.Priority mPriority;
+
+        private final long mSequence;
+
+        private Pending(final Request<?> request, final Request.Priority priority,
+                        final long sequence) {
+            mRequest = request;
+            mPriority = priority;
+            mSequence = sequence;
+        }
+
+        @Override
+        public int compareTo(final Pending other) {
+            // higher priorities first, then the order they were added
+            int priority = other.mPriority.compareTo(mPriority);
+            return priority != 0 ? priority : Long.compare(mSequence, other.mSequence);
+        }
+    }
+
+    /**
+     * A write that must reach the web service.
+     */
+    private static final class Write {
+
+        private final int mMethod;
+
+        private final String mUrl;
+
+        private final JSONObject mBody;
+
+        private final Response.Listener<JSONObject> mListener;
+
+        private final Response.ErrorListener mErrorListener;
+
+        /** Times the write failed to reach the web service while online. */
+        private int mAttempts;
+
+        private Write(final int method, final String url, final JSONObject body,
+                      final Response.Listener<JSONObject> listener,
+                      final Response.ErrorListener errorListener) {
+            mMethod = method;
+            mUrl = url;
+            mBody = body;
+            mListener = listener;
+            mErrorListener = errorListener;
+        }
+    }
+}
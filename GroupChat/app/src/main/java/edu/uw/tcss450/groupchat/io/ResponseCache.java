@@ -0,0 +1,145 @@
+package edu.uw.tcss450.groupchat.io;
+
+import com.android.volley.Cache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Response cache of the shared request queue, stored on disk, with a policy for each endpoint
+ * of the web service.
+ *
+ * Volley asks the cache before sending a GET. A response still fresh under its policy is
+ * served without touching the network. Otherwise the request carries the stored ETag and
+ * Last-Modified as If-None-Match and If-Modified-Since, and a 304 from the web service is
+ * answered from the cache, so refreshing a list that did not change costs a header exchange
+ * instead of the whole payload.
+ *
+ * Endpoints are matched on their path below the base url, without the query. Responses of
+ * other hosts follow their own cache headers, and responses to anything but a GET are never
+ * stored.
+ *
+ * @version January, 2021
+ */
+public class ResponseCache implements Cache {
+
+    private final Cache mCache;
+
+    private final String mBaseUrl;
+
+    private final Map<String, Policy> mPolicies;
+
+    /**
+     * Constructor for the response cache.
+     *
+     * @param cache the cache the responses are stored in
+     * @param baseUrl the base url of the web service
+     */
+    public ResponseCache(final Cache cache, final String baseUrl) {
+        mCache = cache;
+        mBaseUrl = baseUrl;
+        mPolicies = new HashMap<>();
+    }
+
+    /**
+     * Sets how the responses of an endpoint of the web service are cached.
+     *
+     * @param endpoint the path of the endpoint below the base url, like "chatrooms/recent"
+     * @param policy the policy
+     */
+    public synchronized void setPolicy(final String endpoint, final Policy policy) {
+        mPolicies.put(endpoint, policy);
+    }
+
+    /**
+     * Returns how the response stored under a cache key is cached.
+     *
+     * @param key the cache key of a request
+     * @return the policy
+     */
+    public synchronized Policy getPolicy(final String key) {
+        if (!key.startsWith("http")) {
+            // Volley puts the method in front of the url for anything but a GET
+            return Policy.NONE;
+        }
+        if (!key.startsWith(mBaseUrl)) return Policy.HEADERS;
+        String endpoint = key.substring(mBaseUrl.length());
+        int query = endpoint.indexOf('?');
+        if (query >= 0) endpoint = endpoint.substring(0, query);
+        Policy policy = mPolicies.get(endpoint);
+        return policy == null ? Policy.NONE : policy;
+    }
+
+    @Override
+    public Entry get(String key) {
+        return mCache.get(key);
+    }
+
+    @Override
+    public void put(String key, Entry entry) {
+        Policy policy = getPolicy(key);
+        if (policy == Policy.NONE) return;
+        if (policy != Policy.HEADERS) {
+            if (entry.etag == null && entry.lastModified == 0 && policy.mFreshFor == 0) {
+                // could never be validated, so would never be used
+                return;
+            }
+            entry.ttl = System.currentTimeMillis() + policy.mFreshFor;
+            entry.softTtl = entry.ttl;
+        }
+        mCache.put(key, entry);
+    }
+
+    @Override
+    public void initialize() {
+        mCache.initialize();
+    }
+
+    @Override
+    public void invalidate(String key, boolean fullExpire) {
+        mCache.invalidate(key, fullExpire);
+    }
+
+    @Override
+    public void remove(String key) {
+        mCache.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        mCache.clear();
+    }
+
+    /**
+     * How the responses of an endpoint are cached.
+     */
+    public static final class Policy {
+
+        /** Never stored, every request gets the full response. */
+        public static final Policy NONE = new Policy(0);
+
+        /** Stored, and validated with the web service by every request. */
+        public static final Policy VALIDATE = new Policy(0);
+
+        /** Stored for as long as the response's own cache headers allow. */
+        public static final Policy HEADERS = new Policy(0);
+
+        /** How long in milliseconds a response is served without asking the web service. */
+        private final long mFreshFor;
+
+        private Policy(final long freshFor) {
+            mFreshFor = freshFor;
+        }
+
+        /**
+         * Stored, and served without asking the web service for a while before it is
+         * validated again.
+         *
+         * @param millis how long in milliseconds a response stays fresh
+         * @return the policy
+         */
+        public static Policy freshFor(final long millis) {
+            return new Policy(millis);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package edu.uw.tcss450.groupchat.io;
+
+import android.content.Context;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.Request;
+import com.android.volley.toolbox.BaseHttpStack;
+import com.android.volley.toolbox.HttpResponse;
+import com.android.volley.toolbox.HurlStack;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.uw.tcss450.groupchat.R;
+
+/**
+ * Network stack of the shared request queue, which signs every request to the web service with
+ * the token of the {@link SessionManager}. A request turned away with a 401 is sent once more
+ * with the refreshed token, so callers never see a token expiring under them.
+ *
+ * Requests that set their own Authorization header, like signing in or uploading images, and
+ * requests to other hosts are passed through untouched.
+ *
+ * @version January, 2021
+ */
+public class SessionHttpStack extends BaseHttpStack {
+
+    private static final String AUTHORIZATION = "Authorization";
+
+    private final BaseHttpStack mStack;
+
+    private final SessionManager mSession;
+
+    private final String mBaseUrl;
+
+    /**
+     * Constructor for the network stack.
+     *
+     * @param context the current context of application
+     */
+    public SessionHttpStack(final Context context) {
+        mStack = new CompressedHttpStack(new HurlStack(), TrafficMeter.getInstance());
+        mSession = SessionManager.getInstance(context);
+        mBaseUrl = context.getString(R.string.base_url);
+    }
+
+    @Override
+    public HttpResponse executeRequest(Request<?> request, Map<String, String> additionalHeaders)
+            throws IOException, AuthFailureError {
+        String token = mSession.getToken();
+        if (token == null || !request.getUrl().startsWith(mBaseUrl)
+                || request.getHeaders().containsKey(AUTHORIZATION)) {
+            return mStack.executeRequest(request, additionalHeaders);
+        }
+
+        HttpResponse response = mStack.executeRequest(request, sign(additionalHeaders, token));
+        if (response.getStatusCode() != HttpURLConnection.HTTP_UNAUTHORIZED) return response;
+
+        String refreshed = mSession.refresh(token);
+        if (refreshed == null) return response;
+        InputStream content = response.getContent();
+        if (content != null) content.close();
+        return mStack.executeRequest(request, sign(additionalHeaders, refreshed));
+    }
+
+    private static Map<String, String> sign(final Map<String, String> headers,
+                                            final String token) {
+        Map<String, String> signed = new HashMap<>(headers);
+        signed.put(AUTHORIZATION, token);
+        return signed;
+    }
+}
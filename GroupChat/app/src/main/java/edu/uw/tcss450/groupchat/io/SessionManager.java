@@ -0,0 +1,333 @@
+package edu.uw.tcss450.groupchat.io;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import com.auth0.android.jwt.JWT;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+import edu.uw.tcss450.groupchat.R;
+
+/**
+ * The signed in user's JSON Web Token, kept in one place for every request to the web service.
+ *
+ * The token is decoded once when it is set and its claims are kept, so nothing else parses it.
+ * {@link SessionHttpStack} adds it to each request to the web service. The token is refreshed
+ * {@link #REFRESH_MARGIN} before it expires, and requests turned away with a 401 all wait on a
+ * single refresh before they are sent again. Once the token can no longer be refreshed the
+ * session is over and observers of {@link #addExpiredObserver} are told, so the user can sign
+ * in again.
+ *
+ * @version January, 2021
+ */
+public class SessionManager {
+
+    /** How long in milliseconds before the token expires it is refreshed. */
+    private static final long REFRESH_MARGIN = 5 * 60 * 1000;
+
+    /** Shortest time in milliseconds between refreshes made ahead of expiry. */
+    private static final long MIN_REFRESH_INTERVAL = 30 * 1000;
+
+    /** How long in milliseconds a refresh request may take. */
+    private static final int TIMEOUT = 10_000;
+
+    private static SessionManager instance;
+
+    private final Context mContext;
+
+    private final SharedPreferences mPrefs;
+
+    private final String mPrefsKey;
+
+    private final Handler mHandler;
+
+    /** Runs the refreshes made ahead of expiry, off the main thread. */
+    private final ExecutorService mExecutor;
+
+    private final Runnable mScheduledRefresh;
+
+    private final MutableLiveData<Boolean> mExpired;
+
+    /** The current token, null while signed out. */
+    private volatile Token mToken;
+
+    /** Whether the token is stored, so the user stays signed in. */
+    private boolean mRemember;
+
+    /** The refresh in progress, shared by everyone waiting on it. */
+    private FutureTask<String> mRefresh;
+
+    private SessionManager(final Context context) {
+        mContext = context.getApplicationContext();
+        mPrefs = mContext.getSharedPreferences(
+                mContext.getString(R.string.keys_shared_prefs), Context.MODE_PRIVATE);
+        mPrefsKey = mContext.getString(R.string.keys_prefs_jwt);
+        mHandler = new Handler(Looper.getMainLooper());
+        mExecutor = Executors.newSingleThreadExecutor();
+        mScheduledRefresh = () -> {
+            Token token = mToken;
+            if (token != null) mExecutor.execute(() -> refresh(token.mRaw));
+        };
+        mExpired = new MutableLiveData<>(false);
+
+        String stored = mPrefs.getString(mPrefsKey, null);
+        if (stored != null) {
+            Token token = new Token(stored);
+            if (!token.mJwt.isExpired(0)) {
+                mRemember = true;
+                setToken(token);
+            }
+        }
+    }
+
+    /**
+     * Return the instance of the session manager.
+     *
+     * @param context the current context of application
+     * @return instance
+     */
+    public static synchronized SessionManager getInstance(final Context context) {
+        if (instance == null) {
+            instance = new SessionManager(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Starts a session with the token the web service gave on sign in.
+     *
+     * @param jwt the user's signed JWT
+     * @param remember whether to store the token so the user stays signed in
+     */
+    public synchronized void start(final String jwt, final boolean remember) {
+        mRemember = remember;
+        if (!remember) mPrefs.edit().remove(mPrefsKey).apply();
+        setToken(new Token(jwt));
+        mExpired.setValue(false);
+    }
+
+    /**
+     * Starts a session with the token a screen was opened with, unless one is already going,
+     * for when the app was restarted without a stored token.
+     *
+     * @param jwt the user's signed JWT
+     */
+    public synchronized void resume(final String jwt) {
+        if (mToken == null && jwt != null) start(jwt, false);
+    }
+
+    /**
+     * Replaces the token with a new one the web service gave, keeping the session going.
+     *
+     * @param jwt the user's new signed JWT
+     */
+    public synchronized void update(final String jwt) {
+        setToken(new Token(jwt));
+    }
+
+    /**
+     * Ends the session, for when the user signs out.
+     */
+    public synchronized void end() {
+        mHandler.removeCallbacks(mScheduledRefresh);
+        mToken = null;
+        mRemember = false;
+        mPrefs.edit().remove(mPrefsKey).apply();
+    }
+
+    /**
+     * Get the current token.
+     *
+     * @return the user's signed JWT, null while signed out
+     */
+    public String getToken() {
+        Token token = mToken;
+        return token == null ? null : token.mRaw;
+    }
+
+    /**
+     * Get the email the current token was given to.
+     *
+     * @return the user's email, null while signed out
+     */
+    public String getEmail() {
+        Token token = mToken;
+        return token == null ? null : token.mEmail;
+    }
+
+    /**
+     * Get the username the current token was given to.
+     *
+     * @return the user's username, null while signed out
+     */
+    public String getUsername() {
+        Token token = mToken;
+        return token == null ? null : token.mUsername;
+    }
+
+    /**
+     * Get whether there is a token that has not expired.
+     *
+     * @return true if the user is signed in
+     */
+    public boolean isSignedIn() {
+        Token token = mToken;
+        return token != null && !token.mJwt.isExpired(0);
+    }
+
+    /**
+     * Register as an observer to be told when the session can no longer be refreshed.
+     *
+     * @param owner the fragments lifecycle owner
+     * @param observer the observer
+     */
+    public void addExpiredObserver(@NonNull LifecycleOwner owner,
+                                   @NonNull Observer<? super Boolean> observer) {
+        mExpired.observe(owner, observer);
+    }
+
+    /**
+     * Gets a new token to replace one that was turned away or is about to expire. Only one
+     * refresh is made at a time; callers arriving while it runs wait for its result, and
+     * callers holding a token that was already replaced get the new one straight away. Blocks,
+     * so must not be called on the main thread.
+     *
+     * @param rejected the token to replace
+     * @return the new token, null if there is none
+     */
+    String refresh(final String rejected) {
+        FutureTask<String> refresh;
+        boolean run = false;
+        synchronized (this) {
+            Token token = mToken;
+            if (token == null) return null;
+            if (!token.mRaw.equals(rejected)) return token.mRaw;
+            if (mRefresh == null) {
+                mRefresh = new FutureTask<>(() -> requestToken(rejected));
+                run = true;
+            }
+            refresh = mRefresh;
+        }
+        if (run) refresh.run();
+        try {
+            return refresh.get();
+        } catch (InterruptedException | ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Asks the web service for a new token and starts using it.
+     */
+    private String requestToken(final String rejected) {
+        String fresh = null;
+        boolean expired = false;
+        HttpURLConnection connection = null;
+        try {
+            URL url = new URL(mContext.getString(R.string.base_url) + "auth/refresh");
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(TIMEOUT);
+            connection.setReadTimeout(TIMEOUT);
+            connection.setRequestProperty("Authorization", rejected);
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_OK) {
+                fresh = new JSONObject(read(connection.getInputStream())).getString("token");
+            } else {
+                expired = status == HttpURLConnection.HTTP_UNAUTHORIZED
+                        || status == HttpURLConnection.HTTP_FORBIDDEN;
+            }
+        } catch (IOException | JSONException e) {
+            // the token may still be good, try again on the next request
+            Log.e("SESSION", "Could not refresh the token: " + e.getMessage());
+        } finally {
+            if (connection != null) connection.disconnect();
+        }
+
+        synchronized (this) {
+            mRefresh = null;
+            // the session may have ended while the request was out
+            if (mToken == null || !mToken.mRaw.equals(rejected)) return getToken();
+            if (fresh != null) {
+                setToken(new Token(fresh));
+            } else if (expired) {
+                end();
+                mExpired.postValue(true);
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Starts using a token, storing it if the user is remembered, and schedules its refresh.
+     * A token living shorter than the margin is refreshed halfway through what is left of it,
+     * and one expiring no later than the token it replaced is not refreshed ahead of time,
+     * since the web service would only hand back the same again.
+     */
+    private void setToken(final Token token) {
+        Token previous = mToken;
+        mToken = token;
+        if (mRemember) mPrefs.edit().putString(mPrefsKey, token.mRaw).apply();
+
+        mHandler.removeCallbacks(mScheduledRefresh);
+        Date expiresAt = token.mJwt.getExpiresAt();
+        if (expiresAt == null) return;
+        Date previousExpiresAt = previous == null ? null : previous.mJwt.getExpiresAt();
+        if (previousExpiresAt != null && !expiresAt.after(previousExpiresAt)) return;
+        long remaining = expiresAt.getTime() - System.currentTimeMillis();
+        long delay = Math.max(remaining - REFRESH_MARGIN, remaining / 2);
+        mHandler.postDelayed(mScheduledRefresh, Math.max(delay, MIN_REFRESH_INTERVAL));
+    }
+
+    private static String read(final InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int count;
+            while ((count = stream.read(buffer)) != -1) out.write(buffer, 0, count);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * A token and the claims decoded from it.
+     */
+    private static final class Token {
+
+        private final String mRaw;
+
+        private final JWT mJwt;
+
+        private final String mEmail;
+
+        private final String mUsername;
+
+        private Token(final String raw) {
+            mRaw = raw;
+            mJwt = new JWT(raw);
+            mEmail = mJwt.getClaim("email").asString();
+            mUsername = mJwt.getClaim("username").asString();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package edu.uw.tcss450.groupchat.io;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Last known copy of the web service responses the first screens are built from, so they
+ * can be shown as soon as the app starts while fresh copies are fetched behind them.
+ *
+ * Each response is saved to its own file as soon as it arrives, rather than when the app
+ * shuts down, since the app can be killed without being told. At startup every file is
+ * read at once on its own thread, and contacts are warmed up alongside them from the
+ * {@link ContactStore}. A snapshot is only ever shown until the fresh response replaces it.
+ *
+ * Methods other than {@link #getInstance} must be called on the main thread.
+ *
+ * @version January, 2021
+ */
+public class SessionSnapshot {
+
+    /** Snapshot of the list of chat rooms. */
+    public static final String ROOMS = "chatrooms";
+
+    /** Snapshot of the most recently updated chat rooms. */
+    public static final String RECENT = "recent";
+
+    /** Snapshot of the home page weather. */
+    public static final String WEATHER = "weather";
+
+    private static final String[] KEYS = {ROOMS, RECENT, WEATHER};
+
+    private static final String DIRECTORY = "snapshot";
+
+    private static SessionSnapshot instance;
+
+    private final Context mContext;
+
+    private final File mDirectory;
+
+    /** Reads every snapshot in parallel, one thread per snapshot. */
+    private final ExecutorService mReaders;
+
+    /** Writes snapshots one at a time, in the order they were saved. */
+    private final ExecutorService mWriter;
+
+    private final Handler mHandler;
+
+    /** The snapshots read so far, null where there was none. */
+    private final Map<String, JSONObject> mSnapshots;
+
+    /** Callbacks waiting for a snapshot that is still being read. */
+    private final Map<String, List<Consumer<JSONObject>>> mWaiting;
+
+    private boolean mRestoring;
+
+    private SessionSnapshot(final Context context) {
+        mContext = context.getApplicationContext();
+        mDirectory = new File(mContext.getFilesDir(), DIRECTORY);
+        mReaders = Executors.newFixedThreadPool(KEYS.length);
+        mWriter = Executors.newSingleThreadExecutor();
+        mHandler = new Handler(Looper.getMainLooper());
+        mSnapshots = new HashMap<>();
+        mWaiting = new HashMap<>();
+        mRestoring = false;
+    }
+
+    /**
+     * Return the instance of the session snapshot.
+     *
+     * @param context the current context of application
+     * @return instance
+     */
+    public static synchronized SessionSnapshot getInstance(final Context context) {
+        if (instance == null) {
+            instance = new SessionSnapshot(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Starts reading every snapshot, if that has not started yet. Call as early as the user
+     * is known to be signed in.
+     */
+    public void restore() {
+        if (mRestoring) return;
+        mRestoring = true;
+        ContactStore.getInstance(mContext);
+        for (String key : KEYS) {
+            if (mSnapshots.containsKey(key)) continue;
+            mReaders.execute(() -> {
+                JSONObject snapshot = read(key);
+                mHandler.post(() -> {
+                    // a response saved while reading is newer than the file
+                    if (!mSnapshots.containsKey(key)) mSnapshots.put(key, snapshot);
+                    deliver(key);
+                });
+            });
+        }
+    }
+
+    /**
+     * Gives the snapshot of a response to the callback, once it is read. The callback is not
+     * called if there is no snapshot.
+     *
+     * @param key the snapshot to get
+     * @param callback called on the main thread with the snapshot
+     */
+    public void get(final String key, final Consumer<JSONObject> callback) {
+        restore();
+        if (mSnapshots.containsKey(key)) {
+            JSONObject snapshot = mSnapshots.get(key);
+            if (snapshot != null) callback.accept(snapshot);
+            return;
+        }
+        if (!mWaiting.containsKey(key)) mWaiting.put(key, new ArrayList<>());
+        mWaiting.get(key).add(callback);
+    }
+
+    /**
+     * Saves a response as the snapshot to show next time.
+     *
+     * @param key the snapshot to save
+     * @param response the response from the web service
+     */
+    public void put(final String key, final JSONObject response) {
+        mSnapshots.put(key, response);
+        mWaiting.remove(key);
+        final String json = response.toString();
+        mWriter.execute(() -> write(key, json));
+    }
+
+    /**
+     * Removes every snapshot, for when the user signs out.
+     */
+    public void clear() {
+        for (String key : KEYS) mSnapshots.put(key, null);
+        mWaiting.clear();
+        mWriter.execute(() -> {
+            File[] files = mDirectory.listFiles();
+            if (files == null) return;
+            for (File file : files) {
+                if (!file.delete()) Log.e("SNAPSHOT", "Could not delete " + file);
+            }
+        });
+    }
+
+    private void deliver(final String key) {
+        List<Consumer<JSONObject>> waiting = mWaiting.remove(key);
+        JSONObject snapshot = mSnapshots.get(key);
+        if (waiting == null || snapshot == null) return;
+        for (Consumer<JSONObject> callback : waiting) callback.accept(snapshot);
+    }
+
+    private JSONObject read(final String key) {
+        File file = new File(mDirectory, key + ".json");
+        if (!file.exists()) return null;
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] bytes = new byte[(int) file.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                int count = in.read(bytes, read, bytes.length - read);
+                if (count < 0) break;
+                read += count;
+            }
+            return new JSONObject(new String(bytes, 0, read, StandardCharsets.UTF_8));
+        } catch (IOException | JSONException e) {
+            Log.e("SNAPSHOT", "Could not read " + key + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot to a temporary file and renames it over the old one, so a crash in
+     * the middle never leaves half a snapshot behind.
+     */
+    private void write(final String key, final String json) {
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) return;
+        File temp = new File(mDirectory, key + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.e("SNAPSHOT", "Could not write " + key + ": " + e.getMessage());
+            return;
+        }
+        if (!temp.renameTo(new File(mDirectory, key + ".json"))) {
+            Log.e("SNAPSHOT", "Could not save " + key);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package edu.uw.tcss450.groupchat.io;
+
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Counts the bytes the app exchanges with the network for each screen.
+ *
+ * Responses are counted twice, as the bytes that came over the wire and as the bytes they
+ * decoded to, so the saving from compression shows next to the traffic itself. Traffic is
+ * put on the screen showing when its request was sent. The totals of a screen are logged
+ * each time it is left.
+ *
+ * @version January, 2021
+ */
+public final class TrafficMeter {
+
+    private static final String TAG = "TRAFFIC";
+
+    private static TrafficMeter instance;
+
+    private final Map<String, Usage> mUsage;
+
+    private String mScreen;
+
+    private TrafficMeter() {
+        mUsage = new HashMap<>();
+        mScreen = "none";
+    }
+
+    /**
+     * Return the instance of the traffic meter.
+     *
+     * @return instance
+     */
+    public static synchronized TrafficMeter getInstance() {
+        if (instance == null) {
+            instance = new TrafficMeter();
+        }
+        return instance;
+    }
+
+    /**
+     * Puts the traffic from now on on another screen, logging the totals of the one left.
+     *
+     * @param screen the name of the screen now showing
+     */
+    public synchronized void setScreen(final String screen) {
+        Usage usage = mUsage.get(mScreen);
+        if (usage != null) Log.i(TAG, mScreen + ": " + usage);
+        mScreen = screen;
+    }
+
+    /**
+     * Returns the screen traffic is put on.
+     *
+     * @return the name of the screen
+     */
+    public synchronized String getScreen() {
+        return mScreen;
+    }
+
+    /**
+     * Counts one exchange with the network.
+     *
+     * @param screen the screen showing when the request was sent
+     * @param sent the bytes of the request body
+     * @param wire the bytes of the response body as they came over the wire
+     * @param decoded the bytes the response body decoded to
+     */
+    public synchronized void record(final String screen, final long sent,
+                                    final long wire, final long decoded) {
+        Usage usage = mUsage.get(screen);
+        if (usage == null) {
+            usage = new Usage();
+            mUsage.put(screen, usage);
+        }
+        usage.mResponses++;
+        usage.mSent += sent;
+        usage.mWire += wire;
+        usage.mDecoded += decoded;
+    }
+
+    /**
+     * Returns the response bytes a screen received over the wire since the app started.
+     *
+     * @param screen the name of the screen
+     * @return number of bytes
+     */
+    public synchronized long getWireBytes(final String screen) {
+        Usage usage = mUsage.get(screen);
+        return usage == null ? 0 : usage.mWire;
+    }
+
+    /**
+     * Returns the bytes the responses of a screen decoded to since the app started.
+     *
+     * @param screen the name of the screen
+     * @return number of bytes
+     */
+    public synchronized long getDecodedBytes(final String screen) {
+        Usage usage = mUsage.get(screen);
+        return usage == null ? 0 : usage.mDecoded;
+    }
+
+    /**
+     * The traffic of one screen.
+     */
+    private static final class Usage {
+
+        private int mResponses;
+
+        private long mSent;
+
+        private long mWire;
+
+        private long mDecoded;
+
+        @Override
+        public String toString() {
+            long saved = mDecoded == 0 ? 0 : 100 - mWire * 100 / mDecoded;
+            return String.format(Locale.US,
+                    "%d responses, %d bytes sent, %d bytes received, %d decoded (%d%% saved)",
+                    mResponses, mSent, mWire, mDecoded, saved);
+        }
+    }
+}
@@ -70,9 +70,8 @@ public class ProfileViewModel extends AndroidViewModel {
 
     /**
      * Makes a request to the web service to get the user's profile information.
-     * @param jwt the user's signed JWT
      */
-    public void connect(final String jwt) {
+    public void connect() {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "profile";
 
@@ -81,16 +80,7 @@ public class ProfileViewModel extends AndroidViewModel {
                 url,
                 null, //no body for this get request
                 this::handleSuccess,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -108,13 +98,11 @@ public class ProfileViewModel extends AndroidViewModel {
      * @param last the new last name
      * @param username the new username
      * @param email the new email
-     * @param jwt the user's signed JWT
      */
     public void connectUpdate(final String first,
                               final String last,
                               final String username,
-                              final String email,
-                              final String jwt) {
+                              final String email) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "profile";
 
@@ -133,16 +121,7 @@ public class ProfileViewModel extends AndroidViewModel {
                 url,
                 body,
                 mResponse::setValue,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -157,9 +136,8 @@ public class ProfileViewModel extends AndroidViewModel {
     /**
      * Makes a request to the imgur web service to upload an image.
      * @param data the byte data of the image
-     * @param jwt the user's signed JWT
      */
-    public void uploadImage(final byte[] data, final String jwt) {
+    public void uploadImage(final byte[] data) {
         String url = "https://api.imgur.com/3/upload";
 
         //custom volley request
@@ -170,7 +148,7 @@ public class ProfileViewModel extends AndroidViewModel {
             try {
                 JSONObject obj = new JSONObject(new String(response.data));
                 String imageURL = obj.getJSONObject("data").getString("link");
-                changeImage(imageURL, jwt);
+                changeImage(imageURL);
             } catch (JSONException e) {
                 e.printStackTrace();
             }
@@ -205,9 +183,8 @@ public class ProfileViewModel extends AndroidViewModel {
     /**
      * Makes a request to the web service to update the user's profile image link.
      * @param imageUrl the link to update with
-     * @param jwt the user's signed JWT
      */
-    private void changeImage(final String imageUrl, final String jwt) {
+    private void changeImage(final String imageUrl) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "profile/image";
 
@@ -226,16 +203,7 @@ public class ProfileViewModel extends AndroidViewModel {
                     mProfile.getValue().setImage(imageUrl);
                     mProfile.setValue(mProfile.getValue());
                     },
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -86,7 +86,9 @@ public class PushyTokenViewModel extends AndroidViewModel {
     }
 
     /**
-     * Perform an HTTP request to delete the application's Pushy token from the web service
+     * Perform an HTTP request to delete the application's Pushy token from the web service.
+     * The request is signed with the token given, so it still goes out after the session
+     * ended.
      *
      * @param jwt user sign-in token
      */
@@ -152,10 +154,9 @@ public class PushyTokenViewModel extends AndroidViewModel {
 
     /**
      * Send this Pushy device token to the web service.
-     * @param jwt user token
      * @throws IllegalStateException when this method is called before the token is retrieve
      */
-    public void sendTokenToWebservice(final String jwt) {
+    public void sendTokenToWebservice() {
         if (mPushyToken.getValue().isEmpty()) {
             throw new IllegalStateException("No pushy token. Do NOT call until token is retrieved");
         }
@@ -175,16 +176,7 @@ public class PushyTokenViewModel extends AndroidViewModel {
                 url,
                 body, //push token found in the JSONObject body
                 mResponse::setValue,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                // add headers <key,value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -22,19 +22,15 @@ public class UserInfoViewModel extends ViewModel {
     /** User username. */
     private String mUsername;
 
-    /** User login token. */
-    private String mJwt;
-
     /** Current Theme **/
     private Integer mTheme;
 
     /** Current color Mode **/
     private Integer mMode;
 
-    private UserInfoViewModel(String email, String username, String jwt) {
+    private UserInfoViewModel(String email, String username) {
         mEmail = email;
         mUsername = username;
-        mJwt = jwt;
         mTheme = R.style.Theme_PurpleGold;
         mMode = 0;
     }
@@ -57,15 +53,6 @@ public class UserInfoViewModel extends ViewModel {
         return mUsername;
     }
 
-    /**
-     * Get user login.
-     *
-     * @return user login token string
-     */
-    public String getJwt() {
-        return mJwt;
-    }
-
     /**
      * Get app theme.
      *
@@ -89,12 +76,10 @@ public class UserInfoViewModel extends ViewModel {
      *
      * @param email the user's email
      * @param username the user's username
-     * @param jwt the user's valid JWT
      */
-    public void update(final String email, final String username, final String jwt) {
+    public void update(final String email, final String username) {
         mEmail = email;
         mUsername = username;
-        mJwt = jwt;
     }
 
     /**
@@ -122,25 +107,22 @@ public class UserInfoViewModel extends ViewModel {
 
         private final String email;
         private final String username;
-        private final String jwt;
 
         /**
          * Main public constructor to initialize the Factory.
          *
          * @param email user email string
-         * @param jwt user login token string
          */
-        public UserInfoViewModelFactory(String email, String username, String jwt) {
+        public UserInfoViewModelFactory(String email, String username) {
             this.email = email;
             this.username = username;
-            this.jwt = jwt;
         }
 
         @NonNull
         @Override
         public <T extends ViewModel> T create(@NonNull Class<T> modelClass) {
             if (modelClass == UserInfoViewModel.class) {
-                return (T) new UserInfoViewModel(email, username, jwt);
+                return (T) new UserInfoViewModel(email, username);
             }
             throw new IllegalArgumentException("Argument must be: " + UserInfoViewModel.class);
         }
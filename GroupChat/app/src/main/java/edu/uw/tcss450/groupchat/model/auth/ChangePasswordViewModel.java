@@ -13,17 +13,15 @@ import com.android.volley.DefaultRetryPolicy;
 import com.android.volley.Request;
 import com.android.volley.VolleyError;
 import com.android.volley.toolbox.JsonObjectRequest;
-import com.android.volley.toolbox.Volley;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.nio.charset.Charset;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
 
 import edu.uw.tcss450.groupchat.R;
+import edu.uw.tcss450.groupchat.io.RequestQueueSingleton;
 
 /**
  * View Model for Change Password page to store latest HTTP response.
@@ -58,9 +56,8 @@ public class ChangePasswordViewModel extends AndroidViewModel {
 
     /**
      * Make an HTTP request for change password action.
-     * @param jwt email of user
      */
-    public void connect(final String jwt, final String oldpw, final String newpw) {
+    public void connect(final String oldpw, final String newpw) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "password/change";
 
@@ -77,16 +74,7 @@ public class ChangePasswordViewModel extends AndroidViewModel {
                 url,
                 body,
                 mResponse::setValue,
-                this::handleError) {
-
-                @Override
-                public Map<String, String> getHeaders() {
-                    Map<String, String> headers = new HashMap<>();
-                    //add headers <key, value>
-                    headers.put("Authorization", jwt);
-                    return headers;
-                }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -94,7 +82,8 @@ public class ChangePasswordViewModel extends AndroidViewModel {
                 DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
 
         //Instantiate the RequestQueue and add the request to the queue
-        Volley.newRequestQueue(getApplication().getApplicationContext()).add(request);
+        RequestQueueSingleton.getInstance(getApplication().getApplicationContext())
+                .addToRequestQueue(request);
     }
 
     private void handleError(final VolleyError error) {
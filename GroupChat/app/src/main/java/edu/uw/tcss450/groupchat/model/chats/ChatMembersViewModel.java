@@ -20,7 +20,6 @@ import org.json.JSONObject;
 
 import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -76,9 +75,8 @@ public class ChatMembersViewModel extends AndroidViewModel {
      * Parses the response and adds the member emails to the List associated with the room.
      *
      * @param chatId the chat room id to request member of
-     * @param jwt the user's signed JWT
      */
-    public void connect(final int chatId, final String jwt) {
+    public void connect(final int chatId) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "chats/" + chatId;
 
@@ -87,16 +85,7 @@ public class ChatMembersViewModel extends AndroidViewModel {
                 url,
                 null,
                 this::handleSuccess,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                // add headers <key,value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -108,7 +97,7 @@ public class ChatMembersViewModel extends AndroidViewModel {
                 .addToRequestQueue(request);
     }
 
-    public void connectMember(final int memberId, final String jwt) {
+    public void connectMember(final int memberId) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "chatrooms/username/" + memberId;
 
@@ -117,16 +106,7 @@ public class ChatMembersViewModel extends AndroidViewModel {
                 url,
                 null,
                 this::handleUsername,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                // add headers <key,value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -138,7 +118,7 @@ public class ChatMembersViewModel extends AndroidViewModel {
                 .addToRequestQueue(request);
     }
 
-    public void connectRemoveUser(final int chatId, final String name, final String jwt) {
+    public void connectRemoveUser(final int chatId, final String name) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "chatrooms/admin/" + chatId + "/" + name;
 
@@ -147,16 +127,7 @@ public class ChatMembersViewModel extends AndroidViewModel {
                 url,
                 null,
                 mResponse::setValue,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                // add headers <key,value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -168,7 +139,7 @@ public class ChatMembersViewModel extends AndroidViewModel {
                 .addToRequestQueue(request);
     }
 
-    public void connectDeleteChat(final int chatId, final String jwt) {
+    public void connectDeleteChat(final int chatId) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "chatrooms/chat/" + chatId;
 
@@ -177,16 +148,7 @@ public class ChatMembersViewModel extends AndroidViewModel {
                 url,
                 null,
                 mResponse::setValue,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                // add headers <key,value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -222,7 +184,7 @@ public class ChatMembersViewModel extends AndroidViewModel {
                         6);
                 list.add(member);
             }
-            Collections.sort(list);
+            Contact.sort(list);
             getOrCreateMapEntry(response.getInt("chatId")).setValue(list);
         } catch (JSONException e) {
             Log.e("JSON PARSE ERROR", "Found in handle Success ChatMembersViewModel");
@@ -0,0 +1,146 @@
+package edu.uw.tcss450.groupchat.model.chats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps track of which stretches of a single chat room's history have been loaded.
+ *
+ * Message ids are shared across every chat room, so two ids being numerically next to each
+ * other says nothing about whether they are next to each other in a room. A range is only
+ * grown or merged when a page from the web service proves it is contiguous, everything
+ * between two ranges is a gap that still has to be fetched.
+ *
+ * @version January, 2021
+ */
+public class ChatMessageRanges {
+
+    /** Loaded ranges keyed by their lowest message id, mapped to their highest message id. */
+    private final TreeMap<Integer, Integer> mRanges;
+
+    private boolean mHasOldest;
+
+    /**
+     * Constructor to initialize an empty set of ranges.
+     */
+    public ChatMessageRanges() {
+        mRanges = new TreeMap<>();
+        mHasOldest = false;
+    }
+
+    /**
+     * Records a contiguous run of messages, merging it with any range it overlaps.
+     *
+     * @param low the lowest message id in the run
+     * @param high the highest message id in the run
+     */
+    public void add(final int low, final int high) {
+        int newLow = Math.min(low, high);
+        int newHigh = Math.max(low, high);
+
+        Map.Entry<Integer, Integer> below = mRanges.floorEntry(newLow);
+        if (below != null && below.getValue() >= newLow) {
+            newLow = below.getKey();
+            newHigh = Math.max(newHigh, below.getValue());
+            mRanges.remove(below.getKey());
+        }
+
+        Map.Entry<Integer, Integer> above = mRanges.ceilingEntry(newLow);
+        while (above != null && above.getKey() <= newHigh) {
+            newHigh = Math.max(newHigh, above.getValue());
+            mRanges.remove(above.getKey());
+            above = mRanges.ceilingEntry(newLow);
+        }
+        mRanges.put(newLow, newHigh);
+    }
+
+    /**
+     * Records a page that was loaded going back in time from the range starting at the
+     * passed message id. The page and that range are contiguous, so they become one range.
+     *
+     * @param beforeId the lowest message id of the range the page was requested from
+     * @param low the lowest message id in the page
+     */
+    public void addBefore(final int beforeId, final int low) {
+        Integer high = mRanges.get(beforeId);
+        if (high == null) {
+            add(low, beforeId - 1);
+        } else {
+            mRanges.remove(beforeId);
+            add(low, high);
+        }
+    }
+
+    /**
+     * Extends the newest range to include a message that arrived after it.
+     *
+     * @param messageId the id of the new message
+     */
+    public void extendNewest(final int messageId) {
+        if (mRanges.isEmpty()) {
+            mRanges.put(messageId, messageId);
+        } else if (!contains(messageId)) {
+            Map.Entry<Integer, Integer> newest = mRanges.lastEntry();
+            mRanges.put(newest.getKey(), Math.max(newest.getValue(), messageId));
+        }
+    }
+
+    /**
+     * Returns whether the message id falls inside a loaded range.
+     *
+     * @param messageId the message id to check
+     * @return true if the message is in a loaded range, false otherwise
+     */
+    public boolean contains(final int messageId) {
+        Map.Entry<Integer, Integer> range = mRanges.floorEntry(messageId);
+        return range != null && range.getValue() >= messageId;
+    }
+
+    /**
+     * Returns the lowest message id of every range that has a gap below it. Fetching the
+     * page before each of these ids is what fills the gaps in.
+     *
+     * @return the lower edges of the ranges bordering a gap, lowest first
+     */
+    public List<Integer> getGapEdges() {
+        List<Integer> edges = new ArrayList<>(mRanges.keySet());
+        if (!edges.isEmpty()) edges.remove(0);
+        return edges;
+    }
+
+    /**
+     * Returns the lowest message id loaded so far.
+     *
+     * @return the oldest loaded message id, or -1 if nothing is loaded
+     */
+    public int getOldest() {
+        return mRanges.isEmpty() ? -1 : mRanges.firstKey();
+    }
+
+    /**
+     * Returns whether there is more than one range, meaning at least one gap.
+     *
+     * @return true if the history has gaps, false otherwise
+     */
+    public boolean hasGaps() {
+        return mRanges.size() > 1;
+    }
+
+    /**
+     * Returns whether the start of the chat room's history has been reached.
+     *
+     * @return true if there are no older messages to load, false otherwise
+     */
+    public boolean hasOldest() {
+        return mHasOldest;
+    }
+
+    /**
+     * Marks the start of the chat room's history as reached.
+     */
+    public void setHasOldest() {
+        mHasOldest = true;
+    }
+}
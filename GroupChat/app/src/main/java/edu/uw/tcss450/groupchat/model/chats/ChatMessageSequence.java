@@ -0,0 +1,120 @@
+package edu.uw.tcss450.groupchat.model.chats;
+
+import java.util.TreeMap;
+
+/**
+ * Keeps track of the sequence numbers of the messages pushed to a single chat room.
+ *
+ * The web service numbers each room's messages one after the other, so a pushed message
+ * whose number is further ahead than the next one expected means the pushes in between
+ * were dropped or are late. Messages that arrive ahead are held by number until the ones
+ * before them turn up, at which point the run is contiguous again.
+ *
+ * @version January, 2021
+ */
+public class ChatMessageSequence {
+
+    /** The message is the next one expected, or carries no sequence number. */
+    public static final int IN_ORDER = 0;
+
+    /** The message is ahead of the next one expected, leaving a new gap before it. */
+    public static final int GAP = 1;
+
+    /** The message follows one that arrived ahead, so the gap before them is known. */
+    public static final int AHEAD = 2;
+
+    /** The message is behind the next one expected, its gap was already given up on. */
+    public static final int LATE = 3;
+
+    /** Message ids of the messages that arrived ahead, by their sequence number. */
+    private final TreeMap<Integer, Integer> mAhead;
+
+    /** The sequence number expected next, or -1 before the first message. */
+    private int mNext;
+
+    /** The highest message id of the contiguous run. */
+    private int mContiguousId;
+
+    /**
+     * Constructor to start tracking a chat room from its next pushed message.
+     */
+    public ChatMessageSequence() {
+        mAhead = new TreeMap<>();
+        mNext = -1;
+        mContiguousId = -1;
+    }
+
+    /**
+     * Records a pushed message and says where it fell in the sequence.
+     *
+     * @param sequence the message's sequence number in the room, or -1 if it has none
+     * @param messageId the id of the message
+     * @return {@link #IN_ORDER}, {@link #GAP}, {@link #AHEAD} or {@link #LATE}
+     */
+    public int offer(final int sequence, final int messageId) {
+        if (sequence < 0) return IN_ORDER;
+        if (mNext == -1) {
+            mNext = sequence + 1;
+            mContiguousId = messageId;
+            return IN_ORDER;
+        }
+        if (sequence > mNext) {
+            mAhead.put(sequence, messageId);
+            return sequence - 1 > mNext && mAhead.containsKey(sequence - 1) ? AHEAD : GAP;
+        }
+        if (sequence < mNext) return LATE;
+
+        mContiguousId = Math.max(mContiguousId, messageId);
+        mNext++;
+        drain();
+        return IN_ORDER;
+    }
+
+    /**
+     * Gives up waiting for the pushes before a sequence number, for when the messages they
+     * carry were fetched from the web service instead.
+     *
+     * @param sequence the sequence number of the first message after the gap
+     */
+    public void skipTo(final int sequence) {
+        if (mNext == -1 || sequence <= mNext) return;
+        // anything held before the gap belongs to the run as well
+        for (int id : mAhead.headMap(sequence).values()) {
+            mContiguousId = Math.max(mContiguousId, id);
+        }
+        mAhead.headMap(sequence).clear();
+        mNext = sequence;
+        drain();
+    }
+
+    /**
+     * Returns the message id of a message that arrived ahead and is still held.
+     *
+     * @param sequence the sequence number of the message
+     * @return the message id, or -1 if no such message is held
+     */
+    public int getAheadId(final int sequence) {
+        Integer id = mAhead.get(sequence);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Moves the messages held right after the contiguous run into it.
+     */
+    private void drain() {
+        Integer ahead;
+        while ((ahead = mAhead.remove(mNext)) != null) {
+            mContiguousId = Math.max(mContiguousId, ahead);
+            mNext++;
+        }
+    }
+
+    /**
+     * Returns the highest message id of the contiguous run.
+     *
+     * @return the message id, or -1 before the first message
+     */
+    public int getContiguousId() {
+        return mContiguousId;
+    }
+}
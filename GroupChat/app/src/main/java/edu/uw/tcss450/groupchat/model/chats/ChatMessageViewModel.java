@@ -1,6 +1,8 @@
 package edu.uw.tcss450.groupchat.model.chats;
 
 import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -11,6 +13,7 @@ import androidx.lifecycle.Observer;
 
 import com.android.volley.DefaultRetryPolicy;
 import com.android.volley.Request;
+import com.android.volley.Response;
 import com.android.volley.VolleyError;
 import com.android.volley.toolbox.JsonObjectRequest;
 
@@ -21,14 +24,22 @@ import org.json.JSONObject;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import edu.uw.tcss450.groupchat.R;
+import edu.uw.tcss450.groupchat.io.ChatMessageIndex;
+import edu.uw.tcss450.groupchat.io.ChatMessageStore;
 import edu.uw.tcss450.groupchat.io.RequestQueueSingleton;
 import edu.uw.tcss450.groupchat.ui.chats.ChatMessage;
+import edu.uw.tcss450.groupchat.ui.chats.ChatMessageRenderCache;
 
 /**
  * This view model holds the messages for each chat room.
@@ -37,8 +48,51 @@ import edu.uw.tcss450.groupchat.ui.chats.ChatMessage;
  */
 public class ChatMessageViewModel extends AndroidViewModel {
 
+    /** How many positions away from the visible messages a gap starts loading. */
+    private static final int GAP_PREFETCH_DISTANCE = 5;
+
+    /** The most results a message search returns. */
+    private static final int SEARCH_LIMIT = 50;
+
+    /** How many messages are loaded around an anchored message, about half on each side. */
+    private static final int ANCHOR_PAGE_SIZE = 20;
+
+    /**
+     * The order of every chat room's list, oldest first. Message ids grow over time, so this
+     * is the order the messages were sent in, the same one the loaded ranges are kept in.
+     */
+    private static final Comparator<ChatMessage> BY_ID =
+            (a, b) -> Integer.compare(a.getMessageId(), b.getMessageId());
+
     private Map<Integer, MutableLiveData<List<ChatMessage>>> mMessages;
 
+    private Map<Integer, ChatMessageRanges> mRanges;
+
+    /** The ids of the messages in each chat room's list, so duplicates are found at once. */
+    private Map<Integer, Set<Integer>> mIds;
+
+    private Map<Integer, ChatMessageSequence> mSequences;
+
+    /** The sequence number each gap fetch of a chat room is for, by the id it pages back from. */
+    private Map<Integer, Map<Integer, Integer>> mGapFetches;
+
+    /** The page requests in flight of each chat room, by the id they page back from. */
+    private Map<Integer, Map<Integer, Request<?>>> mPending;
+
+    /** The message each chat room is waiting to anchor on, until the page holding it loads. */
+    private Map<Integer, Integer> mPendingAnchors;
+
+    private Map<Integer, MutableLiveData<Integer>> mAnchors;
+
+    private MutableLiveData<List<ChatMessageIndex.Result>> mSearchResults;
+
+    /** Messages shown from the local store until the first page arrives, by chat id. */
+    private Map<Integer, List<ChatMessage>> mStored;
+
+    private final ExecutorService mIndexExecutor;
+
+    private final Handler mHandler;
+
     /**
      * Constructor for the view model.
      *
@@ -47,6 +101,17 @@ public class ChatMessageViewModel extends AndroidViewModel {
     public ChatMessageViewModel(@NonNull Application application) {
         super(application);
         mMessages = new HashMap<>();
+        mRanges = new HashMap<>();
+        mIds = new HashMap<>();
+        mSequences = new HashMap<>();
+        mGapFetches = new HashMap<>();
+        mPending = new HashMap<>();
+        mPendingAnchors = new HashMap<>();
+        mAnchors = new HashMap<>();
+        mSearchResults = new MutableLiveData<>(new ArrayList<>());
+        mStored = new HashMap<>();
+        mIndexExecutor = Executors.newSingleThreadExecutor();
+        mHandler = new Handler(Looper.getMainLooper());
     }
 
     /**
@@ -76,6 +141,58 @@ public class ChatMessageViewModel extends AndroidViewModel {
         return getOrCreateMapEntry(chatId).getValue();
     }
 
+    /**
+     * Register as an observer to listen for a chat room's anchored message. The observer
+     * receives the message id once the page holding it is loaded.
+     * @param chatId the chatid of the chat to observe
+     * @param owner the fragments lifecycle owner
+     * @param observer the observer
+     */
+    public void addAnchorObserver(int chatId,
+                                  @NonNull LifecycleOwner owner,
+                                  @NonNull Observer<? super Integer> observer) {
+        getOrCreateAnchorEntry(chatId).observe(owner, observer);
+    }
+
+    /**
+     * Register as an observer to listen for message search results.
+     * @param owner the fragments lifecycle owner
+     * @param observer the observer
+     */
+    public void addSearchObserver(@NonNull LifecycleOwner owner,
+                                  @NonNull Observer<? super List<ChatMessageIndex.Result>> observer) {
+        mSearchResults.observe(owner, observer);
+    }
+
+    /**
+     * Searches every message received so far on the device, without going to the web
+     * service. Each word of the query matches as a prefix. Observers added with
+     * addSearchObserver() receive the ranked results.
+     *
+     * @param query the words to search for
+     * @param chatId the chat room to search, or -1 to search every room
+     */
+    public void search(final String query, final int chatId) {
+        ChatMessageIndex index = ChatMessageIndex.getInstance(getApplication());
+        mIndexExecutor.execute(() ->
+                mSearchResults.postValue(index.search(query, chatId, SEARCH_LIMIT)));
+    }
+
+    /**
+     * Returns the position of a message in the chat room's list of messages.
+     *
+     * @param chatId the id of the chat room
+     * @param messageId the id of the message to find
+     * @return the position of the message, or -1 if it is not loaded
+     */
+    public int getPositionOf(final int chatId, final int messageId) {
+        List<ChatMessage> list = getMessageListByChatId(chatId);
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).getMessageId() == messageId) return i;
+        }
+        return -1;
+    }
+
     /**
      * Makes a request to the web service to get the first batch of messages for a given Chat Room.
      * Parses the response and adds the ChatMessage object to the List associated with the
@@ -84,37 +201,14 @@ public class ChatMessageViewModel extends AndroidViewModel {
      * Subsequent requests to the web service for a given chat room should be made from
      * getNextMessages()
      *
+     * While the request is made, any messages of the room in the local store are shown, so
+     * a room pushed to while the app was closed renders without waiting on the network.
+     *
      * @param chatId the chat room id to request messages of
-     * @param jwt the user's signed JWT
      */
-    public void getFirstMessages(final int chatId, final String jwt) {
-        String url = getApplication().getResources().getString(R.string.base_url)
-                + "messages/" + chatId;
-
-        Request request = new JsonObjectRequest(
-                Request.Method.GET,
-                url,
-                null, //no body for this get request
-                this::handleSuccess,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                // add headers <key,value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
-
-        request.setRetryPolicy(new DefaultRetryPolicy(
-                10_000,
-                DefaultRetryPolicy.DEFAULT_MAX_RETRIES,
-                DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
-
-        //Instantiate the RequestQueue and add the request to the queue
-        RequestQueueSingleton.getInstance(getApplication().getApplicationContext())
-                .addToRequestQueue(request);
+    public void getFirstMessages(final int chatId) {
+        if (getMessageListByChatId(chatId).isEmpty()) showStored(chatId);
+        requestPage(chatId, -1);
     }
 
     /**
@@ -127,49 +221,205 @@ public class ChatMessageViewModel extends AndroidViewModel {
      * Subsequent calls to this method receive earlier and earlier messages.
      *
      * @param chatId the chat room id to request messages of
-     * @param jwt the users signed JWT
      */
-    public void getNextMessages(final int chatId, final String jwt) {
+    public void getNextMessages(final int chatId) {
+        requestPage(chatId, mMessages.get(chatId).getValue().get(0).getMessageId());
+    }
+
+    /**
+     * Makes a request to the web service to get the messages around the given message, about
+     * half a page on each side, without loading everything in between. The page is kept as
+     * its own range and the gap between it and the newer messages is filled in by
+     * loadGapsNear() as the user scrolls.
+     *
+     * Observers added with addAnchorObserver() are told once the message is loaded.
+     *
+     * @param chatId the chat room id to request messages of
+     * @param messageId the id of the message to anchor on
+     */
+    public void getMessagesAround(final int chatId, final int messageId) {
+        if (getOrCreateRangesEntry(chatId).contains(messageId)) {
+            getOrCreateAnchorEntry(chatId).setValue(messageId);
+        } else {
+            mPendingAnchors.put(chatId, messageId);
+            requestAround(chatId, messageId);
+        }
+    }
+
+    /**
+     * Fills in any gap in the loaded messages that borders the visible part of the list.
+     * Each gap is filled one page at a time from the range above it.
+     *
+     * @param chatId the chat room id the list belongs to
+     * @param first the position of the first visible message
+     * @param last the position of the last visible message
+     */
+    public void loadGapsNear(final int chatId, final int first, final int last) {
+        ChatMessageRanges ranges = getOrCreateRangesEntry(chatId);
+        if (!ranges.hasGaps()) return;
+
+        for (int edge : ranges.getGapEdges()) {
+            int position = getPositionOf(chatId, edge);
+            if (position >= first - GAP_PREFETCH_DISTANCE
+                    && position <= last + GAP_PREFETCH_DISTANCE) {
+                requestPage(chatId, edge);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the loaded messages of a chat room have gaps in them.
+     *
+     * @param chatId the id of the chat room
+     * @return true if there are gaps, false otherwise
+     */
+    public boolean hasGaps(final int chatId) {
+        return getOrCreateRangesEntry(chatId).hasGaps();
+    }
+
+    /**
+     * Returns whether the first message of a chat room has been loaded, so there is nothing
+     * older to ask the web service for.
+     *
+     * @param chatId the id of the chat room
+     * @return true if the start of the history is loaded, false otherwise
+     */
+    public boolean hasOldest(final int chatId) {
+        return getOrCreateRangesEntry(chatId).hasOldest();
+    }
+
+    /**
+     * When a chat message is received externally to this ViewModel, add it
+     * with this method.
+     *
+     * Messages already in the list are dropped, and late ones are put in their place. A
+     * message whose sequence number shows pushes before it are missing fetches the page
+     * before it, unless those pushes turn up first.
+     *
+     * @param chatId the id of the chat room to add to
+     * @param message the ChatMessage to add
+     * @param sequence the message's sequence number in the room, or -1 if it has none
+     * @return false if the message was already in the list
+     */
+    public boolean addMessage(final int chatId, final ChatMessage message, final int sequence) {
+        int messageId = message.getMessageId();
+        if (!getOrCreateIdsEntry(chatId).add(messageId)) return false;
+
+        List<ChatMessage> list = getMessageListByChatId(chatId);
+        int position = Collections.binarySearch(list, message, BY_ID);
+        list.add(position < 0 ? -position - 1 : position, message);
+
+        ChatMessageRanges ranges = getOrCreateRangesEntry(chatId);
+        ChatMessageSequence sequences = getOrCreateSequenceEntry(chatId);
+        int contiguous = sequences.getContiguousId();
+        switch (sequences.offer(sequence, messageId)) {
+            case ChatMessageSequence.GAP:
+                // its own range until the page before it proves what is in between
+                ranges.add(messageId, messageId);
+                getOrCreateGapFetchEntry(chatId).put(messageId, sequence);
+                requestPage(chatId, messageId);
+                break;
+            case ChatMessageSequence.AHEAD:
+                ranges.add(sequences.getAheadId(sequence - 1), messageId);
+                break;
+            case ChatMessageSequence.LATE:
+                // its own range, merged into whatever page already covers it
+                ranges.add(messageId, messageId);
+                break;
+            default:
+                if (sequence < 0 || contiguous == -1) {
+                    ranges.extendNewest(messageId);
+                } else {
+                    ranges.add(contiguous, sequences.getContiguousId());
+                }
+        }
+
+        prepareMessages(chatId, Collections.singletonList(message));
+        storeMessages(chatId, Collections.singletonList(message));
+        getOrCreateMapEntry(chatId).setValue(list);
+        return true;
+    }
+
+    /**
+     * Shows the messages of a chat room kept in the local store, if the first page has not
+     * arrived by the time they are read.
+     */
+    private void showStored(final int chatId) {
+        ChatMessageStore store = ChatMessageStore.getInstance(getApplication());
+        mIndexExecutor.execute(() -> {
+            List<ChatMessage> stored = store.getMessages(chatId);
+            if (stored.isEmpty()) return;
+            Collections.reverse(stored);
+            mHandler.post(() -> {
+                List<ChatMessage> list = getMessageListByChatId(chatId);
+                if (!list.isEmpty()) return;
+                list.addAll(stored);
+                Set<Integer> ids = getOrCreateIdsEntry(chatId);
+                for (ChatMessage message : stored) ids.add(message.getMessageId());
+                mStored.put(chatId, stored);
+                ChatMessageRenderCache.getInstance().prepare(stored);
+                getOrCreateMapEntry(chatId).setValue(list);
+            });
+        });
+    }
+
+    private void storeMessages(final int chatId, final List<ChatMessage> messages) {
+        ChatMessageStore store = ChatMessageStore.getInstance(getApplication());
+        mIndexExecutor.execute(() -> store.addMessages(chatId, messages));
+    }
+
+    private void requestPage(final int chatId, final int beforeId) {
         String url = getApplication().getResources().getString(R.string.base_url)
-                + "messages/" + chatId + "/"
-                + mMessages.get(chatId).getValue().get(0).getMessageId();
+                + "messages/" + chatId;
+        if (beforeId > 0) url += "/" + beforeId;
+        request(chatId, beforeId, url, response -> handleSuccess(beforeId, -1, response));
+    }
+
+    private void requestAround(final int chatId, final int messageId) {
+        String url = getApplication().getResources().getString(R.string.base_url)
+                + "messages/" + chatId + "?around=" + messageId + "&limit=" + ANCHOR_PAGE_SIZE;
+        // pages are keyed by the positive id they page back from or -1, keep clear of both
+        request(chatId, -messageId - 1, url, response -> handleSuccess(0, messageId, response));
+    }
+
+    private void request(final int chatId, final int key, final String url,
+                         final Response.Listener<JSONObject> listener) {
+        Map<Integer, Request<?>> pending = getOrCreatePendingEntry(chatId);
+        Request<?> inFlight = pending.get(key);
+        if (inFlight != null && !inFlight.isCanceled()) {
+            // this page is already on its way
+            return;
+        }
 
         Request request = new JsonObjectRequest(
                 Request.Method.GET,
                 url,
                 null, //no body for this get request
-                this::handleSuccess,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                // add headers <key,value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                response -> {
+                    pending.remove(key);
+                    listener.onResponse(response);
+                },
+                error -> {
+                    pending.remove(key);
+                    handleError(error);
+                });
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
                 DefaultRetryPolicy.DEFAULT_MAX_RETRIES,
                 DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
 
+        // a page cancelled with the screen that asked for it may be asked for again
+        pending.put(key, request);
         //Instantiate the RequestQueue and add the request to the queue
         RequestQueueSingleton.getInstance(getApplication().getApplicationContext())
                 .addToRequestQueue(request);
     }
 
-    /**
-     * When a chat message is received externally to this ViewModel, add it
-     * with this method.
-     * @param chatId the id of the chat room to add to
-     * @param message the ChatMessage to add
-     */
-    public void addMessage(final int chatId, final ChatMessage message) {
-        List<ChatMessage> list = getMessageListByChatId(chatId);
-        list.add(message);
-        getOrCreateMapEntry(chatId).setValue(list);
+    private void prepareMessages(final int chatId, final List<ChatMessage> messages) {
+        ChatMessageRenderCache.getInstance().prepare(messages);
+        ChatMessageIndex index = ChatMessageIndex.getInstance(getApplication());
+        mIndexExecutor.execute(() -> index.addMessages(chatId, messages));
     }
 
     private MutableLiveData<List<ChatMessage>> getOrCreateMapEntry(final int chatId) {
@@ -179,13 +429,67 @@ public class ChatMessageViewModel extends AndroidViewModel {
         return mMessages.get(chatId);
     }
 
-    private void handleSuccess(final JSONObject response) {
+    private ChatMessageRanges getOrCreateRangesEntry(final int chatId) {
+        if (!mRanges.containsKey(chatId)) {
+            mRanges.put(chatId, new ChatMessageRanges());
+        }
+        return mRanges.get(chatId);
+    }
+
+    private Set<Integer> getOrCreateIdsEntry(final int chatId) {
+        if (!mIds.containsKey(chatId)) {
+            mIds.put(chatId, new HashSet<>());
+        }
+        return mIds.get(chatId);
+    }
+
+    private ChatMessageSequence getOrCreateSequenceEntry(final int chatId) {
+        if (!mSequences.containsKey(chatId)) {
+            mSequences.put(chatId, new ChatMessageSequence());
+        }
+        return mSequences.get(chatId);
+    }
+
+    private Map<Integer, Integer> getOrCreateGapFetchEntry(final int chatId) {
+        if (!mGapFetches.containsKey(chatId)) {
+            mGapFetches.put(chatId, new HashMap<>());
+        }
+        return mGapFetches.get(chatId);
+    }
+
+    private Map<Integer, Request<?>> getOrCreatePendingEntry(final int chatId) {
+        if (!mPending.containsKey(chatId)) {
+            mPending.put(chatId, new HashMap<>());
+        }
+        return mPending.get(chatId);
+    }
+
+    private MutableLiveData<Integer> getOrCreateAnchorEntry(final int chatId) {
+        if (!mAnchors.containsKey(chatId)) {
+            mAnchors.put(chatId, new MutableLiveData<>());
+        }
+        return mAnchors.get(chatId);
+    }
+
+    private void handleSuccess(final int beforeId, final int anchorId, final JSONObject response) {
         List<ChatMessage> list;
         if (!response.has("chatId")) {
             throw new IllegalStateException("Unexpected response in ChatMessageViewModel: " + response);
         }
         try {
-            list = getMessageListByChatId(response.getInt("chatId"));
+            int chatId = response.getInt("chatId");
+            list = getMessageListByChatId(chatId);
+            Set<Integer> ids = getOrCreateIdsEntry(chatId);
+            List<ChatMessage> stored = mStored.remove(chatId);
+            if (stored != null) {
+                // the stored messages were only shown until the web service answered
+                list.removeAll(stored);
+                for (ChatMessage message : stored) ids.remove(message.getMessageId());
+            }
+            ChatMessageRanges ranges = getOrCreateRangesEntry(chatId);
+            int low = Integer.MAX_VALUE;
+            int high = Integer.MIN_VALUE;
+            List<ChatMessage> received = new ArrayList<>();
             JSONArray messages = response.getJSONArray("rows");
             for(int i = 0; i < messages.length(); i++) {
                 JSONObject message = messages.getJSONObject(i);
@@ -195,7 +499,10 @@ public class ChatMessageViewModel extends AndroidViewModel {
                         message.getString("username"),
                         message.getString("timestamp")
                 );
-                if (!list.contains(cMessage)) {
+                low = Math.min(low, cMessage.getMessageId());
+                high = Math.max(high, cMessage.getMessageId());
+                received.add(cMessage);
+                if (ids.add(cMessage.getMessageId())) {
                     // don't add a duplicate
                     list.add(cMessage);
                 } else {
@@ -205,16 +512,51 @@ public class ChatMessageViewModel extends AndroidViewModel {
                             "Or duplicate id:" + cMessage.getMessageId());
                 }
             }
-            Collections.sort(list);
-            Collections.reverse(list);
+
+            if (anchorId > 0) {
+                // the page around an anchor proves nothing about the start of the history
+                if (messages.length() > 0) ranges.add(low, high);
+            } else if (messages.length() == 0) {
+                // nothing older than the requested id, unless a gap was being filled
+                if (ranges.getOldest() == -1 || beforeId <= ranges.getOldest()) {
+                    ranges.setHasOldest();
+                }
+            } else if (beforeId > 0) {
+                ranges.addBefore(beforeId, low);
+            } else {
+                ranges.add(low, high);
+            }
+
+            Map<Integer, Integer> gaps = mGapFetches.get(chatId);
+            Integer sequence = gaps == null ? null : gaps.remove(beforeId);
+            if (sequence != null) {
+                // the missing messages came with the page, stop waiting for their pushes
+                getOrCreateSequenceEntry(chatId).skipTo(sequence);
+            }
+
+            Collections.sort(list, BY_ID);
             //inform observers of the change (setValue)
-            getOrCreateMapEntry(response.getInt("chatId")).setValue(list);
+            getOrCreateMapEntry(chatId).setValue(list);
+            prepareMessages(chatId, received);
+            if (beforeId == -1) storeMessages(chatId, received);
+
+            Integer anchor = mPendingAnchors.get(chatId);
+            if (anchor != null && ranges.contains(anchor)) {
+                mPendingAnchors.remove(chatId);
+                getOrCreateAnchorEntry(chatId).setValue(anchor);
+            }
         }catch (JSONException e) {
             Log.e("JSON PARSE ERROR", "Found in handle Success ChatMessageViewModel");
             Log.e("JSON PARSE ERROR", "Error: " + e.getMessage());
         }
     }
 
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        mIndexExecutor.shutdown();
+    }
+
     private void handleError(final VolleyError error) {
         if (Objects.isNull(error.networkResponse)) {
             Log.e("NETWORK ERROR", error.getMessage());
@@ -1,55 +1,46 @@
 package edu.uw.tcss450.groupchat.model.chats;
 
+import android.app.Application;
+
 import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LifecycleOwner;
-import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Observer;
-import androidx.lifecycle.ViewModel;
 
-import java.util.HashMap;
 import java.util.Map;
 
+import edu.uw.tcss450.groupchat.io.BadgeCounterStore;
+import edu.uw.tcss450.groupchat.services.ChatNotificationAggregator;
+
 /**
- * View Model for new incoming chat messages.
+ * View Model for new incoming chat messages. The counts are kept in the
+ * {@link BadgeCounterStore}, so they are shared with the bottom navigation badges.
  *
  * @version December 4, 2020
  */
-public class ChatNotificationsViewModel extends ViewModel {
-
-    private MutableLiveData<Map<Integer, Integer>> mNewMessageCount;
+public class ChatNotificationsViewModel extends AndroidViewModel {
 
-    private MutableLiveData<Integer> mNewChatCount;
+    private final BadgeCounterStore mCounters;
 
     /**
      * Constructor to initialize the data structure.
+     *
+     * @param application the application
      */
-    public ChatNotificationsViewModel() {
-        mNewMessageCount = new MutableLiveData<>();
-        mNewMessageCount.setValue(new HashMap<>());
-        mNewChatCount = new MutableLiveData<>();
-        mNewChatCount.setValue(0);
+    public ChatNotificationsViewModel(@NonNull Application application) {
+        super(application);
+        mCounters = BadgeCounterStore.getInstance(application);
     }
 
     /**
-     * Add observer for receiving the server's responses.
+     * Add observer for receiving the new message count of every chat room.
      *
      * @param owner The Lifecycle owner that will control the observer
      * @param observer The observer that will receive the events
      */
     public void addMessageCountObserver(@NonNull LifecycleOwner owner,
                                         @NonNull Observer<? super Map<Integer, Integer>> observer) {
-        mNewMessageCount.observe(owner, observer);
-    }
-
-    /**
-     * Add observer for receiving the server's responses.
-     *
-     * @param owner The Lifecycle owner that will control the observer
-     * @param observer The observer that will receive the events
-     */
-    public void addChatCountObserver(@NonNull LifecycleOwner owner,
-                                     @NonNull Observer<? super Integer> observer) {
-        mNewChatCount.observe(owner, observer);
+        mCounters.getRoomCounts().observe(owner, observer);
     }
 
     /**
@@ -58,56 +49,30 @@ public class ChatNotificationsViewModel extends ViewModel {
      * @param chatId The chat ID of the chat room
      */
     public void increment(int chatId) {
-        if (!mNewMessageCount.getValue().containsKey(chatId)) {
-            mNewMessageCount.getValue().put(chatId, 0);
-        }
-        mNewMessageCount.getValue().put(chatId, mNewMessageCount.getValue().get(chatId) + 1);
-        mNewMessageCount.setValue(mNewMessageCount.getValue());
+        mCounters.incrementRoom(chatId);
     }
 
     /**
      * Increment new chat room count.
      */
     public void incrementChat() {
-        mNewChatCount.setValue(mNewChatCount.getValue() + 1);
+        mCounters.incrementChats();
     }
 
     /**
-     * Reset new message count of the specified chat room.
+     * Reset new message count of the specified chat room, and remove its notification.
      *
      * @param chatId The chat ID of the chat room
      */
     public void reset(int chatId) {
-        mNewMessageCount.getValue().put(chatId, 0);
-        mNewMessageCount.setValue(mNewMessageCount.getValue());
+        mCounters.resetRoom(chatId);
+        ChatNotificationAggregator.getInstance(getApplication()).clear(chatId);
     }
 
     /**
      * Reset new chat room count.
      */
     public void resetChat() {
-        mNewChatCount.setValue(0);
-    }
-
-    /**
-     * Returns the total number of new messages.
-     *
-     * @return total number of new messages
-     */
-    public int getNewMessageCount() {
-        int total = 0;
-        for (int chatId : mNewMessageCount.getValue().keySet()) {
-            total += mNewMessageCount.getValue().get(chatId);
-        }
-        return total;
-    }
-
-    /**
-     * Returns the total number of new chat rooms.
-     *
-     * @return total number of new chats
-     */
-    public int getNewChatCount() {
-        return mNewChatCount.getValue();
+        mCounters.resetChats();
     }
 }
@@ -14,7 +14,6 @@ import com.android.volley.DefaultRetryPolicy;
 import com.android.volley.Request;
 import com.android.volley.VolleyError;
 import com.android.volley.toolbox.JsonObjectRequest;
-import com.android.volley.toolbox.Volley;
 import com.google.android.material.snackbar.Snackbar;
 
 import org.json.JSONArray;
@@ -36,6 +35,7 @@ import java.util.stream.Collectors;
 import edu.uw.tcss450.groupchat.R;
 import edu.uw.tcss450.groupchat.databinding.FragmentChatMainBinding;
 import edu.uw.tcss450.groupchat.io.RequestQueueSingleton;
+import edu.uw.tcss450.groupchat.io.SessionSnapshot;
 import edu.uw.tcss450.groupchat.io.VolleyMultipartRequest;
 import edu.uw.tcss450.groupchat.ui.chats.ChatMessage;
 import edu.uw.tcss450.groupchat.ui.chats.ChatRoom;
@@ -57,6 +57,13 @@ public class ChatRoomViewModel extends AndroidViewModel {
 
     private MutableLiveData<Integer> mCurrentRoom;
 
+    private final SessionSnapshot mSnapshot;
+
+    /** Whether the rooms came from the web service yet, rather than the last session. */
+    private boolean mRoomsFetched;
+
+    private boolean mRecentFetched;
+
     /**
      * Main default constructor the this ViewModel.
      *
@@ -70,6 +77,15 @@ public class ChatRoomViewModel extends AndroidViewModel {
         mCurrentRoom = new MutableLiveData<>(-1);
         mTyping = new MutableLiveData<>(new HashMap<>());
         initRooms();
+
+        // show the last session's rooms until the web service answers
+        mSnapshot = SessionSnapshot.getInstance(application);
+        mSnapshot.get(SessionSnapshot.ROOMS, snapshot -> {
+            if (!mRoomsFetched) handleRooms(snapshot);
+        });
+        mSnapshot.get(SessionSnapshot.RECENT, snapshot -> {
+            if (!mRecentFetched) handleRecent(snapshot);
+        });
     }
 
     /**
@@ -221,9 +237,8 @@ public class ChatRoomViewModel extends AndroidViewModel {
     /**
      * Makes a request to the web service to get the list of chat rooms available to the user.
      *
-     * @param jwt the user's signed JWT
      */
-    public void connect(final String jwt) {
+    public void connect() {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "chatrooms";
 
@@ -231,17 +246,12 @@ public class ChatRoomViewModel extends AndroidViewModel {
                 Request.Method.GET,
                 url,
                 null,
-                this::handleRooms,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                response -> {
+                    mRoomsFetched = true;
+                    mSnapshot.put(SessionSnapshot.ROOMS, response);
+                    handleRooms(response);
+                },
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -255,9 +265,8 @@ public class ChatRoomViewModel extends AndroidViewModel {
     /**
      * Makes a request to the web service to get the most recently updated chat rooms.
      *
-     * @param jwt the user's signed JWT
      */
-    public void connectRecent(final String jwt) {
+    public void connectRecent() {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "chatrooms/recent";
 
@@ -265,17 +274,12 @@ public class ChatRoomViewModel extends AndroidViewModel {
                 Request.Method.GET,
                 url,
                 null,
-                this::handleRecent,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                // add headers <key,value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                response -> {
+                    mRecentFetched = true;
+                    mSnapshot.put(SessionSnapshot.RECENT, response);
+                    handleRecent(response);
+                },
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -289,10 +293,9 @@ public class ChatRoomViewModel extends AndroidViewModel {
     /**
      * Makes a request to the web service to create a new chat room.
      *
-     * @param jwt the user's signed JWT
      * @param name the name of the chat room to create
      */
-    public void connectCreate(final String jwt, final String name) {
+    public void connectCreate(final String name) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "chats";
 
@@ -308,16 +311,7 @@ public class ChatRoomViewModel extends AndroidViewModel {
                 url,
                 body, //push token found in the JSONObject body
                 mResponse::setValue,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                // add headers <key,value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -331,11 +325,10 @@ public class ChatRoomViewModel extends AndroidViewModel {
     /**
      * Makes a request to the web service to add a user to a chat room.
      *
-     * @param jwt the user's signed JWT
      * @param name the name of the user to add
      * @param chatId the chat room id to add to
      */
-    public void connectAddToChat(final String jwt, final String name, final int chatId) {
+    public void connectAddToChat(final String name, final int chatId) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "chats/" + chatId + "/" + name;
 
@@ -344,16 +337,7 @@ public class ChatRoomViewModel extends AndroidViewModel {
                 url,
                 null,
                 mResponse::setValue,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -361,16 +345,16 @@ public class ChatRoomViewModel extends AndroidViewModel {
                 DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
 
         //Instantiate the RequestQueue and add the request to the queue
-        Volley.newRequestQueue(getApplication().getApplicationContext()).add(request);
+        RequestQueueSingleton.getInstance(getApplication().getApplicationContext())
+                .addToRequestQueue(request);
     }
 
     /**
      * Makes a request to the web service to remove the user from a chat room.
      *
-     * @param jwt the user's signed JWT
      * @param roomId the chat id of the room to leave
      */
-    public void connectLeave(final String jwt, final int roomId){
+    public void connectLeave(final int roomId){
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "chats/" + roomId;
 
@@ -379,15 +363,7 @@ public class ChatRoomViewModel extends AndroidViewModel {
                 url,
                 null,
                 mResponse::setValue,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -395,10 +371,11 @@ public class ChatRoomViewModel extends AndroidViewModel {
                 DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
 
         //Instantiate the RequestQueue and add the request to the queue
-        Volley.newRequestQueue(getApplication().getApplicationContext()).add(request);
+        RequestQueueSingleton.getInstance(getApplication().getApplicationContext())
+                .addToRequestQueue(request);
     }
 
-    public void connectName(final ChatRoom room, final String name, final String jwt) {
+    public void connectName(final ChatRoom room, final String name) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "chatrooms/name";
 
@@ -415,15 +392,7 @@ public class ChatRoomViewModel extends AndroidViewModel {
                 url,
                 body,
                 mResponse::setValue,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -439,12 +408,10 @@ public class ChatRoomViewModel extends AndroidViewModel {
      * Makes a request to the Imgur web service to upload an image.
      * @param room the chat room to update
      * @param data the byte data of the image to upload
-     * @param jwt the user's signed JWT
      */
     public void uploadImage(final FragmentChatMainBinding binding,
                             final ChatRoom room,
-                            final byte[] data,
-                            final String jwt) {
+                            final byte[] data) {
         String url = "https://api.imgur.com/3/upload";
 
         VolleyMultipartRequest request = new VolleyMultipartRequest(
@@ -454,7 +421,7 @@ public class ChatRoomViewModel extends AndroidViewModel {
                     try {
                         JSONObject obj = new JSONObject(new String(response.data));
                         String imageUrl = obj.getJSONObject("data").getString("link");
-                        connectImage(binding, room, imageUrl, jwt);
+                        connectImage(binding, room, imageUrl);
                     } catch (JSONException e) {
                         Log.e("JSON Error", e.getMessage());
                         e.printStackTrace();
@@ -491,12 +458,10 @@ public class ChatRoomViewModel extends AndroidViewModel {
      * Makes a request to the web service to update the chat room's image url.
      * @param room the chat room to update
      * @param image the image url to update with
-     * @param jwt the user's signed JWT
      */
     private void connectImage(final FragmentChatMainBinding binding,
                               final ChatRoom room,
-                              final String image,
-                              final String jwt) {
+                              final String image) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "chatrooms/image";
 
@@ -525,15 +490,7 @@ public class ChatRoomViewModel extends AndroidViewModel {
                     snack.setAnchorView(binding.getRoot().getRootView().findViewById(R.id.nav_view));
                     snack.show();
                 },
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -557,11 +514,8 @@ public class ChatRoomViewModel extends AndroidViewModel {
     }
 
     private void handleRooms(final JSONObject result) {
-        for (int i = 0; i < mRooms.getValue().size(); i++) {
-            if (!mRooms.getValue().get(i).getName().startsWith("(Removed)")) {
-                mRooms.getValue().remove(mRooms.getValue().get(i));
-            }
-        }
+        // rooms from the last session are replaced too, removing by index would skip some
+        mRooms.getValue().removeIf(room -> !room.getName().startsWith("(Removed)"));
         try {
             if (result.has("rows")) {
                 JSONArray rooms = result.getJSONArray("rows");
@@ -22,9 +22,13 @@ import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
 
 import edu.uw.tcss450.groupchat.R;
+import edu.uw.tcss450.groupchat.io.ImageDimensionCache;
+import edu.uw.tcss450.groupchat.io.RealtimeChannel;
 import edu.uw.tcss450.groupchat.io.RequestQueueSingleton;
+import edu.uw.tcss450.groupchat.io.RequestScheduler;
 import edu.uw.tcss450.groupchat.io.VolleyMultipartRequest;
 
 /**
@@ -74,49 +78,42 @@ public class ChatSendViewModel extends AndroidViewModel {
      * Perform a send message HTTP request.
      *
      * @param chatId chat id integer
-     * @param jwt user token
      * @param message message content string
      */
-    public void sendMessage(final int chatId, final String jwt, final String message) {
+    public void sendMessage(final int chatId, final String message) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "messages";
 
         mStatus = "stopped";
 
+        // lets the web service drop a message that reaches it both ways
+        String ref = UUID.randomUUID().toString();
         JSONObject body = new JSONObject();
         try {
             body.put("message", message);
             body.put("chatId", chatId);
+            body.put("ref", ref);
         } catch (JSONException e) {
             e.printStackTrace();
         }
 
-        Request request = new JsonObjectRequest(
-                Request.Method.POST,
-                url,
-                body, //push token found in the JSONObject body
-                mResponse::setValue, // we get a response but do nothing with it
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                // add headers <key,value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
-
-        request.setRetryPolicy(new DefaultRetryPolicy(
-                10_000,
-                DefaultRetryPolicy.DEFAULT_MAX_RETRIES,
-                DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
-        //Instantiate the RequestQueue and add the request to the queue
-        RequestQueueSingleton.getInstance(getApplication().getApplicationContext())
-                .addToRequestQueue(request);
+        //the message is kept and sent once the network returns if the device is offline
+        Runnable write = () -> RequestScheduler.getInstance(
+                getApplication().getApplicationContext()).addWrite(
+                        Request.Method.POST,
+                        url,
+                        body,
+                        mResponse::setValue, // we get a response but do nothing with it
+                        this::handleError);
+
+        //the realtime channel hands the message back if it is not acked
+        if (!RealtimeChannel.getInstance(getApplication().getApplicationContext())
+                .send(chatId, message, ref, mResponse::setValue, write)) {
+            write.run();
+        }
     }
 
-    public void uploadImage(final byte[] data, final int chatId, final String jwt) {
+    public void uploadImage(final byte[] data, final int chatId) {
         String url = "https://api.imgur.com/3/upload";
 
         //custom volley request
@@ -125,7 +122,9 @@ public class ChatSendViewModel extends AndroidViewModel {
                     try {
                         JSONObject obj = new JSONObject(new String(response.data));
                         String imageURL = obj.getJSONObject("data").getString("link");
-                        sendMessage(chatId, jwt, imageURL);
+                        // the size is known now, so the chat never has to probe for it
+                        ImageDimensionCache.getInstance().put(imageURL, data);
+                        sendMessage(chatId, imageURL);
                     } catch (JSONException e) {
                         e.printStackTrace();
                     }
@@ -158,7 +157,12 @@ public class ChatSendViewModel extends AndroidViewModel {
                 .addToRequestQueue(volleyMultipartRequest);
     }
 
-    public void sendTypingStatus(final int chatId, final String jwt, String status) {
+    public void sendTypingStatus(final int chatId, String status) {
+        if (RealtimeChannel.getInstance(getApplication().getApplicationContext())
+                .sendTypingStatus(chatId, status)) {
+            return;
+        }
+
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "chats/typing/";
 
@@ -175,16 +179,7 @@ public class ChatSendViewModel extends AndroidViewModel {
                 url,
                 body, //push token found in the JSONObject body
                 e -> {}, // we get a response but do nothing with it
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                // add headers <key,value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
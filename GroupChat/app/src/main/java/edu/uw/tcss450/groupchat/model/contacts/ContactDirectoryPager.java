@@ -0,0 +1,230 @@
+package edu.uw.tcss450.groupchat.model.contacts;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import edu.uw.tcss450.groupchat.ui.contacts.Contact;
+
+/**
+ * Loads the user directory a page at a time as it is scrolled through.
+ *
+ * Pages are fetched by keyset, each one starting after the last username of the page before
+ * it, so a page is the same no matter how many users joined since the first one loaded.
+ * Only the most recently used pages are kept. Pages that were dropped keep their place in
+ * the list as placeholders and are loaded again when scrolled back to.
+ *
+ * @version January, 2021
+ */
+public class ContactDirectoryPager {
+
+    /** How many users are asked for per page. */
+    public static final int PAGE_SIZE = 50;
+
+    /** How many pages are kept in memory at once. */
+    private static final int MAX_PAGES = 6;
+
+    /** How close in rows to the end of the list the next page starts loading. */
+    private static final int PREFETCH_DISTANCE = 15;
+
+    private final Loader mLoader;
+
+    /** The loaded pages in order, null where a page was dropped. */
+    private final List<List<Contact>> mPages;
+
+    /** The username each page starts after, empty for the first page. */
+    private final List<String> mCursors;
+
+    /** Page numbers from least to most recently used, for choosing which to drop. */
+    private final LinkedList<Integer> mUsed;
+
+    private final Set<Integer> mLoading;
+
+    private boolean mHasMore;
+
+    /** Bumped on reset, so pages requested before it are ignored when they arrive. */
+    private int mGeneration;
+
+    /**
+     * Constructor to initialize an empty pager.
+     *
+     * @param loader fetches pages from the web service
+     */
+    public ContactDirectoryPager(final Loader loader) {
+        mLoader = loader;
+        mPages = new ArrayList<>();
+        mCursors = new ArrayList<>();
+        mUsed = new LinkedList<>();
+        mLoading = new HashSet<>();
+        mGeneration = 0;
+        clear();
+    }
+
+    /**
+     * Drops every page and loads the first one again.
+     */
+    public void reset() {
+        clear();
+        load(0);
+    }
+
+    /**
+     * Returns whether nothing has been loaded yet.
+     *
+     * @return true if the first page has not arrived, false otherwise
+     */
+    public boolean isEmpty() {
+        return mPages.size() == 1 && mPages.get(0) == null;
+    }
+
+    /**
+     * Returns whether the last page of the directory has been loaded, so every user was seen.
+     *
+     * @return true if there are no more pages, false otherwise
+     */
+    public boolean isComplete() {
+        return !mHasMore;
+    }
+
+    /**
+     * Returns the directory loaded so far, with a placeholder of type -1 for each row of a
+     * page that was dropped and is not loaded again yet.
+     *
+     * @return the rows of the directory
+     */
+    public List<Contact> getList() {
+        List<Contact> list = new ArrayList<>();
+        for (int page = 0; page < mPages.size(); page++) {
+            List<Contact> contacts = mPages.get(page);
+            if (contacts != null) {
+                list.addAll(contacts);
+            } else if (page < mPages.size() - 1) {
+                for (int row = 0; row < PAGE_SIZE; row++) {
+                    list.add(new Contact(-(page * PAGE_SIZE + row + 1), "", "", "", "", -1));
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Loads whatever the rows on screen need: dropped pages among them and, near the end of
+     * the list, the next page.
+     *
+     * @param first the first visible row
+     * @param last the last visible row
+     */
+    public void loadAround(final int first, final int last) {
+        if (first < 0 || last < first) return;
+        for (int page = first / PAGE_SIZE;
+             page <= last / PAGE_SIZE && page < mPages.size(); page++) {
+            if (mPages.get(page) == null) {
+                load(page);
+            } else {
+                touch(page);
+            }
+        }
+
+        int lastPage = mPages.size() - 1;
+        List<Contact> tail = mPages.get(lastPage);
+        if (mHasMore && tail != null
+                && last + PREFETCH_DISTANCE >= lastPage * PAGE_SIZE + tail.size()) {
+            mPages.add(null);
+            mCursors.add(lastUsername(tail));
+            load(lastPage + 1);
+        }
+    }
+
+    private void clear() {
+        mGeneration++;
+        mPages.clear();
+        mCursors.clear();
+        mUsed.clear();
+        mLoading.clear();
+        mPages.add(null);
+        mCursors.add("");
+        mHasMore = true;
+    }
+
+    private void load(final int page) {
+        if (!mLoading.add(page)) return;
+        final int generation = mGeneration;
+        mLoader.load(mCursors.get(page), PAGE_SIZE, contacts -> {
+            if (generation != mGeneration) return;
+            onPage(page, contacts);
+        });
+    }
+
+    private void onPage(final int page, final List<Contact> contacts) {
+        mLoading.remove(page);
+        if (contacts == null) {
+            // the request failed, let the next scroll try again
+            if (page == mPages.size() - 1 && page > 0) {
+                mPages.remove(page);
+                mCursors.remove(page);
+            }
+            return;
+        }
+        mPages.set(page, contacts);
+        touch(page);
+
+        if (page == mPages.size() - 1) {
+            // a web service that ignores the page size sends everything at once
+            mHasMore = contacts.size() == PAGE_SIZE;
+            if (contacts.isEmpty() && page > 0) {
+                mPages.remove(page);
+                mCursors.remove(page);
+                mUsed.remove((Integer) page);
+            }
+        }
+
+        while (mUsed.size() > MAX_PAGES) {
+            int dropped = mUsed.removeFirst();
+            // the last page is never dropped, it holds the cursor for the next one
+            if (dropped == mPages.size() - 1) {
+                mUsed.addLast(dropped);
+                continue;
+            }
+            mPages.set(dropped, null);
+        }
+    }
+
+    private void touch(final int page) {
+        mUsed.remove((Integer) page);
+        mUsed.addLast(page);
+    }
+
+    private static String lastUsername(final List<Contact> contacts) {
+        return contacts.isEmpty() ? "" : contacts.get(contacts.size() - 1).getUsername();
+    }
+
+    /**
+     * Fetches a page of the directory.
+     */
+    public interface Loader {
+
+        /**
+         * Requests the users whose usernames come after the cursor.
+         *
+         * @param after the username to start after, empty for the first page
+         * @param limit the most users to return
+         * @param callback called with the users in username order, or null on failure
+         */
+        void load(String after, int limit, Callback callback);
+    }
+
+    /**
+     * Receives a page of the directory.
+     */
+    public interface Callback {
+
+        /**
+         * Called when a page arrives.
+         *
+         * @param contacts the users in the page, or null if the request failed
+         */
+        void onPage(List<Contact> contacts);
+    }
+}
@@ -1,30 +1,34 @@
 package edu.uw.tcss450.groupchat.model.contacts;
 
+import android.app.Application;
+
 import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LifecycleOwner;
-import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Observer;
-import androidx.lifecycle.ViewModel;
 
-import java.util.HashMap;
-import java.util.Map;
+import edu.uw.tcss450.groupchat.io.BadgeCounterStore;
 
 /**
- * View Model for new incoming contact notifications.
+ * View Model for new incoming contact notifications. The counts are kept in the
+ * {@link BadgeCounterStore}, so they are shared with the bottom navigation badges.
  *
  * @version December 6, 2020
  */
-public class ContactNotificationsViewModel extends ViewModel {
+public class ContactNotificationsViewModel extends AndroidViewModel {
 
-    private Map<String, MutableLiveData<Integer>> mNewContactCount;
+    private final BadgeCounterStore mCounters;
 
     private String mSelectedTab;
 
     /**
      * Constructor to initialize the data structure.
+     *
+     * @param application the application
      */
-    public ContactNotificationsViewModel() {
-        mNewContactCount = new HashMap<>();
+    public ContactNotificationsViewModel(@NonNull Application application) {
+        super(application);
+        mCounters = BadgeCounterStore.getInstance(application);
         mSelectedTab = "";
     }
 
@@ -37,19 +41,7 @@ public class ContactNotificationsViewModel extends ViewModel {
     public void addContactCountObserver(String tab,
                                         @NonNull LifecycleOwner owner,
                                         @NonNull Observer<? super Integer> observer) {
-        getOrCreateMapEntry(tab).observe(owner, observer);
-    }
-
-    /**
-     * Returns the total number of contact notifications.
-     * @return total number of notifications
-     */
-    public int getNotificationCount() {
-        int count = 0;
-        for (String tab : mNewContactCount.keySet()) {
-            count += mNewContactCount.get(tab).getValue();
-        }
-        return count;
+        mCounters.getTabCount(tab).observe(owner, observer);
     }
 
     public String getSelectedTab() {
@@ -65,7 +57,7 @@ public class ContactNotificationsViewModel extends ViewModel {
      * @param tab the contact tab to increment notifications
      */
     public void increment(String tab) {
-        getOrCreateMapEntry(tab).setValue(getOrCreateMapEntry(tab).getValue() + 1);
+        mCounters.incrementTab(tab);
     }
 
     /**
@@ -73,13 +65,6 @@ public class ContactNotificationsViewModel extends ViewModel {
      * @param tab the contact tab to reset notifications
      */
     public void reset(String tab) {
-        getOrCreateMapEntry(tab).setValue(0);
-    }
-
-    private MutableLiveData<Integer> getOrCreateMapEntry(String tab) {
-        if (!mNewContactCount.containsKey(tab)) {
-            mNewContactCount.put(tab, new MutableLiveData<>(0));
-        }
-        return mNewContactCount.get(tab);
+        mCounters.resetTab(tab);
     }
 }
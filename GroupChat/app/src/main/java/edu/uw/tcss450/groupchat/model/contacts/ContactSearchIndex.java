@@ -0,0 +1,122 @@
+package edu.uw.tcss450.groupchat.model.contacts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import edu.uw.tcss450.groupchat.ui.contacts.Contact;
+
+/**
+ * Prefix index over the usernames, names and emails of a list of contacts.
+ *
+ * Every word of every field is kept in one sorted array, so all the words starting with a
+ * prefix sit next to each other and are found with a binary search. The index is built once
+ * per version of the list it covers and never changes afterwards.
+ *
+ * @version January, 2021
+ */
+public class ContactSearchIndex {
+
+    /** The indexed words, lower case and sorted. */
+    private final String[] mWords;
+
+    /** The contact each word belongs to, in the same order as the words. */
+    private final Contact[] mContacts;
+
+    /**
+     * Constructor to index a list of contacts.
+     *
+     * @param contacts the contacts to index
+     */
+    public ContactSearchIndex(final Collection<Contact> contacts) {
+        List<Entry> entries = new ArrayList<>();
+        for (Contact contact : contacts) {
+            addWords(entries, contact.getUsername(), contact);
+            addWords(entries, contact.getName(), contact);
+            addWords(entries, contact.getEmail(), contact);
+        }
+        Entry[] sorted = entries.toArray(new Entry[0]);
+        Arrays.sort(sorted);
+
+        mWords = new String[sorted.length];
+        mContacts = new Contact[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            mWords[i] = sorted[i].mWord;
+            mContacts[i] = sorted[i].mContact;
+        }
+    }
+
+    /**
+     * Finds the contacts matching a query. Every word of the query has to be the start of a
+     * word in the contact's username, name or email.
+     *
+     * @param query the text to search for
+     * @return the matching contacts, sorted
+     */
+    public List<Contact> search(final String query) {
+        Map<Integer, Contact> matches = null;
+        for (String word : normalize(query).split("\\s+")) {
+            if (word.isEmpty()) continue;
+            Map<Integer, Contact> found = new HashMap<>();
+            for (int i = lowerBound(word); i < mWords.length && mWords[i].startsWith(word); i++) {
+                if (matches == null || matches.containsKey(mContacts[i].getId())) {
+                    found.put(mContacts[i].getId(), mContacts[i]);
+                }
+            }
+            matches = found;
+            if (matches.isEmpty()) break;
+        }
+
+        return matches == null ? new ArrayList<>() : Contact.sorted(matches.values());
+    }
+
+    /**
+     * Returns the index of the first word not less than the prefix.
+     */
+    private int lowerBound(final String prefix) {
+        int low = 0;
+        int high = mWords.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mWords[mid].compareTo(prefix) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private static void addWords(final List<Entry> entries, final String field,
+                                 final Contact contact) {
+        if (field == null) return;
+        for (String word : normalize(field).split("\\s+")) {
+            if (!word.isEmpty()) entries.add(new Entry(word, contact));
+        }
+    }
+
+    private static String normalize(final String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A single indexed word and the contact it came from.
+     */
+    private static final class Entry implements Comparable<Entry> {
+
+        private final String mWord;
+
+        private final Contact mContact;
+
+        private Entry(final String word, final Contact contact) {
+            mWord = word;
+            mContact = contact;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return mWord.compareTo(other.mWord);
+        }
+    }
+}
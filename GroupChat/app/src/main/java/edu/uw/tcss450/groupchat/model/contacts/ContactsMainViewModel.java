@@ -12,10 +12,9 @@ import com.android.volley.toolbox.Volley;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.util.HashMap;
-import java.util.Map;
 
 import edu.uw.tcss450.groupchat.R;
+import edu.uw.tcss450.groupchat.io.ContactStore;
 import edu.uw.tcss450.groupchat.io.RequestQueueSingleton;
 
 /**
@@ -30,16 +29,14 @@ public class ContactsMainViewModel extends ContactsViewModel {
      * @param application reference to the current application
      */
     public ContactsMainViewModel(@NonNull Application application) {
-        super(application);
+        super(application, ContactStore.CONTACTS);
     }
 
     /**
      * Makes a request to the web service to get the list of the user's contacts.
-     * @param jwt the user's signed JWT
      */
-    public void connect(final String jwt) {
-        mContactType = 1;
-
+    @Override
+    public void refresh() {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "contacts";
 
@@ -48,16 +45,7 @@ public class ContactsMainViewModel extends ContactsViewModel {
                 url,
                 null, //no body for this get request
                 this::handleSuccess,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -72,9 +60,8 @@ public class ContactsMainViewModel extends ContactsViewModel {
     /**
      * Makes a request to the web service to get a contact's username.
      * @param contactId the contact id to get username from
-     * @param jwt the user's signed JWT
      */
-    public void connectContact(final int contactId, final String jwt) {
+    public void connectContact(final int contactId) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "contacts/username?contactId=" + contactId;
 
@@ -83,16 +70,7 @@ public class ContactsMainViewModel extends ContactsViewModel {
                 url,
                 null,
                 this::handleUsername,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -106,11 +84,10 @@ public class ContactsMainViewModel extends ContactsViewModel {
 
     /**
      * Makes a request to the web service to add the specified contact to a chat room.
-     * @param jwt the user's signed JWT
      * @param name the username of the user to add
      * @param chatId the chat id of the chat room to add to
      */
-    public void connectAdd(final String jwt, final String name, final int chatId) {
+    public void connectAdd(final String name, final int chatId) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "chats/" + chatId + "/" + name;
 
@@ -119,16 +96,7 @@ public class ContactsMainViewModel extends ContactsViewModel {
                 url,
                 null,
                 mResponse::setValue,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -142,10 +110,9 @@ public class ContactsMainViewModel extends ContactsViewModel {
 
     /**
      * Makes a request to the web service to remove the specified contact.
-     * @param jwt the user's signed JWT
      * @param name the username of the contact to remove
      */
-    public void connectRemove(final String jwt, final String name) {
+    public void connectRemove(final String name) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "contacts?name=" + name;
 
@@ -153,17 +120,9 @@ public class ContactsMainViewModel extends ContactsViewModel {
                 Request.Method.DELETE,
                 url,
                 null,
-                mResponse::setValue,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                response -> handleChange(response,
+                        ContactStore.CONTACTS, ContactStore.DIRECTORY),
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
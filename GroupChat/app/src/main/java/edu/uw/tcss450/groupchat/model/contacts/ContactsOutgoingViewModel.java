@@ -8,10 +8,9 @@ import com.android.volley.DefaultRetryPolicy;
 import com.android.volley.Request;
 import com.android.volley.toolbox.JsonObjectRequest;
 
-import java.util.HashMap;
-import java.util.Map;
 
 import edu.uw.tcss450.groupchat.R;
+import edu.uw.tcss450.groupchat.io.ContactStore;
 import edu.uw.tcss450.groupchat.io.RequestQueueSingleton;
 
 /**
@@ -26,16 +25,14 @@ public class ContactsOutgoingViewModel extends ContactsViewModel {
      * @param application reference to the current application
      */
     public ContactsOutgoingViewModel(@NonNull Application application) {
-        super(application);
+        super(application, ContactStore.OUTGOING);
     }
 
     /**
      * Makes a request to the web service to get the list of the user's outgoing requests.
-     * @param jwt the user's signed JWT
      */
-    public void connect(final String jwt) {
-        mContactType = 3;
-
+    @Override
+    public void refresh() {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "requests/outgoing";
 
@@ -44,16 +41,7 @@ public class ContactsOutgoingViewModel extends ContactsViewModel {
                 url,
                 null, //no body for this get request
                 this::handleSuccess,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -68,9 +56,8 @@ public class ContactsOutgoingViewModel extends ContactsViewModel {
     /**
      * Makes a request to the web service to get a contact's username.
      * @param contactId the contact id to get username from
-     * @param jwt the user's signed JWT
      */
-    public void connectContact(final int contactId, final String jwt) {
+    public void connectContact(final int contactId) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "contacts/username?contactId=" + contactId;
 
@@ -79,16 +66,7 @@ public class ContactsOutgoingViewModel extends ContactsViewModel {
                 url,
                 null,
                 this::handleUsername,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -102,10 +80,9 @@ public class ContactsOutgoingViewModel extends ContactsViewModel {
 
     /**
      * Makes a request to the web service to cancel the specified request.
-     * @param jwt the user's signed JWT
      * @param name the username of the request to cancel
      */
-    public void connectCancel(final String jwt, final String name) {
+    public void connectCancel(final String name) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "requests/cancel?name=" + name;
 
@@ -113,17 +90,9 @@ public class ContactsOutgoingViewModel extends ContactsViewModel {
                 Request.Method.DELETE,
                 url,
                 null,
-                mResponse::setValue,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                response -> handleChange(response,
+                        ContactStore.OUTGOING, ContactStore.DIRECTORY),
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
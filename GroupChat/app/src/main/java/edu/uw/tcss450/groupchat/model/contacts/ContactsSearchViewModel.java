@@ -1,9 +1,13 @@
 package edu.uw.tcss450.groupchat.model.contacts;
 
 import android.app.Application;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.collection.LruCache;
 
 import com.android.volley.DefaultRetryPolicy;
 import com.android.volley.Request;
@@ -14,12 +18,11 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 
 import edu.uw.tcss450.groupchat.R;
+import edu.uw.tcss450.groupchat.io.ContactStore;
 import edu.uw.tcss450.groupchat.io.RequestQueueSingleton;
 import edu.uw.tcss450.groupchat.ui.contacts.Contact;
 
@@ -30,39 +33,183 @@ import edu.uw.tcss450.groupchat.ui.contacts.Contact;
  */
 public class ContactsSearchViewModel extends ContactsViewModel {
 
+    /** How long in milliseconds to wait for typing to stop before asking the web service. */
+    private static final long SERVER_SEARCH_DELAY = 400;
+
+    /** How many recent web service searches to remember the results of. */
+    private static final int RECENT_SEARCHES = 20;
+
+    private final Handler mHandler;
+
+    private ContactSearchIndex mIndex;
+
+    /** The version of the stored directory the index was built from. */
+    private int mIndexVersion;
+
+    private String mTerm;
+
+    private Runnable mServerSearch;
+
+    /** The web service search in flight, cancelled as soon as another one supersedes it. */
+    private Request<?> mInFlight;
+
+    /** Numbers each web service search, only the response of the latest one is shown. */
+    private int mSequence;
+
+    private final LruCache<String, List<Contact>> mRecent;
+
+    /** Pages through the directory while there is no search term. */
+    private final ContactDirectoryPager mPager;
+
+    /** Whether the directory was asked for yet, pages are only loaded after that. */
+    private boolean mConnected;
+
     /**
      * Default constructor for this view model.
      * @param application reference to the current application
      */
     public ContactsSearchViewModel(@NonNull Application application) {
-        super(application);
+        super(application, ContactStore.DIRECTORY);
+        mHandler = new Handler(Looper.getMainLooper());
+        mIndexVersion = -1;
+        mTerm = "";
+        mSequence = 0;
+        mRecent = new LruCache<>(RECENT_SEARCHES);
+        mPager = new ContactDirectoryPager(this::loadPage);
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        cancelSearch();
+    }
+
+    /**
+     * Searches the stored directory for users by the term as it is typed, showing its matches
+     * at once. The web service is still asked once typing pauses, since the stored directory
+     * only holds the users paged through so far, unless the term was searched for recently or
+     * the whole directory is stored. Any search still waiting or in flight is dropped.
+     * @param term the term to search available users by
+     */
+    public void search(final String term) {
+        cancelSearch();
+        mTerm = term.trim();
+        if (mTerm.isEmpty()) {
+            connect();
+            return;
+        }
+
+        List<Contact> recent = mRecent.get(mTerm.toLowerCase(Locale.ROOT));
+        if (recent != null) {
+            publish(recent);
+            return;
+        }
+        publish(getIndex().search(mTerm));
+        // every user is stored once the last page loaded and none were dropped since
+        if (mPager.isComplete() && !mStore.hasEvicted()) return;
+        final String searched = mTerm;
+        mServerSearch = () -> connect(searched);
+        mHandler.postDelayed(mServerSearch, SERVER_SEARCH_DELAY);
     }
 
     /**
-     * Makes a request to the web service to get a list of up to 10 random users.
-     * @param jwt the user's signed JWT
+     * Drops the web service search waiting for typing to pause and cancels the one in flight.
      */
-    public void connect(String jwt) {
-        mContactType = 4;
+    private void cancelSearch() {
+        mSequence++;
+        if (mServerSearch != null) {
+            mHandler.removeCallbacks(mServerSearch);
+            mServerSearch = null;
+        }
+        if (mInFlight != null) {
+            mInFlight.cancel();
+            mInFlight = null;
+        }
+    }
 
+    /**
+     * Shows the directory, only asking the web service for its first page again if the
+     * pages loaded so far are out of date.
+     */
+    @Override
+    public void connect() {
+        mConnected = true;
+        if (mPager.isEmpty() || mStore.isStale(ContactStore.DIRECTORY)) {
+            refresh();
+        } else {
+            publish(mPager.getList());
+        }
+    }
+
+    /**
+     * Loads the pages of the directory the visible rows need, while browsing it.
+     * @param first the first visible row
+     * @param last the last visible row
+     */
+    public void loadAround(final int first, final int last) {
+        if (mTerm.isEmpty() && mConnected) mPager.loadAround(first, last);
+    }
+
+    @Override
+    protected void onStoreChanged(final List<Contact> contacts) {
+        // called from the parent constructor before the term and pager are set
+        if (mTerm == null || mTerm.isEmpty()) {
+            if (mPager != null && !mPager.isEmpty()) publish(mPager.getList());
+        } else {
+            publish(getIndex().search(mTerm));
+        }
+    }
+
+    /**
+     * Returns the index of the stored directory, rebuilding it if the directory changed since
+     * the last search rather than every time a page is stored.
+     */
+    private ContactSearchIndex getIndex() {
+        int version = mStore.getVersion(ContactStore.DIRECTORY);
+        if (mIndex == null || mIndexVersion != version) {
+            mIndex = new ContactSearchIndex(mStore.get(ContactStore.DIRECTORY));
+            mIndexVersion = version;
+        }
+        return mIndex;
+    }
+
+    /**
+     * Drops the loaded pages of the directory and loads its first page again.
+     */
+    @Override
+    public void refresh() {
+        mConnected = true;
+        mPager.reset();
+    }
+
+    /**
+     * Makes a request to the web service to get a page of the directory. Pages are kept in
+     * the order the web service sent them, since the next page starts after the last row, and
+     * are added to the stored directory, so browsing also widens what search finds locally.
+     * @param after the username the page starts after
+     * @param limit the size of the page
+     * @param callback receives the page
+     */
+    private void loadPage(final String after, final int limit,
+                          final ContactDirectoryPager.Callback callback) {
         String url = getApplication().getResources().getString(R.string.base_url)
-                + "contacts/search?term=%";
+                + "contacts/search?term=%&after=" + Uri.encode(after) + "&limit=" + limit;
 
         Request request = new JsonObjectRequest(
                 Request.Method.GET,
                 url,
                 null, //no body for this get request
-                this::handleSuccess,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                response -> {
+                    List<Contact> page = parseContacts(response, false);
+                    callback.onPage(page);
+                    if (page == null) return;
+                    boolean changed = mStore.merge(ContactStore.DIRECTORY, page);
+                    if (!changed && mTerm.isEmpty()) publish(mPager.getList());
+                },
+                error -> {
+                    callback.onPage(null);
+                    handleError(error);
+                });
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -76,36 +223,33 @@ public class ContactsSearchViewModel extends ContactsViewModel {
 
     /**
      * Makes a request to the web service to search for users by the term.
-     * @param jwt the user's signed JWT
      * @param term the term to search available users by
      */
-    public void connect(final String jwt, final String term) {
-        mContactType = 4;
+    public void connect(final String term) {
+        cancelSearch();
+        mTerm = term.trim();
+        final int sequence = mSequence;
+        final String key = mTerm.toLowerCase(Locale.ROOT);
 
         String url = getApplication().getResources().getString(R.string.base_url)
-                + "contacts/search?term=" + term + "%";
+                + "contacts/search?term=" + Uri.encode(mTerm) + "%";
 
         Request request = new JsonObjectRequest(
                 Request.Method.GET,
                 url,
                 null, //no body for this get request
-                this::handleSuccess,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                response -> handleSearch(sequence, key, response),
+                error -> {
+                    if (sequence == mSequence) handleError(error);
+                });
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
                 DefaultRetryPolicy.DEFAULT_MAX_RETRIES,
                 DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
 
+        mInFlight = request;
+
         //Instantiate the RequestQueue and add the request to the queue
         RequestQueueSingleton.getInstance(getApplication().getApplicationContext())
                 .addToRequestQueue(request);
@@ -114,9 +258,8 @@ public class ContactsSearchViewModel extends ContactsViewModel {
     /**
      * Makes a request to the web service to get a contact's username.
      * @param memberId the member id to get username from
-     * @param jwt the user's signed JWT
      */
-    public void connectContact(final int memberId, final String jwt) {
+    public void connectContact(final int memberId) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "profile/" + memberId;
 
@@ -125,16 +268,7 @@ public class ContactsSearchViewModel extends ContactsViewModel {
                 url,
                 null,
                 this::handleUsername,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -148,10 +282,9 @@ public class ContactsSearchViewModel extends ContactsViewModel {
 
     /**
      * Makes a request to the web service to initiate a contact request with the specified user.
-     * @param jwt the user's signed JWT
      * @param name the username of the user to initiate a request with
      */
-    public void connectAdd(final String jwt, final String name) {
+    public void connectAdd(final String name) {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "contacts?name=" + name;
 
@@ -159,17 +292,9 @@ public class ContactsSearchViewModel extends ContactsViewModel {
                 Request.Method.PUT,
                 url,
                 null,
-                mResponse::setValue,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                response -> handleChange(response,
+                        ContactStore.OUTGOING, ContactStore.DIRECTORY),
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -181,8 +306,30 @@ public class ContactsSearchViewModel extends ContactsViewModel {
                 .addToRequestQueue(request);
     }
 
-    @Override
-    protected void handleSuccess(final JSONObject result) {
+    /**
+     * Remembers and shows the users matching a search term, unless a newer search was
+     * started since. Search results are not kept in the contact store.
+     * @param sequence the number of the search the response is for
+     * @param key the normalized term that was searched for
+     * @param result the response from the web service
+     */
+    private void handleSearch(final int sequence, final String key, final JSONObject result) {
+        if (sequence != mSequence) return;
+        mInFlight = null;
+
+        List<Contact> sorted = parseContacts(result, true);
+        if (sorted == null) sorted = new ArrayList<>();
+        mRecent.put(key, new ArrayList<>(sorted));
+        mContacts.setValue(sorted);
+    }
+
+    /**
+     * Reads the users out of a response from the web service.
+     * @param result the response from the web service
+     * @param sort whether to sort the users, rather than keep the order they were sent in
+     * @return the users, or null if the response could not be read
+     */
+    private List<Contact> parseContacts(final JSONObject result, final boolean sort) {
         List<Contact> sorted = new ArrayList<>();
         try {
             if (result.has("contacts")) {
@@ -200,13 +347,15 @@ public class ContactsSearchViewModel extends ContactsViewModel {
                 }
             } else {
                 Log.e("ERROR", "No contacts array");
+                return null;
             }
         } catch (JSONException e) {
             e.printStackTrace();
             Log.e("ERROR", e.getMessage());
+            return null;
         }
         //sort the list of contacts alphabetically
-        Collections.sort(sorted);
-        mContacts.setValue(sorted);
+        if (sort) Contact.sort(sorted);
+        return sorted;
     }
 }
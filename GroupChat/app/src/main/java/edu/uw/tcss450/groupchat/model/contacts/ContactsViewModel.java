@@ -20,13 +20,13 @@ import org.json.JSONObject;
 
 import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 import edu.uw.tcss450.groupchat.R;
+import edu.uw.tcss450.groupchat.io.ContactStore;
 import edu.uw.tcss450.groupchat.io.RequestQueueSingleton;
 import edu.uw.tcss450.groupchat.ui.contacts.Contact;
 
@@ -43,19 +43,38 @@ public abstract class ContactsViewModel extends AndroidViewModel {
 
     private MutableLiveData<String> mUsername;
 
-    protected int mContactType;
+    protected final int mContactType;
+
+    protected final ContactStore mStore;
+
+    /** Notices about contacts that changed, shown above the list until cleared. */
+    private final List<Contact> mNotices;
+
+    private final Observer<List<Contact>> mStoreObserver;
 
     /**
      * Default constructor for this view model.
      * @param application reference to the current application
+     * @param contactType the list of the contact store this view model shows
      */
-    public ContactsViewModel(@NonNull Application application) {
+    public ContactsViewModel(@NonNull Application application, final int contactType) {
         super(application);
         mResponse = new MutableLiveData<>();
         mContacts = new MutableLiveData<>();
         mUsername = new MutableLiveData<>();
-        mContactType = -1;
+        mContactType = contactType;
+        mStore = ContactStore.getInstance(application);
+        mNotices = new ArrayList<>();
         initValues();
+
+        mStoreObserver = this::onStoreChanged;
+        mStore.observeForever(mContactType, mStoreObserver);
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        mStore.removeObserver(mContactType, mStoreObserver);
     }
 
     /**
@@ -105,37 +124,58 @@ public abstract class ContactsViewModel extends AndroidViewModel {
         return "-1";
     }
 
+    /**
+     * Adds a notice about a contact to the top of the list.
+     * @param contact the notice to add, of type 0
+     */
     public void addContact(final Contact contact) {
-        if (!mContacts.getValue().contains(contact)) {
-            mContacts.getValue().add(0, contact);
+        if (!mNotices.contains(contact)) {
+            mNotices.add(0, contact);
         }
-        mContacts.setValue(mContacts.getValue());
+        publish(mStore.get(mContactType));
     }
 
+    /**
+     * Removes a contact from the list, and any notice about it.
+     * @param contact the contact to remove
+     */
     public void removeContact(final Contact contact) {
-        mContacts.getValue().remove(contact);
-        mContacts.setValue(mContacts.getValue());
+        mNotices.remove(contact);
+        mStore.remove(mContactType, contact.getId());
+        publish(mStore.get(mContactType));
+    }
+
+    /**
+     * Shows the list, only asking the web service for it if the stored copy is out of date.
+     */
+    public void connect() {
+        if (mStore.isStale(mContactType)) {
+            refresh();
+        } else {
+            publish(mStore.get(mContactType));
+        }
     }
 
     /**
-     * Makes a request to the web service to get the list of the user's contacts.
-     * @param jwt the user's signed JWT
+     * Makes a request to the web service to get the list, even if the stored copy is current.
      */
-    public abstract void connect(final String jwt);
+    public abstract void refresh();
+
+    /**
+     * Marks the stored list as out of date, so the next connect fetches it.
+     */
+    public void invalidate() {
+        mStore.invalidate(mContactType);
+    }
 
     /**
      * Makes a request to the web service to get a contact's username.
      * @param contactId the contact id to get username from
-     * @param jwt the user's signed JWT
      */
-    public abstract void connectContact(final int contactId, final String jwt);
+    public abstract void connectContact(final int contactId);
 
     protected void handleSuccess(final JSONObject result) {
-        for (int i = 0; i < mContacts.getValue().size(); i++) {
-            if (mContacts.getValue().get(i).getType() != 0) {
-                mContacts.getValue().remove(mContacts.getValue().get(i));
-            }
-        }
+        List<Contact> fetched = new ArrayList<>();
         try {
             if (result.has("contacts")) {
                 JSONArray contacts = result.getJSONArray("contacts");
@@ -148,19 +188,29 @@ public abstract class ContactsViewModel extends AndroidViewModel {
                             jsonContact.getString("email"),
                             jsonContact.getString("image"),
                             mContactType);
-                    mContacts.getValue().remove(contact);
-                    mContacts.getValue().add(contact);
+                    fetched.add(contact);
                 }
             } else {
                 Log.e("ERROR", "No contacts array");
+                return;
             }
         } catch (JSONException e) {
             e.printStackTrace();
             Log.e("ERROR", e.getMessage());
+            return;
         }
-        //sort the list of contacts alphabetically
-        Collections.sort(mContacts.getValue());
-        mContacts.setValue(mContacts.getValue());
+        //the store only tells observers if the list changed, so show it either way
+        if (!mStore.sync(mContactType, fetched)) publish(mStore.get(mContactType));
+    }
+
+    /**
+     * Handles the response of a request that changed the list on the web service.
+     * @param response the response from the web service
+     * @param types the lists of the contact store the change affects
+     */
+    protected void handleChange(final JSONObject response, final int... types) {
+        for (int type : types) mStore.invalidate(type);
+        mResponse.setValue(response);
     }
 
     protected void handleUsername(final JSONObject result) {
@@ -197,6 +247,24 @@ public abstract class ContactsViewModel extends AndroidViewModel {
         }
     }
 
+    /**
+     * Called when the list in the contact store changes.
+     * @param contacts the sorted contacts of the list
+     */
+    protected void onStoreChanged(final List<Contact> contacts) {
+        publish(contacts);
+    }
+
+    /**
+     * Shows the notices followed by the sorted contacts of the list.
+     * @param contacts the sorted contacts to show
+     */
+    protected void publish(final List<Contact> contacts) {
+        List<Contact> list = new ArrayList<>(mNotices);
+        list.addAll(contacts);
+        mContacts.setValue(list);
+    }
+
     private void initValues() {
         try {
             mResponse.setValue(new JSONObject("{\"init\":\"init\"}"));
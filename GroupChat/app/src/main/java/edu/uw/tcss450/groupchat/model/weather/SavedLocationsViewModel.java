@@ -13,7 +13,6 @@ import com.android.volley.DefaultRetryPolicy;
 import com.android.volley.Request;
 import com.android.volley.VolleyError;
 import com.android.volley.toolbox.JsonObjectRequest;
-import com.android.volley.toolbox.Volley;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -21,12 +20,11 @@ import org.json.JSONObject;
 
 import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
 import edu.uw.tcss450.groupchat.R;
+import edu.uw.tcss450.groupchat.io.RequestQueueSingleton;
 import edu.uw.tcss450.groupchat.ui.weather.SavedLocation;
 
 /**
@@ -103,9 +101,8 @@ public class SavedLocationsViewModel extends AndroidViewModel {
 
     /**
      * Makes a request to the web service to get the list of the user's favorite locations.
-     * @param jwt the user's signed JWT
      */
-    public void connect(final String jwt) {
+    public void connect() {
         String url = getApplication().getResources().getString(R.string.base_url)
                 + "locations";
 
@@ -114,16 +111,7 @@ public class SavedLocationsViewModel extends AndroidViewModel {
                 url,
                 null, //no body for this get request
                 this::handleSuccess,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -131,18 +119,17 @@ public class SavedLocationsViewModel extends AndroidViewModel {
                 DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
 
         //Instantiate the RequestQueue and add the request to the queue
-        Volley.newRequestQueue(getApplication().getApplicationContext()).add(request);
+        RequestQueueSingleton.getInstance(getApplication().getApplicationContext())
+                .addToRequestQueue(request);
     }
 
     /**
      * Makes a request to the web service to save a location as one of the user's favorites.
-     * @param jwt the user's signed JWT
      * @param name the nickname of the location
      * @param lat the latitude of the location
      * @param lon the longitude of the location
      */
-    public void connectSaveLocation(final String jwt,
-                                    final String name,
+    public void connectSaveLocation(final String name,
                                     final double lat,
                                     final double lon) {
         String url = getApplication().getResources().getString(R.string.base_url)
@@ -162,16 +149,7 @@ public class SavedLocationsViewModel extends AndroidViewModel {
                 url,
                 body,
                 mResponse::setValue,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -179,16 +157,16 @@ public class SavedLocationsViewModel extends AndroidViewModel {
                 DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
 
         //Instantiate the RequestQueue and add the request to the queue
-        Volley.newRequestQueue(getApplication().getApplicationContext()).add(request);
+        RequestQueueSingleton.getInstance(getApplication().getApplicationContext())
+                .addToRequestQueue(request);
     }
 
     /**
      * Makes a request to the web service to remove a location from the user's favorites.
-     * @param jwt teh user's signed JWT
      * @param lat the latitude of the location
      * @param lon the longitude of the location
      */
-    public void connectRemoveLocation(final String jwt, final double lat, final double lon) {
+    public void connectRemoveLocation(final double lat, final double lon) {
         mFavorites.getValue().remove(new SavedLocation("", lat, lon));
 
         String url = getApplication().getResources().getString(R.string.base_url)
@@ -199,16 +177,7 @@ public class SavedLocationsViewModel extends AndroidViewModel {
                 url,
                 null,
                 mResponse::setValue,
-                this::handleError) {
-
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                //add headers <key, value>
-                headers.put("Authorization", jwt);
-                return headers;
-            }
-        };
+                this::handleError);
 
         request.setRetryPolicy(new DefaultRetryPolicy(
                 10_000,
@@ -216,7 +185,8 @@ public class SavedLocationsViewModel extends AndroidViewModel {
                 DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
 
         //Instantiate the RequestQueue and add the request to the queue
-        Volley.newRequestQueue(getApplication().getApplicationContext()).add(request);
+        RequestQueueSingleton.getInstance(getApplication().getApplicationContext())
+                .addToRequestQueue(request);
     }
 
     private void handleSuccess(final JSONObject result) {
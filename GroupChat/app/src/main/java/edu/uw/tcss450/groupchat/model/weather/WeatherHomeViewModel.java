@@ -15,7 +15,6 @@ import com.android.volley.DefaultRetryPolicy;
 import com.android.volley.Request;
 import com.android.volley.VolleyError;
 import com.android.volley.toolbox.JsonObjectRequest;
-import com.android.volley.toolbox.Volley;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -29,6 +28,8 @@ import java.util.Locale;
 import java.util.Objects;
 
 import edu.uw.tcss450.groupchat.R;
+import edu.uw.tcss450.groupchat.io.RequestQueueSingleton;
+import edu.uw.tcss450.groupchat.io.SessionSnapshot;
 import edu.uw.tcss450.groupchat.ui.weather.Weather;
 import edu.uw.tcss450.groupchat.ui.weather.WeatherInfo;
 
@@ -43,6 +44,11 @@ public class WeatherHomeViewModel extends AndroidViewModel {
 
     private String mName;
 
+    private final SessionSnapshot mSnapshot;
+
+    /** Whether the weather came from the web service yet, rather than the last session. */
+    private boolean mFetched;
+
     /**
      * Default constructor for this view model.
      * @param application reference to the current application
@@ -50,6 +56,18 @@ public class WeatherHomeViewModel extends AndroidViewModel {
     public WeatherHomeViewModel(@NonNull Application application) {
         super(application);
         mWeather = new MutableLiveData<>();
+
+        // show the last session's weather until the current location is known
+        mSnapshot = SessionSnapshot.getInstance(application);
+        mSnapshot.get(SessionSnapshot.WEATHER, snapshot -> {
+            if (mFetched) return;
+            try {
+                mName = snapshot.optString("name", null);
+                mWeather.setValue(toWeather(snapshot));
+            } catch (JSONException e) {
+                Log.e("ERROR", "Bad weather snapshot: " + e.getMessage());
+            }
+        });
     }
 
     /**
@@ -92,15 +110,13 @@ public class WeatherHomeViewModel extends AndroidViewModel {
                 DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
 
         //Instantiate the RequestQueue and add the request to the queue
-        Volley.newRequestQueue(getApplication().getApplicationContext()).add(request);
+        RequestQueueSingleton.getInstance(getApplication().getApplicationContext())
+                .addToRequestQueue(request);
     }
 
     private void handleSuccess(final JSONObject result) {
         try {
             if (result.has("current")) {
-                JSONObject current = result.getJSONObject("current");
-                JSONArray weather = current.getJSONArray("weather");
-                String timezone = result.getString("timezone");
                 double lat = result.getDouble("lat");
                 double lon = result.getDouble("lon");
 
@@ -124,14 +140,11 @@ public class WeatherHomeViewModel extends AndroidViewModel {
                     ex.printStackTrace();
                 }
 
-                mWeather.setValue(new Weather("current",
-                        current.getLong("dt"),
-                        timezone,
-                        weather.getJSONObject(0).getString("main"),
-                        weather.getJSONObject(0).getString("icon"),
-                        current.getDouble("temp"),
-                        current.getInt("humidity"),
-                        current.getDouble("wind_speed")));
+                mFetched = true;
+                mWeather.setValue(toWeather(result));
+                // the snapshot keeps the place name, so restoring it needs no geocoding
+                mSnapshot.put(SessionSnapshot.WEATHER,
+                        new JSONObject(result.toString()).put("name", mName));
             } else {
                 Log.e("ERROR", "No weather information");
             }
@@ -141,6 +154,19 @@ public class WeatherHomeViewModel extends AndroidViewModel {
         }
     }
 
+    private static Weather toWeather(final JSONObject result) throws JSONException {
+        JSONObject current = result.getJSONObject("current");
+        JSONArray weather = current.getJSONArray("weather");
+        return new Weather("current",
+                current.getLong("dt"),
+                result.getString("timezone"),
+                weather.getJSONObject(0).getString("main"),
+                weather.getJSONObject(0).getString("icon"),
+                current.getDouble("temp"),
+                current.getInt("humidity"),
+                current.getDouble("wind_speed"));
+    }
+
     private void handleError(final VolleyError error) {
         if (Objects.isNull(error.networkResponse)) {
             Log.e("NETWORK ERROR", error.getMessage());
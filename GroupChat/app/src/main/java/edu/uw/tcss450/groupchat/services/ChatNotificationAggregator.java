@@ -0,0 +1,263 @@
+package edu.uw.tcss450.groupchat.services;
+
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.Person;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.uw.tcss450.groupchat.AuthActivity;
+import edu.uw.tcss450.groupchat.R;
+import edu.uw.tcss450.groupchat.ui.chats.ChatMessage;
+import me.pushy.sdk.Pushy;
+
+/**
+ * Collects chat messages received in the background into one notification per chat room.
+ *
+ * Each room keeps an unread count and its latest few messages, shown together with
+ * MessagingStyle, and a summary notification lists every room with unread messages. A room
+ * is posted at most once per {@link #MIN_INTERVAL}; messages arriving faster than that are
+ * added to the room and shown by a single delayed update. Only the first post of a room
+ * makes a sound.
+ *
+ * Methods must be called on the main thread.
+ *
+ * @version January, 2021
+ */
+public class ChatNotificationAggregator {
+
+    /** Shortest time in milliseconds between two posts of the same room. */
+    private static final long MIN_INTERVAL = 1000;
+
+    /** How many of the latest messages of a room are shown. */
+    private static final int MAX_LINES = 6;
+
+    private static final String CHANNEL_ID = "1";
+
+    private static final String GROUP_KEY = "edu.uw.tcss450.groupchat.CHATS";
+
+    /** Tag of every chat notification, so their ids do not clash with other notifications. */
+    private static final String TAG = "chat";
+
+    /** Id of the summary notification, chat rooms use their chat id. */
+    private static final int SUMMARY_ID = 0;
+
+    private static ChatNotificationAggregator instance;
+
+    private final Context mContext;
+
+    private final NotificationManager mManager;
+
+    private final Handler mHandler;
+
+    /** The rooms with unread messages, in the order their first message arrived. */
+    private final Map<Integer, Room> mRooms;
+
+    private ChatNotificationAggregator(final Context context) {
+        mContext = context.getApplicationContext();
+        mManager = (NotificationManager) mContext.getSystemService(Context.NOTIFICATION_SERVICE);
+        mHandler = new Handler(Looper.getMainLooper());
+        mRooms = new LinkedHashMap<>();
+    }
+
+    /**
+     * Return the instance of the notification aggregator.
+     *
+     * @param context the current context of application
+     * @return instance
+     */
+    public static synchronized ChatNotificationAggregator getInstance(final Context context) {
+        if (instance == null) {
+            instance = new ChatNotificationAggregator(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Adds a message to the notification of its chat room and posts it, now if the room was
+     * not posted within the last {@link #MIN_INTERVAL}, otherwise once the interval is over.
+     *
+     * @param chatId the chat ID of the room the message was sent to
+     * @param message the message
+     * @param extras the push extras, passed to the app when the notification is tapped
+     */
+    public void add(final int chatId, final ChatMessage message, final Bundle extras) {
+        Room room = mRooms.get(chatId);
+        if (room == null) {
+            room = new Room(chatId, message.getMessageId());
+            mRooms.put(chatId, room);
+        }
+        room.mUnread++;
+        room.mMessages.add(message);
+        room.mTimes.add(System.currentTimeMillis());
+        if (room.mMessages.size() > MAX_LINES) {
+            room.mMessages.remove(0);
+            room.mTimes.remove(0);
+        }
+        room.mExtras = extras;
+        if (extras != null && extras.containsKey("chatname")) {
+            room.mName = extras.getString("chatname");
+        }
+
+        if (room.mScheduled) return;
+        long wait = room.mPosted + MIN_INTERVAL - SystemClock.elapsedRealtime();
+        if (room.mPosted == 0 || wait <= 0) {
+            post(room);
+        } else {
+            room.mScheduled = true;
+            final Room delayed = room;
+            mHandler.postDelayed(() -> {
+                delayed.mScheduled = false;
+                // the room was cleared while waiting
+                if (mRooms.get(delayed.mChatId) == delayed) post(delayed);
+            }, wait);
+        }
+    }
+
+    /**
+     * Removes the notification of a chat room, for when its messages are read.
+     *
+     * @param chatId the chat ID of the room
+     */
+    public void clear(final int chatId) {
+        if (mRooms.remove(chatId) == null) return;
+        mManager.cancel(TAG, chatId);
+        if (mRooms.isEmpty()) {
+            mManager.cancel(TAG, SUMMARY_ID);
+        } else {
+            postSummary();
+        }
+    }
+
+    /**
+     * Removes every chat notification, for when the app is opened.
+     */
+    public void clearAll() {
+        for (Integer chatId : mRooms.keySet()) mManager.cancel(TAG, chatId);
+        if (!mRooms.isEmpty()) mManager.cancel(TAG, SUMMARY_ID);
+        mRooms.clear();
+    }
+
+    private void post(final Room room) {
+        room.mPosted = SystemClock.elapsedRealtime();
+
+        Person user = new Person.Builder().setName("Me").build();
+        NotificationCompat.MessagingStyle style = new NotificationCompat.MessagingStyle(user);
+        if (room.mName != null) style.setConversationTitle(room.mName);
+        style.setGroupConversation(true);
+        for (int i = 0; i < room.mMessages.size(); i++) {
+            ChatMessage message = room.mMessages.get(i);
+            style.addMessage(getText(message), room.mTimes.get(i),
+                    new Person.Builder().setName(message.getSender()).build());
+        }
+
+        ChatMessage latest = room.mMessages.get(room.mMessages.size() - 1);
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(mContext, CHANNEL_ID)
+                .setAutoCancel(true)
+                .setSmallIcon(R.drawable.ic_chat_notification)
+                .setContentTitle("Message from: " + latest.getSender())
+                .setContentText(getText(latest))
+                .setNumber(room.mUnread)
+                .setStyle(style)
+                .setGroup(GROUP_KEY)
+                .setOnlyAlertOnce(true)
+                .setPriority(NotificationCompat.PRIORITY_DEFAULT)
+                .setContentIntent(getIntent(room.mChatId, room.mFirstUnreadId, room.mExtras));
+
+        Pushy.setNotificationChannel(builder, mContext);
+        mManager.notify(TAG, room.mChatId, builder.build());
+        postSummary();
+    }
+
+    private void postSummary() {
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle();
+        int unread = 0;
+        Bundle extras = null;
+        for (Room room : mRooms.values()) {
+            unread += room.mUnread;
+            extras = room.mExtras;
+            String name = room.mName != null ? room.mName
+                    : room.mMessages.get(room.mMessages.size() - 1).getSender();
+            style.addLine(name + ": " + room.mUnread + " new");
+        }
+        String title = unread + (unread == 1 ? " new message" : " new messages");
+        style.setBigContentTitle(title);
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(mContext, CHANNEL_ID)
+                .setAutoCancel(true)
+                .setSmallIcon(R.drawable.ic_chat_notification)
+                .setContentTitle(title)
+                .setStyle(style)
+                .setGroup(GROUP_KEY)
+                .setGroupSummary(true)
+                .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_CHILDREN)
+                .setOnlyAlertOnce(true)
+                .setPriority(NotificationCompat.PRIORITY_DEFAULT)
+                .setContentIntent(getIntent(SUMMARY_ID, -1, extras));
+
+        Pushy.setNotificationChannel(builder, mContext);
+        mManager.notify(TAG, SUMMARY_ID, builder.build());
+    }
+
+    /**
+     * Returns the intent that signs the user in and opens a chat room at a message, or just
+     * opens the app for the summary.
+     */
+    private PendingIntent getIntent(final int chatId, final int messageId, final Bundle extras) {
+        Intent i = new Intent(mContext, AuthActivity.class);
+        if (extras != null) i.putExtras(extras);
+        i.putExtra("chatid", chatId == SUMMARY_ID ? -1 : chatId);
+        i.putExtra("messageid", messageId);
+        return PendingIntent.getActivity(mContext, chatId,
+                i, PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+
+    private static String getText(final ChatMessage message) {
+        return ChatMessage.isImage(message.getMessage()) ? "Sent an image" : message.getMessage();
+    }
+
+    /**
+     * The unread messages of a single chat room.
+     */
+    private static final class Room {
+
+        private final int mChatId;
+
+        /** The first message that arrived since the room was last read. */
+        private final int mFirstUnreadId;
+
+        private final List<ChatMessage> mMessages;
+
+        /** When each message arrived, in the same order as the messages. */
+        private final List<Long> mTimes;
+
+        private int mUnread;
+
+        private String mName;
+
+        private Bundle mExtras;
+
+        /** When the room was last posted, 0 if it was not yet. */
+        private long mPosted;
+
+        private boolean mScheduled;
+
+        private Room(final int chatId, final int firstUnreadId) {
+            mChatId = chatId;
+            mFirstUnreadId = firstUnreadId;
+            mMessages = new ArrayList<>();
+            mTimes = new ArrayList<>();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package edu.uw.tcss450.groupchat.services;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.Request;
+import com.android.volley.toolbox.JsonObjectRequest;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import edu.uw.tcss450.groupchat.R;
+import edu.uw.tcss450.groupchat.io.ChatMessageStore;
+import edu.uw.tcss450.groupchat.io.RequestQueueSingleton;
+import edu.uw.tcss450.groupchat.io.SessionManager;
+import edu.uw.tcss450.groupchat.ui.chats.ChatMessage;
+
+/**
+ * Short background job run for a chat message pushed while the app is not open. The message
+ * is written to the {@link ChatMessageStore} and the latest page of its chat room is fetched
+ * into it, so opening the room from the notification shows it without waiting on the
+ * network.
+ *
+ * The job must finish within the few seconds a broadcast receiver is given, so the request
+ * is made once with a short timeout and the page is simply skipped if it does not make it.
+ * The request may also wait to be sent, while offline or behind the screen's requests, so
+ * it is cancelled and the job ends once {@link #DEADLINE} has passed either way.
+ *
+ * @version January, 2021
+ */
+public final class ChatPrefetchTask {
+
+    /** How long in milliseconds the page request may take, well inside the receiver limit. */
+    private static final int TIMEOUT = 7_000;
+
+    /** How long in milliseconds the job waits for the page at most, from asking for it. */
+    private static final long DEADLINE = 8_000;
+
+    private static final Handler HANDLER = new Handler(Looper.getMainLooper());
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private ChatPrefetchTask() {
+        // static methods only
+    }
+
+    /**
+     * Stores a pushed message and prefetches the latest page of its chat room.
+     *
+     * @param context the current context of application
+     * @param chatId the chat room the message was sent to
+     * @param message the pushed message
+     * @param done called once the job is over, whether the page was fetched or not
+     */
+    public static void run(final Context context, final int chatId, final ChatMessage message,
+                           final Runnable done) {
+        final Context app = context.getApplicationContext();
+        final ChatMessageStore store = ChatMessageStore.getInstance(app);
+        EXECUTOR.execute(() -> {
+            store.addMessages(chatId, Collections.singletonList(message));
+
+            if (!SessionManager.getInstance(app).isSignedIn()) {
+                // the user was not remembered, the room is fetched after signing in
+                done.run();
+                return;
+            }
+            requestLatest(app, store, chatId, done);
+        });
+    }
+
+    private static void requestLatest(final Context context, final ChatMessageStore store,
+                                      final int chatId, final Runnable runOnce) {
+        // ended by the response, the error or the deadline, whichever comes first
+        final AtomicBoolean over = new AtomicBoolean();
+        final Runnable done = () -> {
+            if (over.compareAndSet(false, true)) runOnce.run();
+        };
+        String url = context.getString(R.string.base_url) + "messages/" + chatId;
+
+        Request<JSONObject> request = new JsonObjectRequest(
+                Request.Method.GET,
+                url,
+                null, //no body for this get request
+                response -> EXECUTOR.execute(() -> {
+                    List<ChatMessage> messages = parseMessages(response);
+                    if (messages != null) store.addMessages(chatId, messages);
+                    done.run();
+                }),
+                error -> {
+                    Log.e("PREFETCH", "Could not prefetch chat " + chatId);
+                    done.run();
+                }) {
+
+            @Override
+            public Priority getPriority() {
+                // a background refresh never gets ahead of the screen the user is on
+                return Priority.LOW;
+            }
+        };
+
+        request.setRetryPolicy(new DefaultRetryPolicy(TIMEOUT, 0,
+                DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
+
+        RequestQueueSingleton.getInstance(context).addToRequestQueue(request);
+        HANDLER.postDelayed(() -> {
+            if (over.get()) return;
+            Log.e("PREFETCH", "Gave up on prefetching chat " + chatId);
+            request.cancel();
+            done.run();
+        }, DEADLINE);
+    }
+
+    private static List<ChatMessage> parseMessages(final JSONObject response) {
+        try {
+            List<ChatMessage> messages = new ArrayList<>();
+            JSONArray rows = response.getJSONArray("rows");
+            for (int i = 0; i < rows.length(); i++) {
+                JSONObject message = rows.getJSONObject(i);
+                messages.add(new ChatMessage(
+                        message.getInt("messageid"),
+                        message.getString("message"),
+                        message.getString("username"),
+                        message.getString("timestamp")));
+            }
+            return messages;
+        } catch (JSONException e) {
+            Log.e("JSON PARSE ERROR", "Found in ChatPrefetchTask");
+            Log.e("JSON PARSE ERROR", "Error: " + e.getMessage());
+            return null;
+        }
+    }
+}
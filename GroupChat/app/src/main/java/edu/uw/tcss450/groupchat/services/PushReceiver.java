@@ -15,6 +15,7 @@ import org.json.JSONObject;
 
 import edu.uw.tcss450.groupchat.AuthActivity;
 import edu.uw.tcss450.groupchat.R;
+import edu.uw.tcss450.groupchat.io.RealtimeChannel;
 import edu.uw.tcss450.groupchat.ui.chats.ChatMessage;
 import me.pushy.sdk.Pushy;
 
@@ -40,6 +41,12 @@ public class PushReceiver extends BroadcastReceiver {
         //Then here on the Android side, decide what to do with the message you got
         String typeOfMessage = intent.getStringExtra("type");
 
+        // while the app is open the realtime channel delivers chat events on its own
+        if (!"con".equals(typeOfMessage)
+                && RealtimeChannel.getInstance(context).isConnected()) {
+            return;
+        }
+
         switch (typeOfMessage) {
             case "msg": {
                 ChatMessage message;
@@ -70,31 +77,13 @@ public class PushReceiver extends BroadcastReceiver {
                     //app is in the background so create and post a notification
                     Log.d("PUSHY", "Message received in background: " + message.getMessage());
 
-                    Intent i = new Intent(context, AuthActivity.class);
-                    i.putExtras(intent.getExtras());
-
-                    PendingIntent pendingIntent = PendingIntent.getActivity(context, 0,
-                            i, PendingIntent.FLAG_UPDATE_CURRENT);
+                    // messages are grouped per chat room, busy rooms are reposted at most once a second
+                    ChatNotificationAggregator.getInstance(context)
+                            .add(chatId, message, intent.getExtras());
 
-                    //research more on notifications the how to display them
-                    //https://developer.android.com/guide/topics/ui/notifiers/notifications
-                    NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
-                            .setAutoCancel(true)
-                            .setSmallIcon(R.drawable.ic_chat_notification)
-                            .setContentTitle("Message from: " + message.getSender())
-                            .setContentText(message.getMessage())
-                            .setPriority(NotificationCompat.PRIORITY_DEFAULT)
-                            .setContentIntent(pendingIntent);
-
-                    // Automatically configure a ChatMessageNotification Channel for devices running Android O+
-                    Pushy.setNotificationChannel(builder, context);
-
-                    // Get an instance of the NotificationManager service
-                    NotificationManager notificationManager =
-                            (NotificationManager) context.getSystemService(context.NOTIFICATION_SERVICE);
-
-                    // Build the notification and display it
-                    notificationManager.notify(1, builder.build());
+                    // keep the receiver alive while the room is warmed up for when it is opened
+                    PendingResult result = goAsync();
+                    ChatPrefetchTask.run(context, chatId, message, result::finish);
                 }
                 break;
             }
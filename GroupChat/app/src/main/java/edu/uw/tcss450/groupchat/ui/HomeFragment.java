@@ -50,7 +50,7 @@ public class HomeFragment extends Fragment {
         mRoomModel = new ViewModelProvider(getActivity()).get(ChatRoomViewModel.class);
         mUserModel = new ViewModelProvider(getActivity()).get(UserInfoViewModel.class);
 
-        mRoomModel.connectRecent(mUserModel.getJwt());
+        mRoomModel.connectRecent();
     }
 
     @Override
@@ -1,8 +1,7 @@
 package edu.uw.tcss450.groupchat.ui.auth;
 
 import android.app.AlertDialog;
-import android.content.Context;
-import android.content.SharedPreferences;
+import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -15,13 +14,12 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 
-import com.auth0.android.jwt.JWT;
-
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import edu.uw.tcss450.groupchat.R;
 import edu.uw.tcss450.groupchat.databinding.FragmentSignInBinding;
+import edu.uw.tcss450.groupchat.io.SessionManager;
+import edu.uw.tcss450.groupchat.io.SessionSnapshot;
 import edu.uw.tcss450.groupchat.model.PushyTokenViewModel;
 import edu.uw.tcss450.groupchat.model.auth.SignInViewModel;
 import edu.uw.tcss450.groupchat.model.UserInfoViewModel;
@@ -119,22 +117,14 @@ public class SignInFragment extends Fragment {
     public void onStart() {
         super.onStart();
 
-        SharedPreferences prefs =
-                getActivity().getSharedPreferences(
-                        getString(R.string.keys_shared_prefs),
-                        Context.MODE_PRIVATE);
-
-        if (prefs.contains(getString(R.string.keys_prefs_jwt))) {
-            String token = prefs.getString(getString(R.string.keys_prefs_jwt), "");
-            JWT jwt = new JWT(token);
-            //Check to see if the web token is still valid or not. To make a JWT expire after a
-            //longer or shorter time period, change the expiration time when the JWT is
-            //created on the web service.
-            if (!jwt.isExpired(0)) {
-                String email = jwt.getClaim("email").asString();
-                String username = jwt.getClaim("username").asString();
-                navigateToSuccess(email, username, token);
-            }
+        SessionManager session = SessionManager.getInstance(getActivity());
+        //Check to see if the stored web token is still valid or not. To make a JWT expire
+        //after a longer or shorter time period, change the expiration time when the JWT is
+        //created on the web service.
+        if (session.isSignedIn()) {
+            // start reading the last session while the main activity is created
+            SessionSnapshot.getInstance(getActivity()).restore();
+            navigateToSuccess(session.getEmail(), session.getUsername());
         }
     }
 
@@ -174,21 +164,17 @@ public class SignInFragment extends Fragment {
     /**
      * Helper to abstract the navigation to the Activity past Authentication.
      * @param email users email
-     * @param jwt the JSON Web Token supplied by the server
+     * @param username users username
      */
-    private void navigateToSuccess(final String email, final String username, final String jwt) {
-        if (binding.switchSignIn.isChecked()) {
-            SharedPreferences prefs =
-                    getActivity().getSharedPreferences(
-                            getString(R.string.keys_shared_prefs),
-                            Context.MODE_PRIVATE);
-            //Store the credentials in SharedPrefs
-            prefs.edit().putString(getString(R.string.keys_prefs_jwt), jwt).apply();
-        }
-
+    private void navigateToSuccess(final String email, final String username) {
+        String jwt = SessionManager.getInstance(getActivity()).getToken();
+        // opened from a chat notification, pass on the room and message to show
+        Intent intent = getActivity().getIntent();
         Navigation.findNavController(getView())
                 .navigate(SignInFragmentDirections
-                        .actionSignInFragmentToMainActivity(email, username, jwt));
+                        .actionSignInFragmentToMainActivity(email, username, jwt)
+                        .setChatId(intent.getIntExtra("chatid", -1))
+                        .setMessageId(intent.getIntExtra("messageid", -1)));
         //Remove THIS activity from the Task list. Pops off the backstack
         getActivity().finish();
     }
@@ -215,9 +201,11 @@ public class SignInFragment extends Fragment {
                     mUserViewModel = new ViewModelProvider(getActivity(),
                             new UserInfoViewModel.UserInfoViewModelFactory(
                                     response.getString("email"),
-                                    response.getString("username"),
-                                    response.getString("token")))
+                                    response.getString("username")))
                             .get(UserInfoViewModel.class);
+                    //Store the credentials in SharedPrefs if the user is remembered
+                    SessionManager.getInstance(getActivity()).start(
+                            response.getString("token"), binding.switchSignIn.isChecked());
                     sendPushyToken();
                 } catch (JSONException e) {
                     Log.e("JSON Parse Error", e.getMessage());
@@ -232,7 +220,7 @@ public class SignInFragment extends Fragment {
      * Helper to abstract the request to send the pushy token to the web service
      */
     private void sendPushyToken() {
-        mPushyTokenViewModel.sendTokenToWebservice(mUserViewModel.getJwt());
+        mPushyTokenViewModel.sendTokenToWebservice();
     }
 
     /**
@@ -251,8 +239,7 @@ public class SignInFragment extends Fragment {
                 binding.signinWait.setVisibility(View.GONE);
                 navigateToSuccess(
                         mUserViewModel.getEmail(),
-                        mUserViewModel.getUsername(),
-                        mUserViewModel.getJwt()
+                        mUserViewModel.getUsername()
                 );
             }
         }
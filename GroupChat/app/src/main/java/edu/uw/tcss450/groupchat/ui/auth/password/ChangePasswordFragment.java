@@ -16,7 +16,6 @@ import org.json.JSONObject;
 
 import edu.uw.tcss450.groupchat.databinding.FragmentChangePasswordBinding;
 import edu.uw.tcss450.groupchat.model.auth.ChangePasswordViewModel;
-import edu.uw.tcss450.groupchat.model.UserInfoViewModel;
 import edu.uw.tcss450.groupchat.utils.PasswordValidator;
 
 import static edu.uw.tcss450.groupchat.utils.PasswordValidator.checkClientPredicate;
@@ -37,8 +36,6 @@ public class ChangePasswordFragment extends Fragment {
 
     private ChangePasswordViewModel mChangePasswordModel;
 
-    private UserInfoViewModel mUserViewModel;
-
     private final PasswordValidator mOldPasswordValidator =
             checkClientPredicate(pwd -> pwd.equals(binding.editOldPassword.getText().toString()))
                     .and(checkPwdLength(7))
@@ -67,7 +64,6 @@ public class ChangePasswordFragment extends Fragment {
         super.onCreate(savedInstanceState);
         ViewModelProvider provider = new ViewModelProvider(getActivity());
         mChangePasswordModel = provider.get(ChangePasswordViewModel.class);
-        mUserViewModel = provider.get(UserInfoViewModel.class);
     }
 
     @Override
@@ -114,8 +110,7 @@ public class ChangePasswordFragment extends Fragment {
     }
 
     private void verifyAuthWithServer() {
-        mChangePasswordModel.connect(mUserViewModel.getJwt(),
-                binding.editOldPassword.getText().toString(),
+        mChangePasswordModel.connect(binding.editOldPassword.getText().toString(),
                 binding.editNewPassword1.getText().toString());
         //This is an Asynchronous call. No statements after should rely on the result
     }
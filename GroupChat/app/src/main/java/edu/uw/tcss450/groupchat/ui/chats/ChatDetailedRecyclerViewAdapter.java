@@ -11,7 +11,6 @@ import androidx.navigation.NavController;
 import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -25,7 +24,7 @@ import java.util.TimeZone;
 
 import edu.uw.tcss450.groupchat.R;
 import edu.uw.tcss450.groupchat.databinding.FragmentChatDetailedBinding;
-import edu.uw.tcss450.groupchat.model.UserInfoViewModel;
+import edu.uw.tcss450.groupchat.io.AvatarLoader;
 import edu.uw.tcss450.groupchat.model.chats.ChatMessageViewModel;
 import edu.uw.tcss450.groupchat.model.chats.ChatNotificationsViewModel;
 import edu.uw.tcss450.groupchat.ui.HomeFragmentDirections;
@@ -50,8 +49,6 @@ public class ChatDetailedRecyclerViewAdapter extends
 
     private ChatMessageViewModel mMessageModel;
 
-    private UserInfoViewModel mUserModel;
-
     /**
      * Constructor for recyclerview adapter
      * @param chats maps messages in a room
@@ -67,7 +64,6 @@ public class ChatDetailedRecyclerViewAdapter extends
         mActivity = activity;
         mNewChatModel = new ViewModelProvider(activity).get(ChatNotificationsViewModel.class);
         mMessageModel = new ViewModelProvider(activity).get(ChatMessageViewModel.class);
-        mUserModel = new ViewModelProvider(activity).get(UserInfoViewModel.class);
     }
 
 
@@ -118,7 +114,7 @@ public class ChatDetailedRecyclerViewAdapter extends
          */
         void setChat(final ChatRoom room, final ChatMessage message) {
             mRoom = room;
-            mMessageModel.getFirstMessages(room.getId(), mUserModel.getJwt());
+            mMessageModel.getFirstMessages(room.getId());
 
             //set label text to chatroom name
             binding.labelChatName.setText(room.getName());
@@ -131,14 +127,8 @@ public class ChatDetailedRecyclerViewAdapter extends
             binding.textMessageTime.setText(getLocalTime(message.getTimeStamp()));
             binding.imageNotification.setVisibility(View.INVISIBLE);
 
-            if (!mRoom.getImageUrl().isEmpty() && !mRoom.getImageUrl().equals("null")) {
-                Glide.with(binding.labelChatName.getContext()).load(mRoom.getImageUrl())
-                        .circleCrop()
-                        .placeholder(R.drawable.ic_profile_icon_24dp)
-                        .into(binding.imageRoom);
-            } else {
-                binding.imageRoom.setImageResource(R.drawable.ic_profile_icon_24dp);
-            }
+            AvatarLoader.load(binding.imageRoom, mRoom.getImageUrl(),
+                    R.drawable.ic_profile_icon_24dp);
 
             //navigate to the selected chat room
             mView.setOnClickListener(view -> {
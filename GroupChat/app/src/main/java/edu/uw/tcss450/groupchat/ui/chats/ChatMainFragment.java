@@ -35,7 +35,6 @@ import java.util.ArrayList;
 
 import edu.uw.tcss450.groupchat.R;
 import edu.uw.tcss450.groupchat.databinding.FragmentChatMainBinding;
-import edu.uw.tcss450.groupchat.model.UserInfoViewModel;
 import edu.uw.tcss450.groupchat.model.chats.ChatMembersViewModel;
 import edu.uw.tcss450.groupchat.model.chats.ChatRoomViewModel;
 import edu.uw.tcss450.groupchat.utils.PasswordValidator;
@@ -54,8 +53,6 @@ public class ChatMainFragment extends Fragment implements View.OnClickListener {
 
     private FragmentChatMainBinding binding;
 
-    private UserInfoViewModel mUserModel;
-
     private ChatRoomViewModel mRoomsModel;
 
     private ChatMembersViewModel mMembersModel;
@@ -70,10 +67,9 @@ public class ChatMainFragment extends Fragment implements View.OnClickListener {
 
         ViewModelProvider provider = new ViewModelProvider(getActivity());
         mRoomsModel = provider.get(ChatRoomViewModel.class);
-        mUserModel = provider.get(UserInfoViewModel.class);
         mMembersModel = provider.get(ChatMembersViewModel.class);
 
-        mRoomsModel.connect(mUserModel.getJwt());
+        mRoomsModel.connect();
     }
 
 
@@ -100,10 +96,10 @@ public class ChatMainFragment extends Fragment implements View.OnClickListener {
         rv.addItemDecoration(divItemDecor);
 
         binding.swipeContainer.setOnRefreshListener(() ->
-                mRoomsModel.connect(mUserModel.getJwt()));
+                mRoomsModel.connect());
 
         mRoomsModel.addResponseObserver(getViewLifecycleOwner(), response ->
-                mRoomsModel.connect(mUserModel.getJwt()));
+                mRoomsModel.connect());
 
         mRoomsModel.addRoomsObserver(getViewLifecycleOwner(), rooms -> {
             if (rooms.size() != 1) {
@@ -144,7 +140,7 @@ public class ChatMainFragment extends Fragment implements View.OnClickListener {
                 mChatNameValidator.processResult(
                         mChatNameValidator.apply(newName),
                         () -> {
-                            mRoomsModel.connectCreate(mUserModel.getJwt(), newName);
+                            mRoomsModel.connectCreate(newName);
 
                             mRoomsModel.addResponseObserver(getViewLifecycleOwner(), response -> {
                                 if (response.length() > 0) {
@@ -156,7 +152,7 @@ public class ChatMainFragment extends Fragment implements View.OnClickListener {
                                             Log.e("JSON Parse Error", e.getMessage());
                                         }
                                     } else {
-                                        mRoomsModel.connect(mUserModel.getJwt());
+                                        mRoomsModel.connect();
                                         Snackbar snack = Snackbar.make(v, "You created "
                                                 + newName, Snackbar.LENGTH_LONG);
                                         snack.getView().findViewById(com.google.android.material.R.id.snackbar_text)
@@ -207,7 +203,7 @@ public class ChatMainFragment extends Fragment implements View.OnClickListener {
             try {
                 InputStream iStream = getContext().getContentResolver().openInputStream(imageUri);
                 byte[] inputData = getBytes(iStream);
-                mRoomsModel.uploadImage(binding, mSelectedRoom, inputData, mUserModel.getJwt());
+                mRoomsModel.uploadImage(binding, mSelectedRoom, inputData);
                 getActivity().findViewById(R.id.chat_wait).setVisibility(View.VISIBLE);
             } catch (IOException e) {
                 e.printStackTrace();
@@ -233,7 +229,7 @@ public class ChatMainFragment extends Fragment implements View.OnClickListener {
         dialog.show();
 
         dialog.getButton(DialogInterface.BUTTON_POSITIVE).setOnClickListener(click -> {
-            mMembersModel.connectDeleteChat(mSelectedRoom.getId(), mUserModel.getJwt());
+            mMembersModel.connectDeleteChat(mSelectedRoom.getId());
             Snackbar snack = Snackbar.make(getView(),
                     "Deleted the room '" + mSelectedRoom.getName() + "'",
                     Snackbar.LENGTH_LONG);
@@ -264,7 +260,7 @@ public class ChatMainFragment extends Fragment implements View.OnClickListener {
             mChatNameValidator.processResult(
                     mChatNameValidator.apply(newName),
                     () -> {
-                        mRoomsModel.connectName(mSelectedRoom, newName, mUserModel.getJwt());
+                        mRoomsModel.connectName(mSelectedRoom, newName);
 
                         mRoomsModel.addResponseObserver(getViewLifecycleOwner(), response -> {
                             if (response.length() > 0) {
@@ -276,7 +272,7 @@ public class ChatMainFragment extends Fragment implements View.OnClickListener {
                                         Log.e("JSON Parse Error", e.getMessage());
                                     }
                                 } else {
-                                    mRoomsModel.connect(mUserModel.getJwt());
+                                    mRoomsModel.connect();
                                     Navigation.findNavController(getView())
                                             .getGraph()
                                             .findNode(R.id.chatDisplayFragment)
@@ -18,7 +18,6 @@ import org.json.JSONException;
 import java.util.ArrayList;
 
 import edu.uw.tcss450.groupchat.databinding.FragmentChatMembersBinding;
-import edu.uw.tcss450.groupchat.model.UserInfoViewModel;
 import edu.uw.tcss450.groupchat.model.chats.ChatMembersViewModel;
 import edu.uw.tcss450.groupchat.model.chats.ChatRoomViewModel;
 
@@ -31,8 +30,6 @@ public class ChatMembersFragment extends Fragment {
 
     private FragmentChatMembersBinding binding;
 
-    private UserInfoViewModel mUserModel;
-
     private ChatMembersViewModel mMembersModel;
 
     private ChatRoomViewModel mRoomsModel;
@@ -42,12 +39,11 @@ public class ChatMembersFragment extends Fragment {
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        mUserModel = new ViewModelProvider(getActivity()).get(UserInfoViewModel.class);
         mMembersModel = new ViewModelProvider(getActivity()).get(ChatMembersViewModel.class);
         mRoomsModel = new ViewModelProvider(getActivity()).get(ChatRoomViewModel.class);
 
         mArgs = ChatMembersFragmentArgs.fromBundle(getArguments());
-        mMembersModel.connect(mArgs.getRoom().getId(), mUserModel.getJwt());
+        mMembersModel.connect(mArgs.getRoom().getId());
         setHasOptionsMenu(true);
     }
 
@@ -73,7 +69,7 @@ public class ChatMembersFragment extends Fragment {
         recyclerView.addItemDecoration(divItemDecor);
 
         binding.swipeContainer.setOnRefreshListener(() ->
-                mMembersModel.connect(mArgs.getRoom().getId(), mUserModel.getJwt()));
+                mMembersModel.connect(mArgs.getRoom().getId()));
 
         mMembersModel.addMembersObserver(mArgs.getRoom().getId(), getViewLifecycleOwner(), members -> {
             recyclerView.setAdapter(new ChatMembersRecyclerViewAdapter(getActivity(), members, mArgs));
@@ -91,7 +87,7 @@ public class ChatMembersFragment extends Fragment {
                         Log.e("JSON Parse Error", e.getMessage());
                     }
                 } else if (response.has("removed")) {
-                    mMembersModel.connect(mArgs.getRoom().getId(), mUserModel.getJwt());
+                    mMembersModel.connect(mArgs.getRoom().getId());
                 }
             } else {
                 Log.d("JSON Response", "No Response");
@@ -11,13 +11,13 @@ import androidx.fragment.app.FragmentActivity;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.google.android.material.snackbar.Snackbar;
 
 import java.util.List;
 
 import edu.uw.tcss450.groupchat.R;
 import edu.uw.tcss450.groupchat.databinding.FragmentChatMemberCardBinding;
+import edu.uw.tcss450.groupchat.io.AvatarLoader;
 import edu.uw.tcss450.groupchat.model.UserInfoViewModel;
 import edu.uw.tcss450.groupchat.model.chats.ChatMembersViewModel;
 import edu.uw.tcss450.groupchat.ui.contacts.Contact;
@@ -87,14 +87,8 @@ public class ChatMembersRecyclerViewAdapter extends
             mMember = member;
             binding.textMemberUsername.setText(mMember.getUsername());
             binding.textMemberEmail.setText(mMember.getEmail());
-            if (!mMember.getImage().isEmpty() && !mMember.getImage().equals("null")) {
-                Glide.with(binding.textMemberUsername.getContext()).load(mMember.getImage())
-                        .circleCrop()
-                        .placeholder(R.drawable.ic_profile_icon_24dp)
-                        .into(binding.imageMember);
-            } else {
-                binding.imageMember.setImageResource(R.drawable.ic_profile_icon_24dp);
-            }
+            AvatarLoader.load(binding.imageMember, mMember.getImage(),
+                    R.drawable.ic_profile_icon_24dp);
 
             if (!mMember.getUsername().equals(mUserModel.getUsername()) && mArgs.getRoom().getAdmin()) {
                 binding.imageMemberRemove.setVisibility(View.VISIBLE);
@@ -118,10 +112,10 @@ public class ChatMembersRecyclerViewAdapter extends
             dialog.show();
 
             dialog.getButton(DialogInterface.BUTTON_POSITIVE).setOnClickListener(click -> {
-                mMembersModel.connectMember(mMember.getId(), mUserModel.getJwt());
+                mMembersModel.connectMember(mMember.getId());
 
                 mMembersModel.addUsernameObserver(mActivity, username -> {
-                    mMembersModel.connectRemoveUser(mArgs.getRoom().getId(), username, mUserModel.getJwt());
+                    mMembersModel.connectRemoveUser(mArgs.getRoom().getId(), username);
                     Snackbar snack = Snackbar.make(mView,
                             "Removed " + mMember.getUsername() + " from this chat",
                             Snackbar.LENGTH_LONG);
@@ -1,8 +1,6 @@
 package edu.uw.tcss450.groupchat.ui.chats;
 
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.text.Html;
 import android.text.method.LinkMovementMethod;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -13,16 +11,19 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.constraintlayout.widget.ConstraintLayout;
 import androidx.constraintlayout.widget.ConstraintSet;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
-import com.bumptech.glide.request.RequestOptions;
-import com.bumptech.glide.request.target.SimpleTarget;
-import com.bumptech.glide.request.transition.Transition;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
 import com.google.android.material.resources.TextAppearance;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -30,6 +31,8 @@ import java.util.Locale;
 import java.util.TimeZone;
 
 import edu.uw.tcss450.groupchat.R;
+import edu.uw.tcss450.groupchat.io.ImageDimensionCache;
+import edu.uw.tcss450.groupchat.io.ImagePreloader;
 
 
 /**
@@ -41,12 +44,32 @@ import edu.uw.tcss450.groupchat.R;
  */
 public class ChatMessageRecyclerViewAdapter extends RecyclerView.Adapter {
 
+    /** The longest side, in pixels, an inline image is shown at. */
+    private static final int IMAGE_MAX_SIZE = 400;
+
+    /** How many rows ahead of the scroll direction have their text measured. */
+    private static final int LAYOUT_PREFETCH_COUNT = 10;
+
+    /** How many rows ahead of the scroll direction have their images loaded. */
+    private static final int IMAGE_PRELOAD_COUNT = 4;
+
     private final List<ChatMessage> mMessages;
 
     private final String mUsername;
 
     private Context mContext;
 
+    private final ChatMessageRenderCache mRenderCache;
+
+    private final ImageDimensionCache mImageSizes;
+
+    /** The text appearance of sent and received bubbles, known once one of each is bound. */
+    private final PrecomputedTextCompat.Params[] mTextParams;
+
+    private RecyclerView.OnScrollListener mLayoutPrefetcher;
+
+    private ImagePreloader mImagePreloader;
+
     /**
      * Constructor to initialize fields.
      *
@@ -57,6 +80,9 @@ public class ChatMessageRecyclerViewAdapter extends RecyclerView.Adapter {
         this.mMessages = messages;
         mUsername = username;
         mContext = context;
+        mRenderCache = ChatMessageRenderCache.getInstance();
+        mImageSizes = ImageDimensionCache.getInstance();
+        mTextParams = new PrecomputedTextCompat.Params[2];
     }
 
     @Override
@@ -92,50 +118,19 @@ public class ChatMessageRecyclerViewAdapter extends RecyclerView.Adapter {
             ViewHolderSent viewHolderSent = (ViewHolderSent) holder;
 
             viewHolderSent.sentImage.setImageDrawable(null);
-            String msg = mMessages.get(position).getMessage().trim();
+            ChatMessageRenderCache.RenderedMessage rendered =
+                    mRenderCache.get(mMessages.get(position));
 
             viewHolderSent.sentMessage.setClickable(true);
             viewHolderSent.sentMessage.setMovementMethod(LinkMovementMethod.getInstance());
-            viewHolderSent.sentMessage.setText(
-                    Html.fromHtml(ChatMessage.linkify(msg), Html.FROM_HTML_MODE_COMPACT));
 
             // if message is an image
-            // this method could use some refactoring
-            if (ChatMessage.isImage(msg)) {
+            if (rendered.isImage()) {
                 viewHolderSent.sentMessage.setVisibility(View.GONE);
-                // get the size
-                final int[] width = {-1};
-                final int[] height = {-1};
-                Glide.with(viewHolderSent.sentImage.getContext())
-                        .asBitmap()
-                        .load(msg)
-                        .into(new SimpleTarget<Bitmap>() {
-                            @Override
-                            public void onResourceReady(Bitmap bitmap,
-                                                        Transition<? super Bitmap> transition) {
-                                width[0] = bitmap.getWidth();
-                                height[0] = bitmap.getHeight();
-                            }
-                        });
-                int max = 400;
-                double ratio = width[0] > height[0] ? width[0] * 1.0 / max : height[0] * 1.0 / max;
-                width[0] = (int) (width[0] / ratio);
-                height[0] = (int) (height[0] / ratio);
-
-                // display
-                if (msg.endsWith("gif"))
-                    Glide.with(viewHolderSent.sentImage.getContext()).asGif().load(msg)
-                            .apply(new RequestOptions()
-                                    .override(width[0]*5/3, height[0]*5/3))
-                            .placeholder(R.drawable.ic_image_placeholder)
-                            .into(viewHolderSent.sentImage);
-                else
-                    Glide.with(viewHolderSent.sentImage.getContext()).load(msg)
-                            .apply(new RequestOptions().override(width[0], height[0]))
-                            .placeholder(R.drawable.ic_image_placeholder)
-                            .into(viewHolderSent.sentImage);
+                bindImage(viewHolderSent.sentImage, rendered);
 
                 viewHolderSent.sentMessage.setTextSize(10f);
+                viewHolderSent.sentMessage.setText(rendered.getText());
                 viewHolderSent.sentImage.setOnClickListener(click -> {
                     if (viewHolderSent.sentMessage.getVisibility() == View.VISIBLE) {
                         viewHolderSent.sentMessage.setVisibility(View.GONE);
@@ -144,7 +139,9 @@ public class ChatMessageRecyclerViewAdapter extends RecyclerView.Adapter {
                     }
                 });
             } else {
+                clearImage(viewHolderSent.sentImage);
                 viewHolderSent.sentMessage.setTextSize(14f);
+                bindText(viewHolderSent.sentMessage, 0, mMessages.get(position), rendered);
                 viewHolderSent.sentMessage.setVisibility(View.VISIBLE);
             }
             viewHolderSent.sentTime.setText(timeStamp);
@@ -153,52 +150,22 @@ public class ChatMessageRecyclerViewAdapter extends RecyclerView.Adapter {
             ViewHolderReceived viewHolderReceived = (ViewHolderReceived) holder;
 
             viewHolderReceived.receivedImage.setImageDrawable(null);
-            String msg = mMessages.get(position).getMessage().trim();
+            ChatMessageRenderCache.RenderedMessage rendered =
+                    mRenderCache.get(mMessages.get(position));
 
             viewHolderReceived.receivedMessage.setClickable(true);
             viewHolderReceived.receivedMessage.setMovementMethod(LinkMovementMethod.getInstance());
-            viewHolderReceived.receivedMessage.setText(
-                    Html.fromHtml(ChatMessage.linkify(msg), Html.FROM_HTML_MODE_COMPACT));
 
             // if message is an image
-            if (ChatMessage.isImage(msg)) {
+            if (rendered.isImage()) {
                 viewHolderReceived.receivedMessage.setVisibility(View.GONE);
                 setLeftToRightConstraint(viewHolderReceived.itemView,
                         R.id.text_message_time, R.id.image_message_box);
 
-                // get the size
-                final int[] width = {-1};
-                final int[] height = {-1};
-                Glide.with(viewHolderReceived.receivedImage.getContext())
-                        .asBitmap()
-                        .load(msg)
-                        .into(new SimpleTarget<Bitmap>() {
-                            @Override
-                            public void onResourceReady(Bitmap bitmap,
-                                                        Transition<? super Bitmap> transition) {
-                                width[0] = bitmap.getWidth();
-                                height[0] = bitmap.getHeight();
-                            }
-                        });
-                int max = 400;
-                double ratio = width[0] > height[0] ? width[0] * 1.0 / max : height[0] * 1.0 / max;
-                width[0] = (int) (width[0] / ratio);
-                height[0] = (int) (height[0] / ratio);
-
-                // display
-                if (msg.endsWith("gif"))
-                    Glide.with(viewHolderReceived.receivedMessage.getContext()).asGif().load(msg)
-                            .apply(new RequestOptions()
-                                    .override(width[0]*5/3, height[0]*5/3))
-                            .placeholder(R.drawable.ic_image_placeholder)
-                            .into(viewHolderReceived.receivedImage);
-                else
-                    Glide.with(viewHolderReceived.receivedMessage.getContext()).load(msg)
-                            .apply(new RequestOptions().override(width[0], height[0]))
-                            .placeholder(R.drawable.ic_image_placeholder)
-                            .into(viewHolderReceived.receivedImage);
+                bindImage(viewHolderReceived.receivedImage, rendered);
 
                 viewHolderReceived.receivedMessage.setTextSize(10f);
+                viewHolderReceived.receivedMessage.setText(rendered.getText());
                 viewHolderReceived.receivedImage.setOnClickListener(click -> {
                     if (viewHolderReceived.receivedMessage.getVisibility() == View.VISIBLE) {
                         viewHolderReceived.receivedMessage.setVisibility(View.GONE);
@@ -207,7 +174,9 @@ public class ChatMessageRecyclerViewAdapter extends RecyclerView.Adapter {
                     }
                 });
             } else {
+                clearImage(viewHolderReceived.receivedImage);
                 viewHolderReceived.receivedMessage.setTextSize(14f);
+                bindText(viewHolderReceived.receivedMessage, 1, mMessages.get(position), rendered);
                 setLeftToRightConstraint(viewHolderReceived.itemView,
                         R.id.text_message_time,
                         R.id.text_message_body);
@@ -223,6 +192,162 @@ public class ChatMessageRecyclerViewAdapter extends RecyclerView.Adapter {
         return mMessages.size();
     }
 
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        // measure the text of the rows about to scroll into view ahead of time
+        mLayoutPrefetcher = new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy == 0) return;
+                LinearLayoutManager manager = (LinearLayoutManager) rv.getLayoutManager();
+                int from = dy > 0
+                        ? manager.findLastVisibleItemPosition() + 1
+                        : manager.findFirstVisibleItemPosition() - LAYOUT_PREFETCH_COUNT;
+                prefetchLayouts(from, from + LAYOUT_PREFETCH_COUNT);
+            }
+        };
+        mImagePreloader = new ImagePreloader(recyclerView, IMAGE_PRELOAD_COUNT,
+                this::preloadImage);
+        recyclerView.addOnScrollListener(mLayoutPrefetcher);
+        recyclerView.addOnScrollListener(mImagePreloader);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        recyclerView.removeOnScrollListener(mLayoutPrefetcher);
+        recyclerView.removeOnScrollListener(mImagePreloader);
+    }
+
+    /**
+     * Sets a text message on its view, using text measured ahead of time when available.
+     */
+    private void bindText(final TextView view,
+                          final int viewType,
+                          final ChatMessage message,
+                          final ChatMessageRenderCache.RenderedMessage rendered) {
+        PrecomputedTextCompat.Params params = TextViewCompat.getTextMetricsParams(view);
+        mTextParams[viewType] = params;
+
+        PrecomputedTextCompat layout = mRenderCache.getLayout(message, params);
+        if (layout != null) {
+            TextViewCompat.setPrecomputedText(view, layout);
+        } else {
+            view.setText(rendered.getText());
+        }
+    }
+
+    /**
+     * Shows an image message at its final size. The view is sized before the image loads so
+     * the row does not jump, and the image is decoded once at that size. Images whose size
+     * is not known yet show a placeholder until it has been probed.
+     */
+    private void bindImage(final ImageView view,
+                           final ChatMessageRenderCache.RenderedMessage rendered) {
+        final String url = rendered.getContent();
+        view.setTag(url);
+
+        int[] size = mImageSizes.get(url);
+        if (size == null) {
+            Glide.with(view).clear(view);
+            setImageSize(view, IMAGE_MAX_SIZE, IMAGE_MAX_SIZE);
+            view.setImageResource(R.drawable.ic_image_placeholder);
+            mImageSizes.probe(view.getContext(), url, probed -> {
+                // the view may have been recycled for another message by now
+                if (!url.equals(view.getTag())) return;
+                if (probed != null) {
+                    bindImage(view, rendered);
+                    return;
+                }
+                // the size could not be read, let the image size the view within the maximum
+                setImageSize(view, ViewGroup.LayoutParams.WRAP_CONTENT,
+                        ViewGroup.LayoutParams.WRAP_CONTENT);
+                imageRequest(Glide.with(view), rendered,
+                        new int[]{IMAGE_MAX_SIZE, IMAGE_MAX_SIZE})
+                        .placeholder(R.drawable.ic_image_placeholder)
+                        .into(view);
+            });
+            return;
+        }
+
+        int[] display = getDisplaySize(size, rendered.isGif());
+        setImageSize(view, display[0], display[1]);
+        imageRequest(Glide.with(view), rendered, display)
+                .placeholder(R.drawable.ic_image_placeholder)
+                .into(view);
+    }
+
+    /**
+     * Loads the image of a row ahead of it being bound, if it is an image whose size is known.
+     */
+    private void preloadImage(final RequestManager requests, final int position) {
+        ChatMessageRenderCache.RenderedMessage rendered = mRenderCache.get(mMessages.get(position));
+        if (!rendered.isImage()) return;
+        int[] size = mImageSizes.get(rendered.getContent());
+        if (size == null) return;
+        int[] display = getDisplaySize(size, rendered.isGif());
+        imageRequest(requests, rendered, display).preload(display[0], display[1]);
+    }
+
+    /**
+     * Builds the request for an image message, the same way for binding and preloading so
+     * both hit the same cache entries.
+     */
+    private RequestBuilder<?> imageRequest(final RequestManager requests,
+                                           final ChatMessageRenderCache.RenderedMessage rendered,
+                                           final int[] display) {
+        RequestBuilder<?> request = rendered.isGif()
+                ? requests.asGif().load(rendered.getContent())
+                : requests.load(rendered.getContent());
+        return request.override(display[0], display[1]);
+    }
+
+    /**
+     * Scales an image down so its longest side is the inline maximum. Gifs are shown larger.
+     */
+    private int[] getDisplaySize(final int[] size, final boolean gif) {
+        float ratio = Math.max(size[0], size[1]) / (float) IMAGE_MAX_SIZE;
+        int width = Math.round(size[0] / ratio);
+        int height = Math.round(size[1] / ratio);
+        if (gif) {
+            width = width * 5 / 3;
+            height = height * 5 / 3;
+        }
+        return new int[]{width, height};
+    }
+
+    private void clearImage(final ImageView view) {
+        Glide.with(view).clear(view);
+        view.setTag(null);
+        setImageSize(view, ViewGroup.LayoutParams.WRAP_CONTENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT);
+    }
+
+    private void setImageSize(final ImageView view, final int width, final int height) {
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        if (params.width != width || params.height != height) {
+            params.width = width;
+            params.height = height;
+            view.setLayoutParams(params);
+        }
+    }
+
+    private void prefetchLayouts(final int from, final int to) {
+        List<ChatMessage> sent = new ArrayList<>();
+        List<ChatMessage> received = new ArrayList<>();
+        for (int i = Math.max(from, 0); i < Math.min(to, mMessages.size()); i++) {
+            if (getItemViewType(i) == 0) sent.add(mMessages.get(i));
+            else received.add(mMessages.get(i));
+        }
+        if (mTextParams[0] != null && !sent.isEmpty()) {
+            mRenderCache.precompute(sent, mTextParams[0]);
+        }
+        if (mTextParams[1] != null && !received.isEmpty()) {
+            mRenderCache.precompute(received, mTextParams[1]);
+        }
+    }
+
     private String getLocalTime(final String timeStamp) {
         SimpleDateFormat in = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.getDefault());
         SimpleDateFormat other = new SimpleDateFormat("MM/dd/yy", Locale.getDefault());
@@ -0,0 +1,175 @@
+package edu.uw.tcss450.groupchat.ui.chats;
+
+import android.text.Html;
+import android.text.Spanned;
+
+import androidx.collection.LruCache;
+import androidx.core.text.PrecomputedTextCompat;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cache of how each chat message is displayed, keyed by message id.
+ *
+ * Turning a message into link spans and working out whether it is an image is done once per
+ * message, ahead of time on a background thread where possible, so binding a chat bubble
+ * only has to look the result up. The measured text of a message can be cached the same way,
+ * keyed by the text appearance it was measured with.
+ *
+ * @version January, 2021
+ */
+public final class ChatMessageRenderCache {
+
+    private static final int MAX_ENTRIES = 1000;
+
+    private static final int MAX_LAYOUTS = 300;
+
+    private static ChatMessageRenderCache instance;
+
+    private final LruCache<Integer, RenderedMessage> mCache;
+
+    private final LruCache<Integer, PrecomputedTextCompat> mLayouts;
+
+    private final ExecutorService mExecutor;
+
+    private ChatMessageRenderCache() {
+        mCache = new LruCache<>(MAX_ENTRIES);
+        mLayouts = new LruCache<>(MAX_LAYOUTS);
+        mExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Return the instance of the render cache.
+     *
+     * @return instance
+     */
+    public static synchronized ChatMessageRenderCache getInstance() {
+        if (instance == null) {
+            instance = new ChatMessageRenderCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns how the message should be displayed, rendering it now if it was not
+     * prepared ahead of time.
+     *
+     * @param message the message to display
+     * @return the rendered message
+     */
+    public RenderedMessage get(final ChatMessage message) {
+        RenderedMessage rendered = mCache.get(message.getMessageId());
+        if (rendered == null) {
+            rendered = new RenderedMessage(message.getMessage());
+            mCache.put(message.getMessageId(), rendered);
+        }
+        return rendered;
+    }
+
+    /**
+     * Renders messages on a background thread so they are ready before they are bound.
+     *
+     * @param messages the messages to render
+     */
+    public void prepare(final Collection<ChatMessage> messages) {
+        mExecutor.execute(() -> {
+            for (ChatMessage message : messages) {
+                if (mCache.get(message.getMessageId()) == null) {
+                    mCache.put(message.getMessageId(), new RenderedMessage(message.getMessage()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the message text already measured with the passed text appearance.
+     *
+     * @param message the message to display
+     * @param params the text appearance of the view the message is shown in
+     * @return the measured text, or null if it has not been measured with these params
+     */
+    public PrecomputedTextCompat getLayout(final ChatMessage message,
+                                           final PrecomputedTextCompat.Params params) {
+        PrecomputedTextCompat layout = mLayouts.get(message.getMessageId());
+        return layout != null && layout.getParams().equals(params) ? layout : null;
+    }
+
+    /**
+     * Measures the text of messages on a background thread so setting it on a view does not
+     * have to. Image messages are skipped since their text is not shown.
+     *
+     * @param messages the messages to measure
+     * @param params the text appearance of the view the messages will be shown in
+     */
+    public void precompute(final Collection<ChatMessage> messages,
+                           final PrecomputedTextCompat.Params params) {
+        mExecutor.execute(() -> {
+            for (ChatMessage message : messages) {
+                RenderedMessage rendered = get(message);
+                if (!rendered.isImage() && getLayout(message, params) == null) {
+                    mLayouts.put(message.getMessageId(),
+                            PrecomputedTextCompat.create(rendered.getText(), params));
+                }
+            }
+        });
+    }
+
+    /**
+     * The displayable form of a single chat message.
+     */
+    public static final class RenderedMessage {
+
+        private final String mContent;
+
+        private final Spanned mText;
+
+        private final boolean mImage;
+
+        private final boolean mGif;
+
+        private RenderedMessage(final String message) {
+            mContent = message.trim();
+            mText = Html.fromHtml(ChatMessage.linkify(mContent), Html.FROM_HTML_MODE_COMPACT);
+            mImage = ChatMessage.isImage(mContent);
+            mGif = mImage && mContent.endsWith("gif");
+        }
+
+        /**
+         * Returns the trimmed message content, the image url for image messages.
+         *
+         * @return the message content
+         */
+        public String getContent() {
+            return mContent;
+        }
+
+        /**
+         * Returns the message text with its links turned into spans.
+         *
+         * @return the message text
+         */
+        public Spanned getText() {
+            return mText;
+        }
+
+        /**
+         * Returns whether the message is only an image.
+         *
+         * @return true if the message is an image, false otherwise
+         */
+        public boolean isImage() {
+            return mImage;
+        }
+
+        /**
+         * Returns whether the message is an animated gif.
+         *
+         * @return true if the message is a gif, false otherwise
+         */
+        public boolean isGif() {
+            return mGif;
+        }
+    }
+}
@@ -32,6 +32,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.view.inputmethod.InputMethodManager;
 
+import com.android.volley.Request;
 import com.google.android.material.snackbar.Snackbar;
 
 import org.json.JSONException;
@@ -45,6 +46,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import edu.uw.tcss450.groupchat.R;
 import edu.uw.tcss450.groupchat.databinding.FragmentChatRoomBinding;
+import edu.uw.tcss450.groupchat.io.RequestScheduler;
 import edu.uw.tcss450.groupchat.model.UserInfoViewModel;
 import edu.uw.tcss450.groupchat.model.chats.ChatMembersViewModel;
 import edu.uw.tcss450.groupchat.model.chats.ChatMessageViewModel;
@@ -76,6 +78,8 @@ public class ChatRoomFragment extends Fragment {
 
     private ChatRoomFragmentArgs mRoomArgs;
 
+    private RequestScheduler mRequests;
+
     private final int TYPING_IDLE_DELAY = 3000;
 
     private long lastEdit = 0;
@@ -121,9 +125,17 @@ public class ChatRoomFragment extends Fragment {
         mContactModel = provider.get(ContactsMainViewModel.class);
 
         mRoomArgs = ChatRoomFragmentArgs.fromBundle(getArguments());
-        mChatModel.getFirstMessages(mRoomArgs.getRoom().getId(), mUserModel.getJwt());
+        mRequests = RequestScheduler.getInstance(getContext());
+        mRequests.runFor(this, Request.Priority.IMMEDIATE, () -> {
+            mChatModel.getFirstMessages(mRoomArgs.getRoom().getId());
+            if (mRoomArgs.getMessageId() > 0) {
+                mChatModel.getMessagesAround(mRoomArgs.getRoom().getId(),
+                        mRoomArgs.getMessageId());
+            }
+        });
         mRoomModel.setCurrentRoom(mRoomArgs.getRoom().getId());
-        mContactModel.connect(mUserModel.getJwt());
+        // only needed once the user adds someone to the room
+        mRequests.runFor(this, Request.Priority.LOW, mContactModel::connect);
         mAdmin = false;
 
         setHasOptionsMenu(true);
@@ -147,7 +159,7 @@ public class ChatRoomFragment extends Fragment {
         // define the action for the interface class
         binding.edittextChatbox.setKeyBoardInputCallbackListener((inputContentInfo, flags, opts) -> {
             // use image here, this is for sending template stickers and gifs
-            mSendModel.sendMessage(args.getRoom().getId(), mUserModel.getJwt(),
+            mSendModel.sendMessage(args.getRoom().getId(),
                     inputContentInfo.getLinkUri().toString());
         });
 
@@ -156,7 +168,6 @@ public class ChatRoomFragment extends Fragment {
             if (System.currentTimeMillis() > (lastEdit + TYPING_IDLE_DELAY - 500)) {
                 String status = mSendModel.getStatus();
                 if (status.equals("typing")) mSendModel.sendTypingStatus(args.getRoom().getId(),
-                        mUserModel.getJwt(),
                         "stopped");
                 mSendModel.setStatus("stopped");
             }
@@ -179,7 +190,7 @@ public class ChatRoomFragment extends Fragment {
                 // combat with auto trigger on opening chat
                 if (!binding.edittextChatbox.getText().toString().isEmpty()) {
                     if (mSendModel.getStatus().equals("stopped")) mSendModel.sendTypingStatus(
-                            args.getRoom().getId(), mUserModel.getJwt(), "typing");
+                            args.getRoom().getId(), "typing");
                     mSendModel.setStatus("typing");
                 }
 
@@ -206,8 +217,9 @@ public class ChatRoomFragment extends Fragment {
         //The user is out of messages, go out to the service and get more
         binding.swipeContainer.setOnRefreshListener(() -> {
             numMessages.set(rv.getAdapter().getItemCount());
-            if (numMessages.get() > 0) {
-                mChatModel.getNextMessages(args.getRoom().getId(), mUserModel.getJwt());
+            if (numMessages.get() > 0 && !mChatModel.hasOldest(args.getRoom().getId())) {
+                mRequests.runFor(getViewLifecycleOwner(), Request.Priority.IMMEDIATE, () ->
+                        mChatModel.getNextMessages(args.getRoom().getId()));
             } else {
                 binding.swipeContainer.setRefreshing(false);
             }
@@ -230,6 +242,29 @@ public class ChatRoomFragment extends Fragment {
             binding.swipeContainer.setRefreshing(false);
         });
 
+        //fill in any gaps left by missed pushes or jumping to a message as they scroll into view
+        rv.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (!mChatModel.hasGaps(args.getRoom().getId())) return;
+                LinearLayoutManager manager = (LinearLayoutManager) rv.getLayoutManager();
+                mRequests.runFor(getViewLifecycleOwner(), Request.Priority.IMMEDIATE, () ->
+                        mChatModel.loadGapsNear(args.getRoom().getId(),
+                                manager.findFirstVisibleItemPosition(),
+                                manager.findLastVisibleItemPosition()));
+            }
+        });
+
+        mChatModel.addAnchorObserver(args.getRoom().getId(), getViewLifecycleOwner(), messageId -> {
+            // the anchor sticks around in the view model, only jump for this navigation
+            if (messageId != args.getMessageId()) return;
+            int position = mChatModel.getPositionOf(args.getRoom().getId(), messageId);
+            if (position >= 0) {
+                ((LinearLayoutManager) rv.getLayoutManager())
+                        .scrollToPositionWithOffset(position, rv.getHeight() / 2);
+            }
+        });
+
         //Send button click -> send message via SendViewModel
         binding.buttonChatboxSend.setOnClickListener(button -> {
             InputMethodManager manager = (InputMethodManager) getActivity()
@@ -240,13 +275,12 @@ public class ChatRoomFragment extends Fragment {
 
             String status = mSendModel.getStatus();
             if (status.equals("typing")) mSendModel.sendTypingStatus(args.getRoom().getId(),
-                    mUserModel.getJwt(),
                     "stopped");
             mSendModel.setStatus("stopped");
 
             String msg = binding.edittextChatbox.getText().toString().trim();
             if (msg.isEmpty()) binding.edittextChatbox.setText("");
-            else mSendModel.sendMessage(args.getRoom().getId(), mUserModel.getJwt(), msg);
+            else mSendModel.sendMessage(args.getRoom().getId(), msg);
         });
 
         binding.buttonChatboxAdd.setOnClickListener(button -> {
@@ -299,7 +333,7 @@ public class ChatRoomFragment extends Fragment {
             try {
                 InputStream iStream = getContext().getContentResolver().openInputStream(imageUri);
                 byte[] inputData = getBytes(iStream);
-                mSendModel.uploadImage(inputData, mRoomArgs.getRoom().getId(), mUserModel.getJwt());
+                mSendModel.uploadImage(inputData, mRoomArgs.getRoom().getId());
 
             } catch (IOException e) {
                 e.printStackTrace();
@@ -336,7 +370,7 @@ public class ChatRoomFragment extends Fragment {
 
         dialog.getButton(AlertDialog.BUTTON_POSITIVE).setOnClickListener(view -> {
             String email = mContactModel.getContactFromUserName(contactNames[selected.get()]);
-            mRoomModel.connectAddToChat(mUserModel.getJwt(), contactNames[selected.get()],
+            mRoomModel.connectAddToChat(contactNames[selected.get()],
                     mRoomModel.getCurrentRoom());
 
             mRoomModel.addResponseObserver(getViewLifecycleOwner(), response -> {
@@ -379,7 +413,7 @@ public class ChatRoomFragment extends Fragment {
         builder.setTitle("Leave Room?");
 
         builder.setPositiveButton("Leave", (dlg, i) -> {
-            mRoomModel.connectLeave(mUserModel.getJwt(), mRoomModel.getCurrentRoom());
+            mRoomModel.connectLeave(mRoomModel.getCurrentRoom());
             NavController navController = Navigation.findNavController(getView());
             String chatName = (String) navController.getCurrentDestination().getLabel();
             navController.navigate(ChatRoomFragmentDirections.
@@ -14,12 +14,13 @@ import androidx.navigation.NavController;
 import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 
 import java.util.List;
 
 import edu.uw.tcss450.groupchat.R;
 import edu.uw.tcss450.groupchat.databinding.FragmentChatCardBinding;
+import edu.uw.tcss450.groupchat.io.AvatarLoader;
+import edu.uw.tcss450.groupchat.io.ImagePreloader;
 import edu.uw.tcss450.groupchat.model.chats.ChatNotificationsViewModel;
 
 /**
@@ -31,12 +32,20 @@ import edu.uw.tcss450.groupchat.model.chats.ChatNotificationsViewModel;
 public class ChatRoomRecyclerViewAdapter extends
         RecyclerView.Adapter<ChatRoomRecyclerViewAdapter.RoomViewHolder> {
 
+    /** How many rows ahead of the scroll direction have their pictures loaded. */
+    private static final int PRELOAD_COUNT = 6;
+
     private List<ChatRoom> mRooms;
 
     private ChatMainFragment mFragment;
 
     private ChatNotificationsViewModel mNewChatModel;
 
+    /** The size room pictures are loaded at, known once a row is bound. */
+    private int mAvatarSize;
+
+    private ImagePreloader mPreloader;
+
     /**
      * Constructor initialize list of rooms.
      *
@@ -66,6 +75,23 @@ public class ChatRoomRecyclerViewAdapter extends
         return mRooms.size();
     }
 
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        mPreloader = new ImagePreloader(recyclerView, PRELOAD_COUNT, (requests, position) -> {
+            if (mAvatarSize > 0) {
+                AvatarLoader.preload(requests, mRooms.get(position).getImageUrl(), mAvatarSize);
+            }
+        });
+        recyclerView.addOnScrollListener(mPreloader);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        recyclerView.removeOnScrollListener(mPreloader);
+    }
+
     /**
      * The class describes how each Chatroom should look on the page.
      *
@@ -100,14 +126,9 @@ public class ChatRoomRecyclerViewAdapter extends
             binding.labelName.setText(room.getName());
             binding.imageNotification.setVisibility(View.INVISIBLE);
 
-            if (!mRoom.getImageUrl().isEmpty() && !mRoom.getImageUrl().equals("null")) {
-                Glide.with(binding.labelName.getContext()).load(mRoom.getImageUrl())
-                        .circleCrop()
-                        .placeholder(R.drawable.ic_profile_icon_24dp)
-                        .into(binding.imageRoom);
-            } else {
-                binding.imageRoom.setImageResource(R.drawable.ic_profile_icon_24dp);
-            }
+            mAvatarSize = AvatarLoader.getBucketSize(binding.imageRoom);
+            AvatarLoader.load(binding.imageRoom, mRoom.getImageUrl(),
+                    R.drawable.ic_profile_icon_24dp);
 
             //when someone clicks on a chat, takes to that chat list
             mView.setOnClickListener(view -> {
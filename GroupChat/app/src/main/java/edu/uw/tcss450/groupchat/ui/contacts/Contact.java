@@ -3,28 +3,45 @@ package edu.uw.tcss450.groupchat.ui.contacts;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
- * Object for storing user contact information.
+ * Immutable object for storing user contact information.
+ *
+ * Contacts are equal and hash by id only, so they can be kept in hashed collections no
+ * matter what else about them changes. Usernames are compared with a locale-aware collation
+ * key that is worked out once per contact, instead of on every comparison.
+ *
  * @author Dylan Hill
  * @version November 2020
  */
 public class Contact implements Comparable<Contact> {
 
-    private int mId;
+    /** Compares usernames for the current locale, ignoring case. Not thread safe. */
+    private static final Collator COLLATOR = Collator.getInstance();
 
-    private String mUsername;
+    static {
+        COLLATOR.setStrength(Collator.SECONDARY);
+    }
 
-    private String mName;
+    private final int mId;
 
-    private String mEmail;
+    private final String mUsername;
 
-    private String mImage;
+    private final String mName;
 
-    private int mType;
+    private final String mEmail;
 
-    public Contact() {
-        // do nothing
-    }
+    private final String mImage;
+
+    private final int mType;
+
+    /** Collation key of the username, made the first time it is needed. */
+    private CollationKey mSortKey;
 
     /**
      * Contact class constructor, initializes the contact with the passed arguments.
@@ -114,19 +131,63 @@ public class Contact implements Comparable<Contact> {
     }
 
     /**
-     * Changes the contact's username
+     * Returns a copy of the contact with a different username.
      * @param username the new username
+     * @return the changed contact
      */
-    public void setUsername(final String username) {
-        mUsername = username;
+    public Contact withUsername(final String username) {
+        return new Contact(mId, username, mName, mEmail, mImage, mType);
     }
 
     /**
-     * Changes the contact's name
+     * Returns a copy of the contact with a different name.
      * @param name the new name
+     * @return the changed contact
      */
-    public void setName(final String name) {
-        mName = name;
+    public Contact withName(final String name) {
+        return new Contact(mId, mUsername, name, mEmail, mImage, mType);
+    }
+
+    /**
+     * Returns the contact as a different type, or the contact itself if it already is.
+     * @param type the new type
+     * @return the contact with the type
+     */
+    public Contact withType(final int type) {
+        return type == mType ? this : new Contact(mId, mUsername, mName, mEmail, mImage, type);
+    }
+
+    /**
+     * Sorts contacts by type and then username. Every collation key is made up front, in one
+     * pass, so the sort itself only compares keys.
+     * @param contacts the contacts to sort
+     */
+    public static void sort(final List<Contact> contacts) {
+        synchronized (COLLATOR) {
+            for (Contact contact : contacts) contact.getSortKey();
+        }
+        Collections.sort(contacts);
+    }
+
+    /**
+     * Returns a sorted list of contacts.
+     * @param contacts the contacts to sort, left unchanged
+     * @return a new sorted list of the contacts
+     */
+    public static List<Contact> sorted(final Iterable<Contact> contacts) {
+        List<Contact> list = new ArrayList<>();
+        for (Contact contact : contacts) list.add(contact);
+        sort(list);
+        return list;
+    }
+
+    private CollationKey getSortKey() {
+        if (mSortKey == null) {
+            synchronized (COLLATOR) {
+                mSortKey = COLLATOR.getCollationKey(mUsername == null ? "" : mUsername);
+            }
+        }
+        return mSortKey;
     }
 
     @Override
@@ -137,12 +198,12 @@ public class Contact implements Comparable<Contact> {
 
     @Override
     public int hashCode() {
-        return mId + mUsername.hashCode() + mName.hashCode() + mEmail.hashCode() + mType;
+        return Integer.hashCode(mId);
     }
 
     @Override
     public int compareTo(Contact other) {
-        if (mType == other.getType()) return mUsername.compareToIgnoreCase(other.getUsername());
+        if (mType == other.getType()) return getSortKey().compareTo(other.getSortKey());
         return Integer.compare(mType, other.getType());
     }
 }
@@ -19,7 +19,6 @@ import com.google.android.material.tabs.TabLayoutMediator;
 import org.json.JSONException;
 
 import edu.uw.tcss450.groupchat.databinding.FragmentContactsHolderBinding;
-import edu.uw.tcss450.groupchat.model.UserInfoViewModel;
 import edu.uw.tcss450.groupchat.model.contacts.ContactNotificationsViewModel;
 import edu.uw.tcss450.groupchat.model.contacts.ContactsIncomingViewModel;
 import edu.uw.tcss450.groupchat.model.contacts.ContactsMainViewModel;
@@ -43,8 +42,6 @@ public class ContactsHolderFragment extends Fragment {
 
     private ContactNotificationsViewModel mNotifsModel;
 
-    private UserInfoViewModel mUserModel;
-
     private FragmentContactsHolderBinding binding;
 
     @Override
@@ -57,7 +54,6 @@ public class ContactsHolderFragment extends Fragment {
         mOutgoingModel = provider.get(ContactsOutgoingViewModel.class);
         mSearchModel = provider.get(ContactsSearchViewModel.class);
         mNotifsModel = provider.get(ContactNotificationsViewModel.class);
-        mUserModel = provider.get(UserInfoViewModel.class);
     }
 
     @Override
@@ -175,8 +171,8 @@ public class ContactsHolderFragment extends Fragment {
                         Log.e("JSON Parse Error", e.getMessage());
                     }
                 } else {
-                    mContactsModel.connect(mUserModel.getJwt());
-                    mSearchModel.connect(mUserModel.getJwt());
+                    mContactsModel.connect();
+                    mSearchModel.connect();
                 }
             } else {
                 Log.d("JSON Response", "No Response");
@@ -193,9 +189,9 @@ public class ContactsHolderFragment extends Fragment {
                         Log.e("JSON Parse Error", e.getMessage());
                     }
                 } else {
-                    mContactsModel.connect(mUserModel.getJwt());
-                    mIncomingModel.connect(mUserModel.getJwt());
-                    mSearchModel.connect(mUserModel.getJwt());
+                    mContactsModel.connect();
+                    mIncomingModel.connect();
+                    mSearchModel.connect();
                 }
             } else {
                 Log.d("JSON Response", "No Response");
@@ -212,8 +208,8 @@ public class ContactsHolderFragment extends Fragment {
                         Log.e("JSON Parse Error", e.getMessage());
                     }
                 } else {
-                    mOutgoingModel.connect(mUserModel.getJwt());
-                    mSearchModel.connect(mUserModel.getJwt());
+                    mOutgoingModel.connect();
+                    mSearchModel.connect();
                 }
             } else {
                 Log.d("JSON Response", "No Response");
@@ -230,8 +226,8 @@ public class ContactsHolderFragment extends Fragment {
                         Log.e("JSON Parse Error", e.getMessage());
                     }
                 } else {
-                    mOutgoingModel.connect(mUserModel.getJwt());
-                    mSearchModel.connect(mUserModel.getJwt());
+                    mOutgoingModel.connect();
+                    mSearchModel.connect();
                 }
             } else {
                 Log.d("JSON Response", "No Response");
@@ -17,7 +17,6 @@ import java.util.ArrayList;
 
 import edu.uw.tcss450.groupchat.R;
 import edu.uw.tcss450.groupchat.databinding.FragmentContactsIncomingBinding;
-import edu.uw.tcss450.groupchat.model.UserInfoViewModel;
 import edu.uw.tcss450.groupchat.model.contacts.ContactsIncomingViewModel;
 
 /**
@@ -29,15 +28,12 @@ public class ContactsIncomingFragment extends Fragment {
 
     private ContactsIncomingViewModel mModel;
 
-    private UserInfoViewModel mUserModel;
-
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         mModel = new ViewModelProvider(getActivity()).get(ContactsIncomingViewModel.class);
-        mUserModel = new ViewModelProvider(getActivity()).get(UserInfoViewModel.class);
 
-        mModel.connect(mUserModel.getJwt());
+        mModel.connect();
     }
 
     @Override
@@ -63,7 +59,7 @@ public class ContactsIncomingFragment extends Fragment {
         recyclerView.addItemDecoration(divItemDecor);
 
         binding.incomingSwipeContainer.setOnRefreshListener(() ->
-                mModel.connect(mUserModel.getJwt()));
+                mModel.refresh());
 
         mModel.addContactsObserver(getViewLifecycleOwner(), incoming -> {
             Contact blank = new Contact(0, "", "", "", "", 0);
@@ -17,7 +17,6 @@ import java.util.ArrayList;
 
 import edu.uw.tcss450.groupchat.R;
 import edu.uw.tcss450.groupchat.databinding.FragmentContactsMainBinding;
-import edu.uw.tcss450.groupchat.model.UserInfoViewModel;
 import edu.uw.tcss450.groupchat.model.contacts.ContactsMainViewModel;
 
 /**
@@ -29,15 +28,12 @@ public class ContactsMainFragment extends Fragment {
 
     private ContactsMainViewModel mModel;
 
-    private UserInfoViewModel mUserModel;
-
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         mModel = new ViewModelProvider(getActivity()).get(ContactsMainViewModel.class);
-        mUserModel = new ViewModelProvider(getActivity()).get(UserInfoViewModel.class);
 
-        mModel.connect(mUserModel.getJwt());
+        mModel.connect();
     }
 
     @Override
@@ -63,7 +59,7 @@ public class ContactsMainFragment extends Fragment {
         recyclerView.addItemDecoration(divItemDecor);
 
         binding.swipeContainer.setOnRefreshListener(() ->
-                mModel.connect(mUserModel.getJwt()));
+                mModel.refresh());
 
         mModel.addContactsObserver(getViewLifecycleOwner(), contacts -> {
             Contact blank = new Contact(0, "", "", "", "",0);
@@ -17,7 +17,6 @@ import java.util.ArrayList;
 
 import edu.uw.tcss450.groupchat.R;
 import edu.uw.tcss450.groupchat.databinding.FragmentContactsOutgoingBinding;
-import edu.uw.tcss450.groupchat.model.UserInfoViewModel;
 import edu.uw.tcss450.groupchat.model.contacts.ContactsOutgoingViewModel;
 
 /**
@@ -29,15 +28,12 @@ public class ContactsOutgoingFragment extends Fragment {
 
     private ContactsOutgoingViewModel mModel;
 
-    private UserInfoViewModel mUserModel;
-
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         mModel = new ViewModelProvider(getActivity()).get(ContactsOutgoingViewModel.class);
-        mUserModel = new ViewModelProvider(getActivity()).get(UserInfoViewModel.class);
 
-        mModel.connect(mUserModel.getJwt());
+        mModel.connect();
     }
 
     @Override
@@ -63,7 +59,7 @@ public class ContactsOutgoingFragment extends Fragment {
         recyclerView.addItemDecoration(divItemDecor);
 
         binding.outgoingSwipeContainer.setOnRefreshListener(() ->
-                mModel.connect(mUserModel.getJwt()));
+                mModel.refresh());
 
         mModel.addContactsObserver(getViewLifecycleOwner(), outgoing -> {
             Contact blank = new Contact(0, "", "", "", "", 0);
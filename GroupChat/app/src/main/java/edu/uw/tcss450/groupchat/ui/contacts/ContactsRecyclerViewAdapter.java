@@ -12,7 +12,6 @@ import androidx.fragment.app.FragmentActivity;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.google.android.material.snackbar.Snackbar;
 
 import org.json.JSONException;
@@ -23,8 +22,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import edu.uw.tcss450.groupchat.R;
 import edu.uw.tcss450.groupchat.databinding.FragmentContactCardBinding;
+import edu.uw.tcss450.groupchat.io.AvatarLoader;
+import edu.uw.tcss450.groupchat.io.ImagePreloader;
 import edu.uw.tcss450.groupchat.model.ProfileViewModel;
-import edu.uw.tcss450.groupchat.model.UserInfoViewModel;
 import edu.uw.tcss450.groupchat.model.chats.ChatRoomViewModel;
 import edu.uw.tcss450.groupchat.model.contacts.ContactsIncomingViewModel;
 import edu.uw.tcss450.groupchat.model.contacts.ContactsMainViewModel;
@@ -41,6 +41,9 @@ import edu.uw.tcss450.groupchat.ui.chats.ChatRoom;
 public class ContactsRecyclerViewAdapter extends
         RecyclerView.Adapter<ContactsRecyclerViewAdapter.ContactViewHolder> {
 
+    /** How many rows ahead of the scroll direction have their pictures loaded. */
+    private static final int PRELOAD_COUNT = 6;
+
     private List<Contact> mContacts;
 
     private ContactsMainViewModel mContactsModel;
@@ -55,10 +58,13 @@ public class ContactsRecyclerViewAdapter extends
 
     private ProfileViewModel mProfileModel;
 
-    private UserInfoViewModel mUserModel;
-
     private FragmentActivity mActivity;
 
+    /** The size profile pictures are loaded at, known once a row is bound. */
+    private int mAvatarSize;
+
+    private ImagePreloader mPreloader;
+
     /**
      * Constructor to initialize the list of contacts.
      *
@@ -76,9 +82,8 @@ public class ContactsRecyclerViewAdapter extends
         mSearchModel = provider.get(ContactsSearchViewModel.class);
         mChatRoomModel = provider.get(ChatRoomViewModel.class);
         mProfileModel = provider.get(ProfileViewModel.class);
-        mUserModel = provider.get(UserInfoViewModel.class);
 
-        mChatRoomModel.connect(mUserModel.getJwt());
+        mChatRoomModel.connect();
     }
 
     @NonNull
@@ -99,6 +104,23 @@ public class ContactsRecyclerViewAdapter extends
         return mContacts.size();
     }
 
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        mPreloader = new ImagePreloader(recyclerView, PRELOAD_COUNT, (requests, position) -> {
+            if (mAvatarSize > 0) {
+                AvatarLoader.preload(requests, mContacts.get(position).getImage(), mAvatarSize);
+            }
+        });
+        recyclerView.addOnScrollListener(mPreloader);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        recyclerView.removeOnScrollListener(mPreloader);
+    }
+
     public void setList(final List<Contact> items) {
         mContacts = items;
         notifyDataSetChanged();
@@ -142,14 +164,9 @@ public class ContactsRecyclerViewAdapter extends
             binding.textName.setText(mContact.getName());
             binding.textEmail.setText(mContact.getEmail());
 
-            if (!mContact.getImage().isEmpty() && !mContact.getImage().equals("null"))
-                Glide.with(binding.textName.getContext()).load(mContact.getImage())
-                        .circleCrop()
-                        .placeholder(R.drawable.ic_profile_icon_24dp)
-                        .into(binding.imageProfile);
-            else {
-                binding.imageProfile.setImageResource(R.drawable.ic_profile_icon_24dp);
-            }
+            mAvatarSize = AvatarLoader.getBucketSize(binding.imageProfile);
+            AvatarLoader.load(binding.imageProfile, mContact.getImage(),
+                    R.drawable.ic_profile_icon_24dp);
 
             binding.imageAdd.setVisibility(View.INVISIBLE);
             binding.imageRemove.setVisibility(View.INVISIBLE);
@@ -186,6 +203,9 @@ public class ContactsRecyclerViewAdapter extends
                     binding.imageAdd.setVisibility(View.VISIBLE);
                     binding.imageAdd.setOnClickListener(this::sendContactRequest);
                     break;
+                case -1:
+                    // placeholder for a directory row whose page is still loading
+                    break;
                 default:
                     Log.d("Contact Holder", "OnClickListener not set up properly");
                     break;
@@ -215,11 +235,11 @@ public class ContactsRecyclerViewAdapter extends
             dialog.show();
 
             dialog.getButton(AlertDialog.BUTTON_POSITIVE).setOnClickListener(click -> {
-                mContactsModel.connectContact(mContact.getId(), mUserModel.getJwt());
+                mContactsModel.connectContact(mContact.getId());
 
                 mContactsModel.addUsernameObserver(mActivity, username -> {
                     int roomId = mChatRoomModel.getRoomFromName(roomNames[selected.get()]);
-                    mContactsModel.connectAdd(mUserModel.getJwt(), username, roomId);
+                    mContactsModel.connectAdd(username, roomId);
                     Snackbar snack = Snackbar.make(mView,
                             username + " has been added to " + roomNames[selected.get()],
                             Snackbar.LENGTH_LONG);
@@ -247,10 +267,10 @@ public class ContactsRecyclerViewAdapter extends
             dialog.show();
 
             dialog.getButton(DialogInterface.BUTTON_POSITIVE).setOnClickListener(click -> {
-                mContactsModel.connectContact(mContact.getId(), mUserModel.getJwt());
+                mContactsModel.connectContact(mContact.getId());
 
                 mContactsModel.addUsernameObserver(mActivity, username -> {
-                    mContactsModel.connectRemove(mUserModel.getJwt(), username);
+                    mContactsModel.connectRemove(username);
                     mContactsModel.removeContact(mContact);
                     Snackbar snack = Snackbar.make(mView,
                             "Removed " + username + " from contacts",
@@ -278,10 +298,10 @@ public class ContactsRecyclerViewAdapter extends
             dialog.show();
 
             dialog.getButton(DialogInterface.BUTTON_POSITIVE).setOnClickListener(click -> {
-                mIncomingModel.connectContact(mContact.getId(), mUserModel.getJwt());
+                mIncomingModel.connectContact(mContact.getId());
 
                 mIncomingModel.addUsernameObserver(mActivity, username -> {
-                    mIncomingModel.connectAccept(mUserModel.getJwt(), username);
+                    mIncomingModel.connectAccept(username);
                     mIncomingModel.removeContact(mContact);
                     Snackbar snack = Snackbar.make(mView,
                             username + " added to Contacts",
@@ -311,10 +331,10 @@ public class ContactsRecyclerViewAdapter extends
             dialog.show();
 
             dialog.getButton(DialogInterface.BUTTON_POSITIVE).setOnClickListener(click -> {
-                mIncomingModel.connectContact(mContact.getId(), mUserModel.getJwt());
+                mIncomingModel.connectContact(mContact.getId());
 
                 mIncomingModel.addUsernameObserver(mActivity, username -> {
-                    mIncomingModel.connectReject(mUserModel.getJwt(), username);
+                    mIncomingModel.connectReject(username);
                     mIncomingModel.removeContact(mContact);
                     Snackbar snack = Snackbar.make(mView,
                             "Rejected request from " + username,
@@ -344,10 +364,10 @@ public class ContactsRecyclerViewAdapter extends
             dialog.show();
 
             dialog.getButton(DialogInterface.BUTTON_POSITIVE).setOnClickListener(click -> {
-                mOutgoingModel.connectContact(mContact.getId(), mUserModel.getJwt());
+                mOutgoingModel.connectContact(mContact.getId());
 
                 mOutgoingModel.addUsernameObserver(mActivity, username -> {
-                    mOutgoingModel.connectCancel(mUserModel.getJwt(), username);
+                    mOutgoingModel.connectCancel(username);
                     mOutgoingModel.removeContact(mContact);
                     Snackbar snack = Snackbar.make(mView,
                             "Canceled request to " + username,
@@ -377,10 +397,10 @@ public class ContactsRecyclerViewAdapter extends
             dialog.show();
 
             dialog.getButton(DialogInterface.BUTTON_POSITIVE).setOnClickListener(click -> {
-                mSearchModel.connectContact(mContact.getId(), mUserModel.getJwt());
+                mSearchModel.connectContact(mContact.getId());
 
                 mSearchModel.addUsernameObserver(mActivity, username -> {
-                    mSearchModel.connectAdd(mUserModel.getJwt(), username);
+                    mSearchModel.connectAdd(username);
                     Snackbar snack = Snackbar.make(mView,
                             "Sent request to " + username,
                             Snackbar.LENGTH_LONG);
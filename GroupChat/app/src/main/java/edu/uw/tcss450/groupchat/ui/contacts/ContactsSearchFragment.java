@@ -7,6 +7,7 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.DividerItemDecoration;
+import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import android.view.LayoutInflater;
@@ -14,11 +15,13 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.SearchView;
 
+import com.android.volley.Request;
+
 import java.util.ArrayList;
 
 import edu.uw.tcss450.groupchat.R;
 import edu.uw.tcss450.groupchat.databinding.FragmentContactsSearchBinding;
-import edu.uw.tcss450.groupchat.model.UserInfoViewModel;
+import edu.uw.tcss450.groupchat.io.RequestScheduler;
 import edu.uw.tcss450.groupchat.model.contacts.ContactsSearchViewModel;
 
 /**
@@ -30,15 +33,15 @@ public class ContactsSearchFragment extends Fragment {
 
     private ContactsSearchViewModel mModel;
 
-    private UserInfoViewModel mUserModel;
+    private RequestScheduler mRequests;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         mModel = new ViewModelProvider(getActivity()).get(ContactsSearchViewModel.class);
-        mUserModel = new ViewModelProvider(getActivity()).get(UserInfoViewModel.class);
+        mRequests = RequestScheduler.getInstance(getContext());
 
-        mModel.connect(mUserModel.getJwt());
+        mModel.connect();
     }
 
     @Override
@@ -63,21 +66,38 @@ public class ContactsSearchFragment extends Fragment {
                 new DividerItemDecoration(getContext(), DividerItemDecoration.VERTICAL);
         recyclerView.addItemDecoration(divItemDecor);
 
-        binding.searchSwipeContainer.setOnRefreshListener(() ->
-                mModel.connect(mUserModel.getJwt(),
-                        binding.searchUsers.getQuery().toString()));
+        binding.searchSwipeContainer.setOnRefreshListener(() -> {
+            String query = binding.searchUsers.getQuery().toString().trim();
+            if (query.isEmpty()) {
+                mModel.refresh();
+            } else {
+                mRequests.runFor(getViewLifecycleOwner(), Request.Priority.IMMEDIATE, () ->
+                        mModel.connect(query));
+            }
+        });
+
+        //load the pages of the directory as they scroll into view
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                LinearLayoutManager manager = (LinearLayoutManager) rv.getLayoutManager();
+                mModel.loadAround(manager.findFirstVisibleItemPosition(),
+                        manager.findLastVisibleItemPosition());
+            }
+        });
 
         binding.searchUsers.setSubmitButtonEnabled(true);
         binding.searchUsers.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
             @Override
             public boolean onQueryTextSubmit(String query) {
-                mModel.connect(mUserModel.getJwt(), query);
+                mRequests.runFor(getViewLifecycleOwner(), Request.Priority.IMMEDIATE, () ->
+                        mModel.connect(query));
                 return false;
             }
 
             @Override
             public boolean onQueryTextChange(String newText) {
-                if (newText.length() == 0) mModel.connect(mUserModel.getJwt());
+                mModel.search(newText);
                 return false;
             }
         });
@@ -1,9 +1,7 @@
 package edu.uw.tcss450.groupchat.ui.settings;
 
 import android.Manifest;
-import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.net.Uri;
 import android.os.Bundle;
@@ -21,7 +19,6 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
-import com.bumptech.glide.Glide;
 
 import org.json.JSONException;
 
@@ -31,6 +28,8 @@ import java.io.InputStream;
 
 import edu.uw.tcss450.groupchat.R;
 import edu.uw.tcss450.groupchat.databinding.FragmentProfileBinding;
+import edu.uw.tcss450.groupchat.io.AvatarLoader;
+import edu.uw.tcss450.groupchat.io.SessionManager;
 import edu.uw.tcss450.groupchat.model.ProfileViewModel;
 import edu.uw.tcss450.groupchat.model.UserInfoViewModel;
 import edu.uw.tcss450.groupchat.utils.PasswordValidator;
@@ -85,7 +84,7 @@ public class ProfileFragment extends Fragment {
         mUserModel = new ViewModelProvider(getActivity()).get(UserInfoViewModel.class);
         mProfileModel = new ViewModelProvider(getActivity()).get(ProfileViewModel.class);
 
-        mProfileModel.connect(mUserModel.getJwt());
+        mProfileModel.connect();
     }
 
     @Override
@@ -130,11 +129,8 @@ public class ProfileFragment extends Fragment {
             binding.textUserName.setText(profile.getFirst() + " " + profile.getLast());
             binding.textUserUsername.setText(profile.getUsername());
             binding.textUserEmail.setText(profile.getEmail());
-            if (!profile.getImage().isEmpty() && !profile.getImage().equals("null"))
-                Glide.with(this.getActivity()).load(profile.getImage())
-                        .circleCrop()
-                        .placeholder(R.drawable.ic_profile_black_24dp)
-                        .into(binding.imageProfileIcon);
+            AvatarLoader.load(binding.imageProfileIcon, profile.getImage(),
+                    R.drawable.ic_profile_black_24dp);
             binding.profileWait.setVisibility(View.GONE);
         });
 
@@ -156,16 +152,11 @@ public class ProfileFragment extends Fragment {
                     try {
                         String email = response.getString("email");
                         String user = response.getString("username");
-                        String jwt = response.getString("token");
-                        mUserModel.update(email, user, jwt);
+                        mUserModel.update(email, user);
+                        SessionManager.getInstance(getActivity())
+                                .update(response.getString("token"));
 
-                        SharedPreferences prefs =
-                                getActivity().getSharedPreferences(
-                                        getString(R.string.keys_shared_prefs),
-                                        Context.MODE_PRIVATE);
-                        prefs.edit().putString(getString(R.string.keys_prefs_jwt), jwt).apply();
-
-                        mProfileModel.connect(mUserModel.getJwt());
+                        mProfileModel.connect();
                     } catch (JSONException e) {
                         Log.e("JSON Parse Error", e.getMessage());
                         binding.profileWait.setVisibility(View.GONE);
@@ -210,7 +201,7 @@ public class ProfileFragment extends Fragment {
             try {
                 InputStream iStream = getContext().getContentResolver().openInputStream(imageUri);
                 byte[] inputData = getBytes(iStream);
-                mProfileModel.uploadImage(inputData, mUserModel.getJwt());
+                mProfileModel.uploadImage(inputData);
                 getActivity().findViewById(R.id.profile_wait).setVisibility(View.VISIBLE);
             } catch (IOException e) {
                 e.printStackTrace();
@@ -310,7 +301,7 @@ public class ProfileFragment extends Fragment {
                     String last = binding.editProfileLast.getText().toString();
                     String user = binding.editProfileUsername.getText().toString().trim();
                     String email = binding.editProfileEmail.getText().toString().trim();
-                    mProfileModel.connectUpdate(first, last, user, email, mUserModel.getJwt());
+                    mProfileModel.connectUpdate(first, last, user, email);
                     binding.profileWait.setVisibility(View.VISIBLE);
                 },
                 result -> binding.editProfileEmail.setError("Invalid email address."));
@@ -24,6 +24,7 @@ import android.widget.ArrayAdapter;
 import android.widget.Spinner;
 import android.widget.TextView;
 
+import com.android.volley.Request;
 import com.google.android.gms.maps.model.LatLng;
 
 import org.json.JSONException;
@@ -35,7 +36,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import edu.uw.tcss450.groupchat.R;
 import edu.uw.tcss450.groupchat.databinding.FragmentWeatherMainBinding;
-import edu.uw.tcss450.groupchat.model.UserInfoViewModel;
+import edu.uw.tcss450.groupchat.io.RequestScheduler;
 import edu.uw.tcss450.groupchat.model.weather.CurrentLocationViewModel;
 import edu.uw.tcss450.groupchat.model.weather.SavedLocationsViewModel;
 import edu.uw.tcss450.groupchat.model.weather.WeatherInfoViewModel;
@@ -53,10 +54,10 @@ public class WeatherMainFragment extends Fragment {
 
     private WeatherInfoViewModel mWeatherModel;
 
-    private UserInfoViewModel mUserModel;
-
     private FragmentWeatherMainBinding binding;
 
+    private RequestScheduler mRequests;
+
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -64,7 +65,7 @@ public class WeatherMainFragment extends Fragment {
         mLocationModel = provider.get(CurrentLocationViewModel.class);
         mSavesModel = provider.get(SavedLocationsViewModel.class);
         mWeatherModel = provider.get(WeatherInfoViewModel.class);
-        mUserModel = provider.get(UserInfoViewModel.class);
+        mRequests = RequestScheduler.getInstance(getContext());
         setHasOptionsMenu(true);
     }
 
@@ -90,7 +91,8 @@ public class WeatherMainFragment extends Fragment {
 
         binding.buttonRefresh.setOnClickListener(button -> {
             SavedLocation location = mWeatherModel.getLocation();
-            mWeatherModel.connect(location.getLatitude(), location.getLongitude());
+            mRequests.runFor(getViewLifecycleOwner(), Request.Priority.IMMEDIATE, () ->
+                    mWeatherModel.connect(location.getLatitude(), location.getLongitude()));
             binding.weatherWait.setVisibility(View.VISIBLE);
         });
 
@@ -110,7 +112,7 @@ public class WeatherMainFragment extends Fragment {
                 mWeatherModel.initialize(new SavedLocation(
                         name, location.getLatitude(), location.getLongitude()));
                 mWeatherModel.connect(location.getLatitude(), location.getLongitude());
-                mSavesModel.connect(mUserModel.getJwt());
+                mSavesModel.connect();
                 binding.weatherWait.setVisibility(View.VISIBLE);
             } else {
                 mWeatherModel.setCurrent(location);
@@ -205,7 +207,7 @@ public class WeatherMainFragment extends Fragment {
                     } catch (JSONException e) {
                         Log.e("JSON Parse Error", e.getMessage());
                     }
-                    mSavesModel.connect(mUserModel.getJwt());
+                    mSavesModel.connect();
                 }
             } else {
                 Log.d("JSON Response", "No Response");
@@ -259,7 +261,9 @@ public class WeatherMainFragment extends Fragment {
                         }
                     }
                     mWeatherModel.setLocation(newLocation);
-                    mWeatherModel.connect(newLocation.getLatitude(), newLocation.getLongitude());
+                    mRequests.runFor(getViewLifecycleOwner(), Request.Priority.IMMEDIATE, () ->
+                            mWeatherModel.connect(newLocation.getLatitude(),
+                                    newLocation.getLongitude()));
                     if (mSavesModel.isFavorite(newLocation)) {
                         favoriteItem.setIcon(R.drawable.ic_weather_star_filled_24dp);
                     } else {
@@ -279,12 +283,10 @@ public class WeatherMainFragment extends Fragment {
     private void favoriteLocation() {
         SavedLocation location = mWeatherModel.getLocation();
         if (mSavesModel.isFavorite(location)) {
-            mSavesModel.connectRemoveLocation(mUserModel.getJwt(),
-                    location.getLatitude(),
+            mSavesModel.connectRemoveLocation(location.getLatitude(),
                     location.getLongitude());
         } else {
-            mSavesModel.connectSaveLocation(mUserModel.getJwt(),
-                    location.getName(),
+            mSavesModel.connectSaveLocation(location.getName(),
                     location.getLatitude(),
                     location.getLongitude());
         }
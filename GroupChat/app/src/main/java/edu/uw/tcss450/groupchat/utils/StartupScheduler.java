@@ -0,0 +1,125 @@
+package edu.uw.tcss450.groupchat.utils;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.view.Choreographer;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Splits the startup of a screen into the work needed for its first frame and work that can
+ * wait until the main thread has nothing else to do.
+ *
+ * Deferred tasks run one per idle pass of the main thread, in the order they were added, so
+ * a long queue never holds up input or drawing for more than a single task. Every task is
+ * wrapped in a trace section, and the time to the first frame is logged, so startup can be
+ * measured with systrace or from logcat.
+ *
+ * Methods must be called on the main thread.
+ *
+ * @version January, 2021
+ */
+public class StartupScheduler implements MessageQueue.IdleHandler {
+
+    private static final String TAG = "STARTUP";
+
+    private final String mName;
+
+    private final Queue<Task> mTasks;
+
+    /** When the screen started being created, in uptime milliseconds. */
+    private final long mStart;
+
+    private boolean mAdded;
+
+    /**
+     * Constructor to start timing the startup of a screen.
+     *
+     * @param name the name of the screen, used in trace sections and logs
+     */
+    public StartupScheduler(final String name) {
+        mName = name;
+        mTasks = new ArrayDeque<>();
+        mStart = SystemClock.uptimeMillis();
+        mAdded = false;
+    }
+
+    /**
+     * Opens a trace section for critical path work. Must be closed with {@link #endSection}.
+     *
+     * @param label what the section does
+     */
+    public void beginSection(final String label) {
+        Trace.beginSection(mName + ":" + label);
+    }
+
+    /**
+     * Closes the section opened last with {@link #beginSection}.
+     */
+    public void endSection() {
+        Trace.endSection();
+    }
+
+    /**
+     * Adds a task to run once the main thread is idle.
+     *
+     * @param label what the task does
+     * @param task the task
+     */
+    public void defer(final String label, final Runnable task) {
+        mTasks.add(new Task(label, task));
+        if (!mAdded) {
+            mAdded = true;
+            Looper.myQueue().addIdleHandler(this);
+        }
+    }
+
+    /**
+     * Logs how long after the screen started being created, and after the process started,
+     * the next frame is drawn. Call once the content view is set.
+     */
+    public void traceFirstFrame() {
+        Choreographer.getInstance().postFrameCallback(frameTimeNanos -> {
+            long now = SystemClock.uptimeMillis();
+            Log.i(TAG, mName + " first frame after " + (now - mStart) + " ms, "
+                    + (now - Process.getStartUptimeMillis()) + " ms since process start");
+        });
+    }
+
+    @Override
+    public boolean queueIdle() {
+        Task task = mTasks.poll();
+        if (task != null) run(task);
+        mAdded = !mTasks.isEmpty();
+        return mAdded;
+    }
+
+    private void run(final Task task) {
+        Trace.beginSection(mName + ":" + task.mLabel);
+        try {
+            task.mTask.run();
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * A deferred task and what it does.
+     */
+    private static final class Task {
+
+        private final String mLabel;
+
+        private final Runnable mTask;
+
+        private Task(final String label, final Runnable task) {
+            mLabel = label;
+            mTask = task;
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package edu.uw.tcss450.groupchat.io;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link RealtimeSocket} against a local web server.
+ */
+public class RealtimeSocketTest {
+
+    private static final String TOKEN = "token";
+
+    private static final String REF = "ref";
+
+    private static final long WAIT = 5;
+
+    private MockWebServer mServer;
+
+    private FakeScheduler mScheduler;
+
+    private List<String> mRefreshed;
+
+    private BlockingQueue<JSONObject> mEvents;
+
+    /** The server side of every socket opened, in order. */
+    private BlockingQueue<WebSocket> mServerSockets;
+
+    /** The frames the server received, in order. */
+    private BlockingQueue<String> mServerFrames;
+
+    private RealtimeSocket mSocket;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new MockWebServer();
+        mServer.start();
+        mScheduler = new FakeScheduler();
+        mRefreshed = new ArrayList<>();
+        mEvents = new LinkedBlockingQueue<>();
+        mServerSockets = new LinkedBlockingQueue<>();
+        mServerFrames = new LinkedBlockingQueue<>();
+
+        RealtimeSocket.Session session = new RealtimeSocket.Session() {
+            @Override
+            public String getToken() {
+                return TOKEN;
+            }
+
+            @Override
+            public void refresh(final String rejected) {
+                synchronized (mRefreshed) {
+                    mRefreshed.add(rejected);
+                }
+            }
+        };
+        RealtimeSocket.Events events = new RealtimeSocket.Events() {
+            @Override
+            public void onEvent(final JSONObject event) {
+                mEvents.add(event);
+            }
+
+            @Override
+            public void onError(final String message) {
+                // dropped sockets are what these tests are about
+            }
+        };
+        mSocket = new RealtimeSocket(new OkHttpClient(),
+                mServer.url("/realtime").toString(),
+                session,
+                mScheduler,
+                new Random(0),
+                events);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mSocket.stop();
+        mServer.shutdown();
+    }
+
+    @Test
+    public void reconnect_backsOffAfterEachFailure() throws Exception {
+        mServer.enqueue(new MockResponse().setResponseCode(503));
+        mServer.enqueue(new MockResponse().setResponseCode(503));
+        mServer.enqueue(upgrade());
+        mSocket.start();
+
+        Task first = mScheduler.awaitDelayed();
+        assertInRange(RealtimeSocket.MIN_BACKOFF / 2, RealtimeSocket.MIN_BACKOFF, first.mDelay);
+        first.run();
+
+        Task second = mScheduler.awaitDelayed();
+        assertInRange(RealtimeSocket.MIN_BACKOFF, 2 * RealtimeSocket.MIN_BACKOFF,
+                second.mDelay);
+        second.run();
+
+        assertNotNull(mServerSockets.poll(WAIT, TimeUnit.SECONDS));
+        awaitConnected();
+        assertEquals(3, mServer.getRequestCount());
+        assertTrue(mRefreshed.isEmpty());
+    }
+
+    @Test
+    public void reconnect_refreshesATokenTurnedAway() throws Exception {
+        mServer.enqueue(new MockResponse().setResponseCode(401));
+        mSocket.start();
+
+        mScheduler.awaitDelayed();
+        synchronized (mRefreshed) {
+            assertEquals(1, mRefreshed.size());
+            assertEquals(TOKEN, mRefreshed.get(0));
+        }
+    }
+
+    @Test
+    public void reconnect_resumesAfterTheLastEvent() throws Exception {
+        mServer.enqueue(upgrade());
+        mServer.enqueue(upgrade());
+        mSocket.start();
+
+        WebSocket first = mServerSockets.poll(WAIT, TimeUnit.SECONDS);
+        assertNotNull(first);
+        first.send(event(1));
+        first.send(event(2));
+        assertEquals(1, nextEvent().getLong("id"));
+        assertEquals(2, nextEvent().getLong("id"));
+        first.close(1001, "going away");
+
+        mScheduler.awaitDelayed().run();
+        WebSocket second = mServerSockets.poll(WAIT, TimeUnit.SECONDS);
+        assertNotNull(second);
+
+        RecordedRequest opened = mServer.takeRequest(WAIT, TimeUnit.SECONDS);
+        assertEquals("/realtime?after=0", opened.getPath());
+        assertEquals(TOKEN, opened.getHeader("Authorization"));
+        RecordedRequest resumed = mServer.takeRequest(WAIT, TimeUnit.SECONDS);
+        assertEquals("/realtime?after=2", resumed.getPath());
+
+        // an event seen before the drop is not passed on twice
+        second.send(event(2));
+        second.send(event(3));
+        assertEquals(3, nextEvent().getLong("id"));
+    }
+
+    @Test
+    public void send_acked() throws Exception {
+        WebSocket server = open();
+        AtomicInteger acked = new AtomicInteger();
+        AtomicInteger fellBack = new AtomicInteger();
+
+        assertTrue(mSocket.send(7, "hello", REF,
+                response -> acked.incrementAndGet(), fellBack::incrementAndGet));
+        JSONObject frame = nextFrame();
+        assertEquals("send", frame.getString("type"));
+        assertEquals(REF, frame.getString("ref"));
+        assertEquals(7, frame.getInt("chatid"));
+        assertEquals("hello", frame.getString("message"));
+        assertTrue(mScheduler.hasDelayed());
+
+        server.send(ack(REF));
+        server.send(event(1));
+        nextEvent();
+
+        assertEquals(1, acked.get());
+        assertEquals(0, fellBack.get());
+        assertFalse(mScheduler.hasDelayed());
+    }
+
+    @Test
+    public void send_ackTimeoutReopensTheSocket() throws Exception {
+        open();
+        mServer.enqueue(upgrade());
+        AtomicInteger acked = new AtomicInteger();
+        AtomicInteger fellBack = new AtomicInteger();
+
+        assertTrue(mSocket.send(7, "hello", REF,
+                response -> acked.incrementAndGet(), fellBack::incrementAndGet));
+        nextFrame();
+        Task timeout = mScheduler.awaitTimeout();
+        timeout.run();
+
+        // the server got the message, only the ack was lost
+        mScheduler.awaitDelayed(RealtimeSocket.ACK_TIMEOUT).run();
+        WebSocket second = mServerSockets.poll(WAIT, TimeUnit.SECONDS);
+        assertNotNull(second);
+        second.send(msg(1, REF));
+        nextEvent();
+
+        assertEquals(1, acked.get());
+        assertEquals(0, fellBack.get());
+    }
+
+    @Test
+    public void send_dropWaitsForTheReplay() throws Exception {
+        WebSocket server = open();
+        mServer.enqueue(upgrade());
+        AtomicInteger acked = new AtomicInteger();
+        AtomicInteger fellBack = new AtomicInteger();
+
+        assertTrue(mSocket.send(7, "hello", REF,
+                response -> acked.incrementAndGet(), fellBack::incrementAndGet));
+        nextFrame();
+        server.close(1001, "going away");
+
+        Task reconnect = mScheduler.awaitDelayed(RealtimeSocket.ACK_TIMEOUT);
+        assertEquals(0, fellBack.get());
+        reconnect.run();
+        WebSocket second = mServerSockets.poll(WAIT, TimeUnit.SECONDS);
+        assertNotNull(second);
+        awaitConnected();
+        second.send(msg(1, REF));
+        assertEquals(1, nextEvent().getLong("id"));
+
+        assertEquals(1, acked.get());
+        assertEquals(0, fellBack.get());
+    }
+
+    @Test
+    public void send_notReplayedFallsBack() throws Exception {
+        WebSocket server = open();
+        mServer.enqueue(upgrade());
+        AtomicInteger acked = new AtomicInteger();
+        AtomicInteger fellBack = new AtomicInteger();
+
+        assertTrue(mSocket.send(7, "hello", REF,
+                response -> acked.incrementAndGet(), fellBack::incrementAndGet));
+        nextFrame();
+        server.close(1001, "going away");
+        mScheduler.awaitDelayed(RealtimeSocket.ACK_TIMEOUT).run();
+        WebSocket second = mServerSockets.poll(WAIT, TimeUnit.SECONDS);
+        assertNotNull(second);
+
+        mScheduler.awaitTimeout().run();
+        assertEquals(1, fellBack.get());
+
+        // turning up after the fallback does not settle it twice
+        second.send(msg(1, REF));
+        nextEvent();
+        assertEquals(0, acked.get());
+        assertEquals(1, fellBack.get());
+    }
+
+    @Test
+    public void send_stopKeepsTheMessage() throws Exception {
+        open();
+        AtomicInteger fellBack = new AtomicInteger();
+
+        assertTrue(mSocket.send(7, "hello", REF, response -> { }, fellBack::incrementAndGet));
+        nextFrame();
+        mSocket.stop();
+
+        assertEquals(0, fellBack.get());
+        assertFalse(mScheduler.hasDelayed());
+    }
+
+    @Test
+    public void send_notConnected() {
+        assertFalse(mSocket.send(7, "hello", REF, response -> fail(), () -> fail()));
+    }
+
+    private WebSocket open() throws Exception {
+        mServer.enqueue(upgrade());
+        mSocket.start();
+        WebSocket server = mServerSockets.poll(WAIT, TimeUnit.SECONDS);
+        assertNotNull(server);
+        awaitConnected();
+        return server;
+    }
+
+    private MockResponse upgrade() {
+        return new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+            @Override
+            public void onOpen(WebSocket webSocket, Response response) {
+                mServerSockets.add(webSocket);
+            }
+
+            @Override
+            public void onMessage(WebSocket webSocket, String text) {
+                mServerFrames.add(text);
+            }
+
+            @Override
+            public void onClosing(WebSocket webSocket, int code, String reason) {
+                webSocket.close(1000, null);
+            }
+        });
+    }
+
+    private void awaitConnected() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(WAIT);
+        while (!mSocket.isConnected()) {
+            assertTrue("never connected", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private JSONObject nextEvent() throws InterruptedException {
+        JSONObject event = mEvents.poll(WAIT, TimeUnit.SECONDS);
+        assertNotNull(event);
+        return event;
+    }
+
+    private JSONObject nextFrame() throws InterruptedException, JSONException {
+        String frame = mServerFrames.poll(WAIT, TimeUnit.SECONDS);
+        assertNotNull(frame);
+        return new JSONObject(frame);
+    }
+
+    private static String event(final long id) throws JSONException {
+        return new JSONObject()
+                .put("id", id)
+                .put("type", "typeStatus")
+                .put("message", new JSONObject())
+                .toString();
+    }
+
+    private static String msg(final long id, final String ref) throws JSONException {
+        return new JSONObject()
+                .put("id", id)
+                .put("type", "msg")
+                .put("chatid", 7)
+                .put("ref", ref)
+                .put("message", new JSONObject())
+                .toString();
+    }
+
+    private static String ack(final String ref) throws JSONException {
+        return new JSONObject().put("type", "ack").put("ref", ref).toString();
+    }
+
+    private static void assertInRange(final long low, final long high, final long actual) {
+        assertTrue(actual + " not in [" + low + ", " + high + "]",
+                low <= actual && actual <= high);
+    }
+
+    /**
+     * A delayed task the test runs itself.
+     */
+    private static final class Task {
+
+        private final Runnable mTask;
+
+        private final long mDelay;
+
+        private Task(final Runnable task, final long delay) {
+            mTask = task;
+            mDelay = delay;
+        }
+
+        private void run() {
+            mTask.run();
+        }
+    }
+
+    /**
+     * Runs posted tasks at once and keeps delayed ones until the test takes them.
+     */
+    private static final class FakeScheduler implements RealtimeSocket.Scheduler {
+
+        private final List<Task> mDelayed = new ArrayList<>();
+
+        @Override
+        public void post(final Runnable task) {
+            task.run();
+        }
+
+        @Override
+        public synchronized void postDelayed(final Runnable task, final long delay) {
+            mDelayed.add(new Task(task, delay));
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void removeCallbacks(final Runnable task) {
+            mDelayed.removeIf(delayed -> delayed.mTask == task);
+        }
+
+        private synchronized boolean hasDelayed() {
+            return !mDelayed.isEmpty();
+        }
+
+        /**
+         * Takes the oldest delayed task, waiting for one to be posted.
+         */
+        private Task awaitDelayed() throws InterruptedException {
+            return awaitDelayed(-1);
+        }
+
+        /**
+         * Takes the oldest delayed task, other than those with the delay given.
+         */
+        private Task awaitDelayed(final long skipDelay) throws InterruptedException {
+            return await(delay -> delay != skipDelay);
+        }
+
+        /**
+         * Takes the oldest task waiting for an ack or a replay.
+         */
+        private Task awaitTimeout() throws InterruptedException {
+            return await(delay -> delay == RealtimeSocket.ACK_TIMEOUT);
+        }
+
+        private synchronized Task await(final LongPredicate match) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(WAIT);
+            while (true) {
+                for (Task task : mDelayed) {
+                    if (match.test(task.mDelay)) {
+                        mDelayed.remove(task);
+                        return task;
+                    }
+                }
+                long left = deadline - System.currentTimeMillis();
+                assertTrue("nothing was scheduled", left > 0);
+                wait(left);
+            }
+        }
+    }
+}
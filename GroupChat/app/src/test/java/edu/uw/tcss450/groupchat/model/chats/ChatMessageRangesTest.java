@@ -0,0 +1,153 @@
+package edu.uw.tcss450.groupchat.model.chats;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link ChatMessageRanges}.
+ */
+public class ChatMessageRangesTest {
+
+    private ChatMessageRanges mRanges;
+
+    @Before
+    public void setUp() {
+        mRanges = new ChatMessageRanges();
+    }
+
+    @Test
+    public void empty_hasNothingLoaded() {
+        assertEquals(-1, mRanges.getOldest());
+        assertFalse(mRanges.hasGaps());
+        assertFalse(mRanges.hasOldest());
+        assertEquals(Collections.emptyList(), mRanges.getGapEdges());
+    }
+
+    @Test
+    public void add_separateRunsLeaveAGap() {
+        mRanges.add(10, 20);
+        mRanges.add(40, 50);
+
+        assertTrue(mRanges.hasGaps());
+        assertEquals(Collections.singletonList(40), mRanges.getGapEdges());
+        assertTrue(mRanges.contains(15));
+        assertFalse(mRanges.contains(30));
+        assertEquals(10, mRanges.getOldest());
+    }
+
+    @Test
+    public void add_acceptsEndsInEitherOrder() {
+        mRanges.add(20, 10);
+
+        assertTrue(mRanges.contains(10));
+        assertTrue(mRanges.contains(20));
+        assertEquals(10, mRanges.getOldest());
+    }
+
+    @Test
+    public void add_overlappingRunsMerge() {
+        mRanges.add(10, 20);
+        mRanges.add(40, 50);
+        mRanges.add(60, 70);
+        mRanges.add(15, 65);
+
+        assertFalse(mRanges.hasGaps());
+        assertTrue(mRanges.contains(70));
+        assertEquals(10, mRanges.getOldest());
+    }
+
+    @Test
+    public void add_runInsideARangeChangesNothing() {
+        mRanges.add(10, 20);
+        mRanges.add(12, 12);
+
+        assertFalse(mRanges.hasGaps());
+        assertTrue(mRanges.contains(20));
+    }
+
+    @Test
+    public void add_neighbouringIdsDoNotMerge() {
+        // ids are shared by every room, so 21 following 20 proves nothing
+        mRanges.add(10, 20);
+        mRanges.add(21, 30);
+
+        assertTrue(mRanges.hasGaps());
+        assertEquals(Collections.singletonList(21), mRanges.getGapEdges());
+    }
+
+    @Test
+    public void addBefore_joinsThePageToItsRange() {
+        mRanges.add(10, 20);
+        mRanges.add(40, 50);
+        mRanges.addBefore(40, 25);
+
+        // the page reached back to 25, the gap is now between 20 and 25
+        assertEquals(Collections.singletonList(25), mRanges.getGapEdges());
+        assertTrue(mRanges.contains(50));
+
+        mRanges.addBefore(25, 15);
+
+        assertFalse(mRanges.hasGaps());
+        assertTrue(mRanges.contains(50));
+        assertEquals(10, mRanges.getOldest());
+    }
+
+    @Test
+    public void addBefore_withoutARangeCoversUpToTheId() {
+        mRanges.addBefore(40, 30);
+
+        assertTrue(mRanges.contains(30));
+        assertTrue(mRanges.contains(39));
+        assertFalse(mRanges.contains(40));
+    }
+
+    @Test
+    public void extendNewest_startsTheFirstRange() {
+        mRanges.extendNewest(5);
+
+        assertTrue(mRanges.contains(5));
+        assertEquals(5, mRanges.getOldest());
+    }
+
+    @Test
+    public void extendNewest_growsOnlyTheNewestRange() {
+        mRanges.add(10, 20);
+        mRanges.add(40, 50);
+        mRanges.extendNewest(60);
+
+        assertTrue(mRanges.contains(55));
+        assertFalse(mRanges.contains(30));
+        assertEquals(Collections.singletonList(40), mRanges.getGapEdges());
+    }
+
+    @Test
+    public void extendNewest_ignoresLoadedIds() {
+        mRanges.add(10, 20);
+        mRanges.add(40, 50);
+        mRanges.extendNewest(15);
+
+        assertFalse(mRanges.contains(30));
+        assertTrue(mRanges.contains(50));
+    }
+
+    @Test
+    public void getGapEdges_lowestFirstWithoutTheOldestRange() {
+        mRanges.add(70, 80);
+        mRanges.add(10, 20);
+        mRanges.add(40, 50);
+
+        assertEquals(Arrays.asList(40, 70), mRanges.getGapEdges());
+    }
+
+    @Test
+    public void setHasOldest_isRemembered() {
+        mRanges.setHasOldest();
+
+        assertTrue(mRanges.hasOldest());
+    }
+}
@@ -0,0 +1,132 @@
+package edu.uw.tcss450.groupchat.model.chats;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link ChatMessageSequence}.
+ */
+public class ChatMessageSequenceTest {
+
+    private ChatMessageSequence mSequence;
+
+    @Before
+    public void setUp() {
+        mSequence = new ChatMessageSequence();
+    }
+
+    @Test
+    public void offer_firstMessageStartsTheRun() {
+        assertEquals(ChatMessageSequence.IN_ORDER, mSequence.offer(7, 100));
+        assertEquals(100, mSequence.getContiguousId());
+    }
+
+    @Test
+    public void offer_withoutSequenceIsInOrder() {
+        assertEquals(ChatMessageSequence.IN_ORDER, mSequence.offer(-1, 100));
+        assertEquals(-1, mSequence.getContiguousId());
+    }
+
+    @Test
+    public void offer_nextMessageExtendsTheRun() {
+        mSequence.offer(1, 100);
+
+        assertEquals(ChatMessageSequence.IN_ORDER, mSequence.offer(2, 105));
+        assertEquals(105, mSequence.getContiguousId());
+    }
+
+    @Test
+    public void offer_skippedNumberIsAGap() {
+        mSequence.offer(1, 100);
+
+        assertEquals(ChatMessageSequence.GAP, mSequence.offer(3, 110));
+        assertEquals(100, mSequence.getContiguousId());
+        assertEquals(110, mSequence.getAheadId(3));
+    }
+
+    @Test
+    public void offer_followingAHeldMessageIsAhead() {
+        mSequence.offer(1, 100);
+        mSequence.offer(3, 110);
+
+        assertEquals(ChatMessageSequence.AHEAD, mSequence.offer(4, 115));
+        assertEquals(115, mSequence.getAheadId(4));
+    }
+
+    @Test
+    public void offer_missingMessageDrainsTheHeldOnes() {
+        mSequence.offer(1, 100);
+        mSequence.offer(3, 110);
+        mSequence.offer(4, 115);
+
+        assertEquals(ChatMessageSequence.IN_ORDER, mSequence.offer(2, 105));
+        assertEquals(115, mSequence.getContiguousId());
+        assertEquals(-1, mSequence.getAheadId(3));
+        assertEquals(-1, mSequence.getAheadId(4));
+        assertEquals(ChatMessageSequence.IN_ORDER, mSequence.offer(5, 120));
+    }
+
+    @Test
+    public void offer_behindTheRunIsLate() {
+        mSequence.offer(1, 100);
+        mSequence.offer(2, 105);
+
+        assertEquals(ChatMessageSequence.LATE, mSequence.offer(1, 100));
+        assertEquals(105, mSequence.getContiguousId());
+    }
+
+    @Test
+    public void skipTo_givesUpOnTheGap() {
+        mSequence.offer(1, 100);
+        mSequence.offer(4, 120);
+        mSequence.skipTo(4);
+
+        // the held message right after the gap joins the run
+        assertEquals(120, mSequence.getContiguousId());
+        assertEquals(-1, mSequence.getAheadId(4));
+        assertEquals(ChatMessageSequence.IN_ORDER, mSequence.offer(5, 125));
+        assertEquals(ChatMessageSequence.LATE, mSequence.offer(2, 105));
+    }
+
+    @Test
+    public void skipTo_keepsMessagesHeldAfterALaterGap() {
+        mSequence.offer(1, 100);
+        mSequence.offer(3, 110);
+        mSequence.offer(6, 130);
+        mSequence.skipTo(3);
+
+        assertEquals(110, mSequence.getContiguousId());
+        assertEquals(130, mSequence.getAheadId(6));
+    }
+
+    @Test
+    public void skipTo_takesInMessagesHeldBeforeIt() {
+        mSequence.offer(1, 100);
+        mSequence.offer(3, 110);
+        mSequence.offer(5, 120);
+        mSequence.skipTo(5);
+
+        assertEquals(120, mSequence.getContiguousId());
+        assertEquals(-1, mSequence.getAheadId(3));
+    }
+
+    @Test
+    public void skipTo_beforeTheFirstMessageDoesNothing() {
+        mSequence.skipTo(5);
+
+        assertEquals(-1, mSequence.getContiguousId());
+        assertEquals(ChatMessageSequence.IN_ORDER, mSequence.offer(1, 100));
+    }
+
+    @Test
+    public void skipTo_behindTheRunDoesNothing() {
+        mSequence.offer(1, 100);
+        mSequence.offer(2, 105);
+        mSequence.skipTo(2);
+
+        assertEquals(105, mSequence.getContiguousId());
+        assertEquals(ChatMessageSequence.IN_ORDER, mSequence.offer(3, 110));
+    }
+}